@@ -0,0 +1,57 @@
+package edu.una.datastructures.benchmarks;
+
+import edu.una.datastructures.model.BitBoard;
+import edu.una.datastructures.model.Board;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of building the linked {@link Board}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private BitBoard[] positions;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+
+        long[][] corpus = PositionCorpus.positions();
+        positions = new BitBoard[corpus.length];
+
+        for (int i = 0; i < corpus.length; i++) {
+            positions[i] = new BitBoard(corpus[i][0], corpus[i][1]);
+        }
+    }
+
+    @Benchmark
+    public Board construct() {
+        return new Board();
+    }
+
+    /**
+     * Builds a board and loads a mid-game position into it.
+     */
+    @Benchmark
+    public Board constructAndLoad() {
+        Board board = new Board();
+        board.load(positions[cursor]);
+        cursor = cursor + 1 == positions.length ? 0 : cursor + 1;
+        return board;
+    }
+}
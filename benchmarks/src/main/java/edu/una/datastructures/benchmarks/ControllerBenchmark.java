@@ -0,0 +1,80 @@
+package edu.una.datastructures.benchmarks;
+
+import edu.una.datastructures.logic.GameController;
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.PieceColor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the {@link GameController} operations run after every move,
+ * cycling through one controller per corpus position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmark {
+
+    private Board[] boards;
+    private GameController[] controllers;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+
+        long[][] positions = PositionCorpus.positions();
+        boards = new Board[positions.length];
+        controllers = new GameController[positions.length];
+
+        for (int i = 0; i < positions.length; i++) {
+            boards[i] = PositionCorpus.toBoard(positions[i]);
+            controllers[i] = new GameController(boards[i]);
+        }
+    }
+
+    private GameController next() {
+        GameController controller = controllers[cursor];
+        cursor = cursor + 1 == controllers.length ? 0 : cursor + 1;
+        return controller;
+    }
+
+    @Benchmark
+    public boolean hasValidMove() {
+        return next().hasValidMove(PieceColor.WHITE);
+    }
+
+    @Benchmark
+    public void markValidMoves() {
+        next().markValidMoves();
+    }
+
+    @Benchmark
+    public int countPieces() {
+        return next().countPieces(PieceColor.BLACK);
+    }
+
+    /**
+     * Plays the first valid move through the controller and undoes it, so
+     * the valid-move markers are refreshed twice per invocation.
+     */
+    @Benchmark
+    public boolean playMoveAndUndo() {
+        GameController controller = next();
+        Board board = boards[cursor == 0 ? controllers.length - 1 : cursor - 1];
+        long moves = controller.getValidMoves(controller.getCurrentPlayer());
+        controller.playMove(board.getNode(Long.numberOfTrailingZeros(moves)));
+        return controller.undoMove();
+    }
+}
@@ -0,0 +1,55 @@
+package edu.una.datastructures.benchmarks;
+
+import edu.una.datastructures.model.BitBoard;
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.tools.PositionSuite;
+
+/**
+ * Corpus of realistic mid-game positions shared by the benchmarks.
+ * <p>
+ * Positions come from seeded random playouts at several stages of the
+ * game, so every run and every release measures the same positions. In
+ * each position the player to move plays black.
+ */
+final class PositionCorpus {
+
+    /** Empty-square counts covered by the corpus. */
+    private static final int[] STAGES = {44, 36, 28, 20};
+
+    /** Positions generated per stage. */
+    private static final int PER_STAGE = 16;
+
+    private static final long SEED = 0x0BE110L;
+
+    private PositionCorpus() {
+    }
+
+    /**
+     * @return pairs of masks: the pieces of black (to move) and of white
+     */
+    static long[][] positions() {
+
+        long[][] corpus = new long[STAGES.length * PER_STAGE][];
+        int next = 0;
+
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            for (long[] position : PositionSuite.generate(PER_STAGE, STAGES[stage], SEED + stage)) {
+                corpus[next++] = position;
+            }
+        }
+
+        return corpus;
+    }
+
+    /**
+     * Creates a linked board holding a corpus position.
+     *
+     * @param position the masks of black and white
+     * @return a new board
+     */
+    static Board toBoard(long[] position) {
+        Board board = new Board();
+        board.load(new BitBoard(position[0], position[1]));
+        return board;
+    }
+}
@@ -0,0 +1,155 @@
+package edu.una.datastructures.benchmarks;
+
+import edu.una.datastructures.logic.GameLogic;
+import edu.una.datastructures.logic.MoveJournal;
+import edu.una.datastructures.model.BitBoard;
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.Node;
+import edu.una.datastructures.model.PieceColor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the rules in {@link GameLogic} on the linked board, with the
+ * {@link BitBoard} equivalents for comparison and, as {@code *Switch}, the
+ * earlier node layout and ray walks of {@link SwitchRules}, which dispatched
+ * on the direction at every step, run on copies of the same positions.
+ * <p>
+ * Each invocation works on the next entry of a fixed list built from the
+ * position corpus, cycling through it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+
+    private final GameLogic logic = new GameLogic();
+    private final MoveJournal journal = new MoveJournal();
+    private final SwitchRules switchRules = new SwitchRules();
+
+    /** Every empty node of the corpus, probed by isValidMove. */
+    private Node[] emptyNodes;
+
+    /** Every legal move of the corpus for the player to move. */
+    private Node[] legalNodes;
+
+    /** The squares of {@link #emptyNodes} and {@link #legalNodes} in the earlier layout. */
+    private SwitchRules.Cell[] emptyCells;
+    private SwitchRules.Cell[] legalCells;
+
+    private long[][] positions;
+    private int[] legalSquares;
+    private long[][] legalPositions;
+
+    private int emptyCursor;
+    private int legalCursor;
+    private int positionCursor;
+
+    @Setup
+    public void setup() {
+
+        positions = PositionCorpus.positions();
+        List<Node> empty = new ArrayList<>();
+        List<Node> legal = new ArrayList<>();
+        List<SwitchRules.Cell> cellsEmpty = new ArrayList<>();
+        List<SwitchRules.Cell> cellsLegal = new ArrayList<>();
+        List<long[]> legalOwners = new ArrayList<>();
+
+        for (long[] position : positions) {
+            Board board = PositionCorpus.toBoard(position);
+            SwitchRules.Cell[] cells = SwitchRules.link(position);
+
+            for (int square = 0; square < BitBoard.SQUARES; square++) {
+                Node node = board.getNode(square);
+
+                if (node.getPiece() == PieceColor.EMPTY) {
+                    empty.add(node);
+                    cellsEmpty.add(cells[square]);
+
+                    if (logic.isValidMove(node, PieceColor.BLACK)) {
+                        legal.add(node);
+                        cellsLegal.add(cells[square]);
+                        legalOwners.add(position);
+                    }
+                }
+            }
+        }
+
+        emptyNodes = empty.toArray(new Node[0]);
+        legalNodes = legal.toArray(new Node[0]);
+        emptyCells = cellsEmpty.toArray(new SwitchRules.Cell[0]);
+        legalCells = cellsLegal.toArray(new SwitchRules.Cell[0]);
+        legalPositions = legalOwners.toArray(new long[0][]);
+        legalSquares = new int[legalNodes.length];
+
+        for (int i = 0; i < legalNodes.length; i++) {
+            legalSquares[i] = legalNodes[i].getIndex();
+        }
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        Node node = emptyNodes[emptyCursor];
+        emptyCursor = emptyCursor + 1 == emptyNodes.length ? 0 : emptyCursor + 1;
+        return logic.isValidMove(node, PieceColor.BLACK);
+    }
+
+    /**
+     * Applies a legal move and undoes it through the journal, so the corpus
+     * is unchanged after every invocation.
+     */
+    @Benchmark
+    public PieceColor applyMove() {
+        Node node = legalNodes[legalCursor];
+        legalCursor = legalCursor + 1 == legalNodes.length ? 0 : legalCursor + 1;
+        logic.applyMove(node, PieceColor.BLACK, journal);
+        return logic.undoMove(journal);
+    }
+
+    @Benchmark
+    public boolean isValidMoveSwitch() {
+        SwitchRules.Cell cell = emptyCells[emptyCursor];
+        emptyCursor = emptyCursor + 1 == emptyCells.length ? 0 : emptyCursor + 1;
+        return switchRules.isValidMove(cell, PieceColor.BLACK);
+    }
+
+    /**
+     * Same as {@link #applyMove()} with the earlier ray walks, recording and
+     * undoing the move through frames laid out like the move journal.
+     */
+    @Benchmark
+    public PieceColor applyMoveSwitch() {
+        SwitchRules.Cell cell = legalCells[legalCursor];
+        legalCursor = legalCursor + 1 == legalCells.length ? 0 : legalCursor + 1;
+        switchRules.applyMove(cell, PieceColor.BLACK);
+        return switchRules.undoMove();
+    }
+
+    @Benchmark
+    public long bitBoardLegalMoves() {
+        long[] position = positions[positionCursor];
+        positionCursor = positionCursor + 1 == positions.length ? 0 : positionCursor + 1;
+        return BitBoard.legalMoves(position[0], position[1]);
+    }
+
+    @Benchmark
+    public long bitBoardFlips() {
+        int i = legalCursor;
+        legalCursor = legalCursor + 1 == legalSquares.length ? 0 : legalCursor + 1;
+        return BitBoard.flips(legalPositions[i][0], legalPositions[i][1], legalSquares[i]);
+    }
+}
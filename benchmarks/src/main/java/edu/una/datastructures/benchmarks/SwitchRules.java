@@ -0,0 +1,298 @@
+package edu.una.datastructures.benchmarks;
+
+import edu.una.datastructures.model.BitBoard;
+import edu.una.datastructures.model.PieceColor;
+import java.util.Arrays;
+
+/**
+ * The linked board and ray walks of {@code GameLogic} as they were before
+ * nodes kept a direction-indexed neighbor table: every {@link Cell} holds
+ * its eight neighbors in named fields, each step dispatches on the direction
+ * through a switch over them, and rays are walked until a null link. Moves
+ * are recorded in frames laid out like {@code MoveJournal} and undone from
+ * them, so it does the same bookkeeping as {@code GameLogic.applyMove} and
+ * {@code undoMove}. Kept only as the baseline of {@link RulesBenchmark}.
+ */
+final class SwitchRules {
+
+    private static final int NORTH = 0;
+    private static final int SOUTH = 1;
+    private static final int EAST  = 2;
+    private static final int WEST  = 3;
+    private static final int NE    = 4;
+    private static final int NW    = 5;
+    private static final int SE    = 6;
+    private static final int SW    = 7;
+
+    private static final int FLIPS_PER_FRAME = 20;
+
+    /** Move frames, as in {@code MoveJournal}. */
+    private Cell[] placed = new Cell[64];
+    private PieceColor[] movers = new PieceColor[64];
+    private int[] frameEnds = new int[64];
+    private Cell[] flips = new Cell[64 * FLIPS_PER_FRAME];
+    private int frames;
+    private int flipCount;
+
+    /**
+     * A board square in the earlier node layout. Piece changes update the
+     * bitboard mirror of its grid, like {@code Node} does through its board.
+     */
+    static final class Cell {
+
+        private final Grid grid;
+        private final int index;
+        private PieceColor piece = PieceColor.EMPTY;
+
+        private Cell north;
+        private Cell south;
+        private Cell east;
+        private Cell west;
+        private Cell northEast;
+        private Cell northWest;
+        private Cell southEast;
+        private Cell southWest;
+
+        private Cell(Grid grid, int index) {
+            this.grid = grid;
+            this.index = index;
+        }
+
+        PieceColor getPiece() {
+            return piece;
+        }
+
+        void setPiece(PieceColor piece) {
+            if (piece != this.piece) {
+                grid.pieceChanged(index, this.piece, piece);
+            }
+            this.piece = piece;
+        }
+    }
+
+    /**
+     * The cells of one 8x8 board and the masks mirroring them.
+     */
+    private static final class Grid {
+
+        private long black;
+        private long white;
+
+        void pieceChanged(int index, PieceColor previous, PieceColor piece) {
+
+            long bit = 1L << index;
+
+            if (previous == PieceColor.BLACK) {
+                black &= ~bit;
+            } else if (previous == PieceColor.WHITE) {
+                white &= ~bit;
+            }
+
+            if (piece == PieceColor.BLACK) {
+                black |= bit;
+            } else if (piece == PieceColor.WHITE) {
+                white |= bit;
+            }
+        }
+    }
+
+    /**
+     * Builds a linked 8x8 board in the earlier layout.
+     *
+     * @param position the masks of black and white
+     * @return the cells indexed by square
+     */
+    static Cell[] link(long[] position) {
+
+        Grid grid = new Grid();
+        Cell[] cells = new Cell[BitBoard.SQUARES];
+
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            cells[square] = new Cell(grid, square);
+        }
+
+        for (int row = 0; row < BitBoard.SIZE; row++) {
+            for (int col = 0; col < BitBoard.SIZE; col++) {
+                Cell cell = cells[BitBoard.square(row, col)];
+                cell.north = at(cells, row - 1, col);
+                cell.south = at(cells, row + 1, col);
+                cell.east = at(cells, row, col + 1);
+                cell.west = at(cells, row, col - 1);
+                cell.northEast = at(cells, row - 1, col + 1);
+                cell.northWest = at(cells, row - 1, col - 1);
+                cell.southEast = at(cells, row + 1, col + 1);
+                cell.southWest = at(cells, row + 1, col - 1);
+
+                long bit = 1L << cell.index;
+                if ((position[0] & bit) != 0) {
+                    cell.setPiece(PieceColor.BLACK);
+                } else if ((position[1] & bit) != 0) {
+                    cell.setPiece(PieceColor.WHITE);
+                }
+            }
+        }
+
+        return cells;
+    }
+
+    private static Cell at(Cell[] cells, int row, int col) {
+        boolean inside = row >= 0 && row < BitBoard.SIZE && col >= 0 && col < BitBoard.SIZE;
+        return inside ? cells[BitBoard.square(row, col)] : null;
+    }
+
+    boolean isValidMove(Cell start, PieceColor player) {
+
+        if (start == null || start.getPiece() != PieceColor.EMPTY) {
+            return false;
+        }
+
+        PieceColor opponent = opponent(player);
+
+        return checkDirection(start.north, player, opponent, NORTH)
+            || checkDirection(start.south, player, opponent, SOUTH)
+            || checkDirection(start.east, player, opponent, EAST)
+            || checkDirection(start.west, player, opponent, WEST)
+            || checkDirection(start.northEast, player, opponent, NE)
+            || checkDirection(start.northWest, player, opponent, NW)
+            || checkDirection(start.southEast, player, opponent, SE)
+            || checkDirection(start.southWest, player, opponent, SW);
+    }
+
+    /**
+     * Applies a move and records it in the next frame.
+     */
+    boolean applyMove(Cell start, PieceColor player) {
+
+        if (!isValidMove(start, player)) {
+            return false;
+        }
+
+        PieceColor opponent = opponent(player);
+        start.setPiece(player);
+        begin(start, player);
+
+        flipDirection(start.north, player, opponent, NORTH);
+        flipDirection(start.south, player, opponent, SOUTH);
+        flipDirection(start.east, player, opponent, EAST);
+        flipDirection(start.west, player, opponent, WEST);
+        flipDirection(start.northEast, player, opponent, NE);
+        flipDirection(start.northWest, player, opponent, NW);
+        flipDirection(start.southEast, player, opponent, SE);
+        flipDirection(start.southWest, player, opponent, SW);
+
+        return true;
+    }
+
+    /**
+     * Reverts the last {@link #applyMove} from its frame.
+     */
+    PieceColor undoMove() {
+
+        PieceColor mover = movers[frames - 1];
+        PieceColor opponent = opponent(mover);
+
+        for (int i = frameEnds[frames - 1] - 1; i >= frameStart(frames - 1); i--) {
+            flips[i].setPiece(opponent);
+        }
+
+        placed[frames - 1].setPiece(PieceColor.EMPTY);
+        frames--;
+        flipCount = frameStart(frames);
+        placed[frames] = null;
+
+        return mover;
+    }
+
+    private void begin(Cell cell, PieceColor mover) {
+
+        if (frames == placed.length) {
+            int capacity = frames * 2;
+            placed = Arrays.copyOf(placed, capacity);
+            movers = Arrays.copyOf(movers, capacity);
+            frameEnds = Arrays.copyOf(frameEnds, capacity);
+        }
+
+        placed[frames] = cell;
+        movers[frames] = mover;
+        frameEnds[frames] = flipCount;
+        frames++;
+    }
+
+    private void recordFlip(Cell cell) {
+
+        if (flipCount == flips.length) {
+            flips = Arrays.copyOf(flips, flips.length * 2);
+        }
+
+        flips[flipCount++] = cell;
+        frameEnds[frames - 1] = flipCount;
+    }
+
+    private int frameStart(int frame) {
+        return frame == 0 ? 0 : frameEnds[frame - 1];
+    }
+
+    private boolean checkDirection(Cell current, PieceColor player, PieceColor opponent, int direction) {
+
+        if (current == null || current.getPiece() != opponent) {
+            return false;
+        }
+
+        while (current != null) {
+
+            if (current.getPiece() == PieceColor.EMPTY) {
+                return false;
+            }
+
+            if (current.getPiece() == player) {
+                return true;
+            }
+
+            current = advance(current, direction);
+        }
+
+        return false;
+    }
+
+    private void flipDirection(Cell current, PieceColor player, PieceColor opponent, int direction) {
+
+        if (current == null || current.getPiece() != opponent) {
+            return;
+        }
+
+        Cell runner = current;
+
+        while (runner != null && runner.getPiece() == opponent) {
+            runner = advance(runner, direction);
+        }
+
+        if (runner == null || runner.getPiece() != player) {
+            return;
+        }
+
+        while (current != runner) {
+            current.setPiece(player);
+            recordFlip(current);
+            current = advance(current, direction);
+        }
+    }
+
+    private Cell advance(Cell cell, int direction) {
+
+        switch (direction) {
+            case NORTH: return cell.north;
+            case SOUTH: return cell.south;
+            case EAST:  return cell.east;
+            case WEST:  return cell.west;
+            case NE:    return cell.northEast;
+            case NW:    return cell.northWest;
+            case SE:    return cell.southEast;
+            case SW:    return cell.southWest;
+            default:    return null;
+        }
+    }
+
+    private static PieceColor opponent(PieceColor player) {
+        return player == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK;
+    }
+}
@@ -0,0 +1,272 @@
+package edu.una.datastructures.archive;
+
+import edu.una.datastructures.model.BitBoard;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch analysis of recorded games.
+ * <p>
+ * The blocks of the block index of every archive are the units of work:
+ * worker threads claim the next unprocessed block until none is left, so
+ * work balances across cores whatever the sizes of the archives. Each game
+ * is replayed with the {@link BitBoard} rules, which also validates it, and
+ * contributes to:
+ * <ul>
+ *   <li>game-level counters and histograms kept by each worker and merged
+ *       at the end;</li>
+ *   <li>win and draw statistics of every position of its first moves and
+ *       of its opening sequence, kept in tables shared by all workers.</li>
+ * </ul>
+ * Games are read from the memory-mapped archives one at a time and the
+ * shared tables have a fixed capacity, so memory use does not depend on the
+ * number of games. Only 8x8 archives can be analyzed.
+ */
+public final class ArchiveAnalyzer {
+
+    /** Default number of moves of each game whose positions are recorded. */
+    public static final int DEFAULT_POSITION_PLIES = 20;
+
+    /** Default length of the opening sequences counted. */
+    public static final int DEFAULT_OPENING_PLIES = 6;
+
+    /** Longest opening sequence that fits a key: six bits per move. */
+    public static final int MAX_OPENING_PLIES = 10;
+
+    /** Default number of entries of the position table. */
+    public static final int DEFAULT_TABLE_ENTRIES = 1 << 20;
+
+    /** Largest number of entries of the position table. */
+    public static final int MAX_TABLE_ENTRIES = ResultTable.MAX_CAPACITY;
+
+    private final int threads;
+    private int positionPlies = DEFAULT_POSITION_PLIES;
+    private int openingPlies = DEFAULT_OPENING_PLIES;
+    private int tableEntries = DEFAULT_TABLE_ENTRIES;
+
+    /**
+     * Creates an analyzer.
+     *
+     * @param threads number of worker threads
+     */
+    public ArchiveAnalyzer(int threads) {
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required");
+        }
+
+        this.threads = threads;
+    }
+
+    /**
+     * Sets how many moves of each game contribute position statistics.
+     *
+     * @param positionPlies number of moves, 0 to disable position statistics
+     */
+    public void setPositionPlies(int positionPlies) {
+        this.positionPlies = positionPlies;
+    }
+
+    /**
+     * Sets the length of the opening sequences counted.
+     *
+     * @param openingPlies number of moves, from 1 to {@link #MAX_OPENING_PLIES}
+     */
+    public void setOpeningPlies(int openingPlies) {
+
+        if (openingPlies < 1 || openingPlies > MAX_OPENING_PLIES) {
+            throw new IllegalArgumentException("Opening length must be between 1 and "
+                    + MAX_OPENING_PLIES + ": " + openingPlies);
+        }
+
+        this.openingPlies = openingPlies;
+    }
+
+    /**
+     * Sets the number of entries of the position table. The opening table
+     * gets a quarter of them. Each entry takes 20 bytes.
+     *
+     * @param tableEntries number of entries, from 1 to
+     *                     {@link #MAX_TABLE_ENTRIES}, rounded up to a power
+     *                     of two
+     */
+    public void setTableEntries(int tableEntries) {
+
+        if (tableEntries < 1 || tableEntries > MAX_TABLE_ENTRIES) {
+            throw new IllegalArgumentException("Table entries must be between 1 and "
+                    + MAX_TABLE_ENTRIES + ": " + tableEntries);
+        }
+
+        this.tableEntries = tableEntries;
+    }
+
+    /**
+     * Analyzes every game of a list of archives.
+     *
+     * @param archives the archives, all of 8x8 games
+     * @return the report
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public ArchiveReport analyze(List<GameArchive> archives) throws InterruptedException {
+
+        // One task per block, encoded as archive index and block index.
+        List<int[]> tasks = new ArrayList<>();
+
+        for (int i = 0; i < archives.size(); i++) {
+            GameArchive archive = archives.get(i);
+
+            if (archive.getBoardSize() != BitBoard.SIZE) {
+                throw new IllegalArgumentException("Only 8x8 archives can be analyzed, found "
+                        + archive.getBoardSize() + "x" + archive.getBoardSize());
+            }
+
+            for (int block = 0; block < archive.getBlockCount(); block++) {
+                tasks.add(new int[] {i, block});
+            }
+        }
+
+        ResultTable positions = new ResultTable(tableEntries);
+        ResultTable openings = new ResultTable(Math.max(1, tableEntries / 4));
+        AtomicInteger nextTask = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Worker>> workers = new ArrayList<>(threads);
+
+        for (int i = 0; i < threads; i++) {
+            workers.add(pool.submit(() -> {
+                Worker worker = new Worker(positions, openings);
+                for (int task = nextTask.getAndIncrement(); task < tasks.size();
+                     task = nextTask.getAndIncrement()) {
+                    worker.processBlock(archives.get(tasks.get(task)[0]), tasks.get(task)[1]);
+                }
+                return worker;
+            }));
+        }
+
+        GameStatistics statistics = new GameStatistics();
+        long rejected = 0;
+
+        try {
+            for (Future<Worker> future : workers) {
+                Worker worker = future.get();
+                statistics.merge(worker.statistics);
+                rejected += worker.rejected;
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis worker failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        return new ArchiveReport(statistics, rejected, positions, openings, openingPlies, System.nanoTime() - start);
+    }
+
+    /**
+     * State of one worker thread.
+     */
+    private final class Worker {
+
+        private final ResultTable positions;
+        private final ResultTable openings;
+        private final GameStatistics statistics = new GameStatistics();
+        private long rejected;
+
+        /** Position keys of the game being replayed, committed once it is validated. */
+        private final long[] keys = new long[GameStatistics.MAX_MOVES];
+
+        Worker(ResultTable positions, ResultTable openings) {
+            this.positions = positions;
+            this.openings = openings;
+        }
+
+        void processBlock(GameArchive archive, int block) {
+
+            GameArchive.Cursor cursor = archive.cursor();
+            int first = block * archive.getBlockGames();
+            int end = Math.min(archive.size(), first + archive.getBlockGames());
+
+            cursor.seek(first);
+
+            for (int game = first; game < end; game++) {
+                if (game > first) {
+                    cursor.next();
+                }
+                processGame(cursor);
+            }
+        }
+
+        /**
+         * Replays a game, then records it if it is legal and its recorded
+         * result matches.
+         */
+        private void processGame(GameArchive.Cursor cursor) {
+
+            int moves = cursor.getMoveCount();
+            long player = BitBoard.INITIAL_BLACK;
+            long opponent = BitBoard.INITIAL_WHITE;
+            boolean blackToMove = true;
+            long opening = 1;
+            int keyCount = 0;
+
+            for (int ply = 0; ply < moves; ply++) {
+                long legal = BitBoard.legalMoves(player, opponent);
+
+                if (legal == 0) {
+                    long swap = player;
+                    player = opponent;
+                    opponent = swap;
+                    blackToMove = !blackToMove;
+                    legal = BitBoard.legalMoves(player, opponent);
+                }
+
+                int square = cursor.getMove(ply);
+
+                if ((legal & (1L << square)) == 0) {
+                    rejected++;
+                    return;
+                }
+
+                if (ply < positionPlies) {
+                    keys[keyCount++] = blackToMove
+                            ? ArchiveReport.positionKey(player, opponent, true)
+                            : ArchiveReport.positionKey(opponent, player, false);
+                }
+
+                if (ply < openingPlies) {
+                    opening = opening << 6 | square;
+                }
+
+                long flipped = BitBoard.flips(player, opponent, square);
+                long next = opponent & ~flipped;
+                opponent = player | flipped | (1L << square);
+                player = next;
+                blackToMove = !blackToMove;
+            }
+
+            long black = blackToMove ? player : opponent;
+            long white = blackToMove ? opponent : player;
+
+            if (Long.bitCount(black) != cursor.getBlackDiscs() || Long.bitCount(white) != cursor.getWhiteDiscs()) {
+                rejected++;
+                return;
+            }
+
+            int differential = cursor.getBlackDiscs() - cursor.getWhiteDiscs();
+            statistics.record(moves, differential);
+
+            for (int i = 0; i < keyCount; i++) {
+                positions.add(keys[i], differential);
+            }
+
+            if (moves >= openingPlies) {
+                openings.add(opening, differential);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package edu.una.datastructures.archive;
+
+import edu.una.datastructures.engine.Zobrist;
+import edu.una.datastructures.model.BitBoard;
+
+/**
+ * Results of an {@link ArchiveAnalyzer} run.
+ * <p>
+ * Game-level figures (results, lengths and disc differentials) cover every
+ * accepted game. Position and opening statistics come from fixed-size
+ * tables, so when the input holds more distinct positions than the tables
+ * can store, the results that did not fit are reported as dropped.
+ */
+public final class ArchiveReport {
+
+    private final GameStatistics statistics;
+    private final long rejected;
+    private final ResultTable positions;
+    private final ResultTable openings;
+    private final int openingPlies;
+    private final long elapsedNanos;
+
+    ArchiveReport(GameStatistics statistics, long rejected, ResultTable positions,
+                  ResultTable openings, int openingPlies, long elapsedNanos) {
+        this.statistics = statistics;
+        this.rejected = rejected;
+        this.positions = positions;
+        this.openings = openings;
+        this.openingPlies = openingPlies;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the results of every game analyzed
+     */
+    public GameStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return the number of games analyzed
+     */
+    public long getGames() {
+        return statistics.getGames();
+    }
+
+    /**
+     * @return the number of games skipped because a move was illegal or the
+     *         recorded result did not match the replay
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the advantage of moving first: the score of black, counting a
+     * draw as half a win, minus one half.
+     *
+     * @return a value from -0.5 to 0.5; positive when black does better
+     */
+    public double getFirstMoverAdvantage() {
+        long games = getGames();
+        return games == 0 ? 0 : (statistics.getBlackWins() + 0.5 * statistics.getDraws()) / games - 0.5;
+    }
+
+    /**
+     * @return the number of distinct positions with statistics
+     */
+    public int getPositionCount() {
+        return positions.size();
+    }
+
+    /**
+     * @return the number of position results that did not fit the table
+     */
+    public int getDroppedPositions() {
+        return positions.getDropped();
+    }
+
+    /**
+     * Returns the results of the games that went through a position.
+     *
+     * @param black squares holding black pieces
+     * @param white squares holding white pieces
+     * @param blackToMove true if black is to move
+     * @return games, black wins and draws, or null if the position was not
+     *         recorded
+     */
+    public int[] getPositionResults(long black, long white, boolean blackToMove) {
+
+        int slot = positions.find(positionKey(black, white, blackToMove));
+
+        if (slot < 0) {
+            return null;
+        }
+
+        return new int[] {positions.gamesAt(slot), positions.blackWinsAt(slot), positions.drawsAt(slot)};
+    }
+
+    /**
+     * Key of a position in the position table.
+     */
+    static long positionKey(long black, long white, boolean blackToMove) {
+        long key = Zobrist.hash(black, white, blackToMove ? 0 : 1);
+        return key == 0 ? 1 : key;
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param top number of openings and positions listed, at least 0
+     */
+    public void print(int top) {
+
+        if (top < 0) {
+            throw new IllegalArgumentException("Number of entries listed must not be negative: " + top);
+        }
+
+        long games = getGames();
+
+        System.out.printf("Games: %,d (%,d rejected) in %.2f s (%,.0f games/s)%n",
+                games, rejected, elapsedNanos / 1e9, games * 1e9 / elapsedNanos);
+
+        if (games == 0) {
+            return;
+        }
+
+        statistics.print();
+        System.out.printf("First-mover advantage: %+.2f%% of a game%n", 100 * getFirstMoverAdvantage());
+
+        System.out.printf("Openings of %d moves (%,d distinct, %,d dropped):%n",
+                openingPlies, openings.size(), openings.getDropped());
+        for (int slot : openings.top(top)) {
+            System.out.printf("  %-24s %s%n", openingName(openings.keyAt(slot)), results(openings, slot));
+        }
+
+        System.out.printf("Positions (%,d distinct, %,d dropped), most played:%n",
+                positions.size(), positions.getDropped());
+        for (int slot : positions.top(top)) {
+            System.out.printf("  %016x  %s%n", positions.keyAt(slot), results(positions, slot));
+        }
+    }
+
+    private static String results(ResultTable table, int slot) {
+
+        int played = table.gamesAt(slot);
+        int wins = table.blackWinsAt(slot);
+        int draws = table.drawsAt(slot);
+
+        return String.format("%,10d games  black %5.1f%%  draw %4.1f%%  white %5.1f%%",
+                played, 100.0 * wins / played, 100.0 * draws / played,
+                100.0 * (played - wins - draws) / played);
+    }
+
+    /**
+     * Decodes an opening key: six bits per move after a leading marker bit.
+     */
+    private static String openingName(long key) {
+
+        int moves = (Long.SIZE - 1 - Long.numberOfLeadingZeros(key)) / 6;
+        StringBuilder name = new StringBuilder();
+
+        for (int i = moves - 1; i >= 0; i--) {
+            name.append(BitBoard.squareName((int) (key >>> (6 * i)) & 63));
+        }
+
+        return name.toString();
+    }
+}
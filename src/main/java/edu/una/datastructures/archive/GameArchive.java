@@ -0,0 +1,432 @@
+package edu.una.datastructures.archive;
+
+import edu.una.datastructures.logic.GameController;
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.BoardGeometry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only archive of recorded games backed by a memory-mapped file.
+ * <p>
+ * The file holds a header, the games one after the other, a block index
+ * and a trailer:
+ * <pre>
+ * header:  int magic, int version, int board size, int reserved
+ * game:    short moves, short black discs, short white discs, short tag,
+ *          one byte per move with its square
+ * index:   long offset of the first game of every block
+ * trailer: long index offset, int games, int games per block,
+ *          int blocks, int trailer magic
+ * </pre>
+ * Passes are not stored; they are implied by the rules when a game is
+ * replayed. Every move adds one disc, so the disc counts of a game always
+ * add up to its number of moves plus four. Games are numbered from 0 in
+ * the order they were written.
+ * <p>
+ * Opening an archive maps the file without parsing the games. A
+ * {@link Cursor} iterates them, or jumps to a game through the block index,
+ * reading moves straight from the mapping without creating any
+ * {@link Board}; games are only turned into a board when replayed. When the
+ * trailer is missing, for instance because the writer was not closed, the
+ * index is rebuilt by scanning the games and a truncated last game is
+ * ignored. The mapping limits archives to 2 GB.
+ */
+public final class GameArchive {
+
+    /** File signature: "RVGA". */
+    static final int MAGIC = 0x52564741;
+
+    /** Trailer signature: "RVGI". */
+    static final int TRAILER_MAGIC = 0x52564749;
+
+    /** Version of the file format. */
+    static final int VERSION = 1;
+
+    /** Size of the file header in bytes. */
+    static final int HEADER_BYTES = 16;
+
+    /** Size of the header of each game in bytes. */
+    static final int GAME_HEADER_BYTES = 8;
+
+    /** Size of the trailer in bytes. */
+    static final int TRAILER_BYTES = 24;
+
+    /** Largest board whose squares fit in one byte per move. */
+    static final int MAX_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int boardSize;
+    private final int games;
+    private final int blockGames;
+
+    /** Offset of the first game of every block. */
+    private final long[] blockOffsets;
+
+    /** Offset just past the last complete game. */
+    private final long dataEnd;
+
+    private GameArchive(ByteBuffer buffer) {
+
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a game archive file");
+        }
+
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported game archive version: " + buffer.getInt(4));
+        }
+
+        this.buffer = buffer;
+        this.boardSize = buffer.getInt(8);
+        checkBoardSize(boardSize);
+
+        int capacity = buffer.capacity();
+        int trailer = capacity - TRAILER_BYTES;
+
+        if (trailer >= HEADER_BYTES && buffer.getInt(capacity - 4) == TRAILER_MAGIC
+                && hasValidIndex(trailer)) {
+
+            long indexOffset = buffer.getLong(trailer);
+            int blocks = buffer.getInt(trailer + 16);
+
+            this.games = buffer.getInt(trailer + 8);
+            this.blockGames = buffer.getInt(trailer + 12);
+            this.blockOffsets = new long[blocks];
+            this.dataEnd = indexOffset;
+
+            for (int block = 0; block < blocks; block++) {
+                blockOffsets[block] = buffer.getLong((int) indexOffset + block * Long.BYTES);
+            }
+        } else {
+            // No usable trailer: rebuild the index by walking the games.
+            int squares = boardSize * boardSize;
+            int position = HEADER_BYTES;
+            int count = 0;
+            long[] offsets = new long[16];
+
+            while (position + GAME_HEADER_BYTES <= capacity) {
+                int moves = buffer.getShort(position) & 0xFFFF;
+                int discs = buffer.getShort(position + 2) + buffer.getShort(position + 4);
+
+                if (moves > squares - 4 || discs != moves + 4
+                        || position + GAME_HEADER_BYTES + moves > capacity) {
+                    break;
+                }
+
+                if (count % GameArchiveWriter.BLOCK_GAMES == 0) {
+                    int block = count / GameArchiveWriter.BLOCK_GAMES;
+                    if (block == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, block * 2);
+                    }
+                    offsets[block] = position;
+                }
+
+                position += GAME_HEADER_BYTES + moves;
+                count++;
+            }
+
+            this.games = count;
+            this.blockGames = GameArchiveWriter.BLOCK_GAMES;
+            this.blockOffsets = Arrays.copyOf(offsets,
+                    (count + GameArchiveWriter.BLOCK_GAMES - 1) / GameArchiveWriter.BLOCK_GAMES);
+            this.dataEnd = position;
+        }
+    }
+
+    /**
+     * Checks that the trailer at the given offset describes an index that
+     * ends exactly where the trailer starts.
+     */
+    private boolean hasValidIndex(int trailer) {
+
+        long indexOffset = buffer.getLong(trailer);
+        int count = buffer.getInt(trailer + 8);
+        int perBlock = buffer.getInt(trailer + 12);
+        int blocks = buffer.getInt(trailer + 16);
+
+        return indexOffset >= HEADER_BYTES && count >= 0 && perBlock > 0 && blocks >= 0
+                && blocks == (count + (long) perBlock - 1) / perBlock
+                && indexOffset + (long) blocks * Long.BYTES == trailer;
+    }
+
+    /**
+     * Maps a game archive file into memory.
+     *
+     * @param file the archive file
+     * @return the opened archive
+     * @throws IOException if the file cannot be read
+     */
+    public static GameArchive open(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Game archive larger than 2 GB: " + file);
+            }
+            return new GameArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Validates a board size for the archive format.
+     *
+     * @param size number of rows and columns
+     */
+    static void checkBoardSize(int size) {
+
+        BoardGeometry.of(size);
+
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("Game archives store one byte per move, "
+                    + "so boards are limited to " + MAX_SIZE + "x" + MAX_SIZE + ": " + size);
+        }
+    }
+
+    /**
+     * @return the number of rows and columns of the archived games
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * @return the number of games in the archive
+     */
+    public int size() {
+        return games;
+    }
+
+    /**
+     * @return the number of blocks of the index
+     */
+    public int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    /**
+     * @return the number of games per block of the index; only the last
+     *         block may hold fewer
+     */
+    public int getBlockGames() {
+        return blockGames;
+    }
+
+    /**
+     * @return offset just past the last complete game
+     */
+    long getDataEnd() {
+        return dataEnd;
+    }
+
+    /**
+     * @return offsets of the first game of every block; must not be modified
+     */
+    long[] getBlockOffsets() {
+        return blockOffsets;
+    }
+
+    /**
+     * Creates a cursor positioned before the first game. Each cursor has
+     * its own position, so threads can iterate the archive concurrently
+     * with one cursor each.
+     *
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Replays a game on a new board.
+     *
+     * @param gameId the game number
+     * @return a controller holding the final position of the game
+     */
+    public GameController replay(int gameId) {
+        Cursor cursor = cursor();
+        cursor.seek(gameId);
+        return cursor.replay();
+    }
+
+    /**
+     * Reusable view of one game of the archive at a time. Moving the cursor
+     * reads only the header of the next game; nothing is allocated.
+     */
+    public final class Cursor {
+
+        /** Private view of the mapping, so cursors do not share state. */
+        private final ByteBuffer view = buffer.duplicate();
+
+        private int gameId = -1;
+        private int offset = -1;
+        private int moveCount;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next game.
+         *
+         * @return false if there are no more games
+         */
+        public boolean next() {
+
+            if (gameId + 1 >= games) {
+                return false;
+            }
+
+            offset = gameId < 0 ? HEADER_BYTES : offset + GAME_HEADER_BYTES + moveCount;
+            gameId++;
+            moveCount = view.getShort(offset) & 0xFFFF;
+            return true;
+        }
+
+        /**
+         * Moves to a game using the block index, so only the games before
+         * it in its block are skipped.
+         *
+         * @param id the game number
+         */
+        public void seek(int id) {
+
+            if (id < 0 || id >= games) {
+                throw new IllegalArgumentException("Game out of range: " + id);
+            }
+
+            int block = id / blockGames;
+            int position = (int) blockOffsets[block];
+
+            for (int skip = id - block * blockGames; skip > 0; skip--) {
+                position += GAME_HEADER_BYTES + (view.getShort(position) & 0xFFFF);
+            }
+
+            gameId = id;
+            offset = position;
+            moveCount = view.getShort(offset) & 0xFFFF;
+        }
+
+        private void checkPositioned() {
+            if (offset < 0) {
+                throw new IllegalStateException("Cursor is not on a game");
+            }
+        }
+
+        /**
+         * @return the number of the current game
+         */
+        public int getGameId() {
+            return gameId;
+        }
+
+        /**
+         * @return the number of moves of the current game, passes excluded
+         */
+        public int getMoveCount() {
+            checkPositioned();
+            return moveCount;
+        }
+
+        /**
+         * @return the final number of black discs
+         */
+        public int getBlackDiscs() {
+            checkPositioned();
+            return view.getShort(offset + 2);
+        }
+
+        /**
+         * @return the final number of white discs
+         */
+        public int getWhiteDiscs() {
+            checkPositioned();
+            return view.getShort(offset + 4);
+        }
+
+        /**
+         * @return the tag given to the game by its writer
+         */
+        public int getTag() {
+            checkPositioned();
+            return view.getShort(offset + 6) & 0xFFFF;
+        }
+
+        /**
+         * @param ply the move number, from 0
+         * @return the row-major square of that move
+         */
+        public int getMove(int ply) {
+
+            checkPositioned();
+
+            if (ply < 0 || ply >= moveCount) {
+                throw new IllegalArgumentException("Ply out of range: " + ply);
+            }
+
+            return view.get(offset + GAME_HEADER_BYTES + ply) & 0xFF;
+        }
+
+        /**
+         * Copies the moves of the current game.
+         *
+         * @param target array receiving the squares; must hold every move
+         * @return the number of moves copied
+         */
+        public int copyMoves(int[] target) {
+
+            checkPositioned();
+
+            for (int ply = 0; ply < moveCount; ply++) {
+                target[ply] = view.get(offset + GAME_HEADER_BYTES + ply) & 0xFF;
+            }
+
+            return moveCount;
+        }
+
+        /**
+         * Replays the current game on a new board.
+         *
+         * @return a controller holding the final position of the game
+         */
+        public GameController replay() {
+            GameController controller = new GameController(new Board(boardSize));
+            replayInto(controller, moveCount);
+            return controller;
+        }
+
+        /**
+         * Feeds the first moves of the current game to a controller through
+         * {@link GameController#playMove}. Passes are handled by the
+         * controller, so the controller should hold the position the game
+         * started from.
+         *
+         * @param controller the controller to play the moves on
+         * @param plies number of moves to play
+         */
+        public void replayInto(GameController controller, int plies) {
+
+            checkPositioned();
+
+            if (controller.getBoard().getSize() != boardSize) {
+                throw new IllegalArgumentException("Archive holds " + boardSize + "x" + boardSize
+                        + " games, board is " + controller.getBoard().getSize());
+            }
+
+            Board board = controller.getBoard();
+
+            for (int ply = 0; ply < plies; ply++) {
+                int square = getMove(ply);
+
+                if (!controller.playMove(board.getNode(square))) {
+                    throw new IllegalStateException("Illegal move " + square + " at ply " + (ply + 1)
+                            + " of game " + gameId);
+                }
+            }
+        }
+    }
+}
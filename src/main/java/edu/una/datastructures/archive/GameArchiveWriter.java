@@ -0,0 +1,210 @@
+package edu.una.datastructures.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Appends games to a {@link GameArchive} file as they are produced.
+ * <p>
+ * Games are streamed to the file through a buffer and only the offset of
+ * the first game of every block is kept in memory, so a writer can record
+ * any number of games. The block index and the trailer are written by
+ * {@link #close()}; an archive whose writer was not closed can still be
+ * read, since the reader then rebuilds the index. Adding games is
+ * synchronized, so worker threads can share one writer; games are numbered
+ * in the order they are added.
+ */
+public final class GameArchiveWriter implements Closeable {
+
+    /** Number of games per block of the index. */
+    static final int BLOCK_GAMES = 256;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final int squares;
+
+    /** Offset of the first game of every block. */
+    private long[] blockOffsets;
+
+    /** Offset where the next game is written. */
+    private long position;
+
+    private int games;
+    private boolean closed;
+
+    private GameArchiveWriter(FileChannel channel, int boardSize, long position,
+                              long[] blockOffsets, int games) {
+
+        this.channel = channel;
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES));
+        this.squares = boardSize * boardSize;
+        this.position = position;
+        this.blockOffsets = blockOffsets;
+        this.games = games;
+    }
+
+    /**
+     * Creates an empty archive, replacing the file if it exists.
+     *
+     * @param file the archive file
+     * @param boardSize number of rows and columns of the games, up to 16
+     * @return a writer positioned after the header
+     * @throws IOException if the file cannot be written
+     */
+    public static GameArchiveWriter create(Path file, int boardSize) throws IOException {
+
+        GameArchive.checkBoardSize(boardSize);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        GameArchiveWriter writer = new GameArchiveWriter(channel, boardSize,
+                GameArchive.HEADER_BYTES, new long[16], 0);
+
+        writer.out.writeInt(GameArchive.MAGIC);
+        writer.out.writeInt(GameArchive.VERSION);
+        writer.out.writeInt(boardSize);
+        writer.out.writeInt(0);
+
+        return writer;
+    }
+
+    /**
+     * Opens an existing archive to add more games after its last complete
+     * game. The index and trailer are dropped until the writer is closed.
+     *
+     * @param file the archive file
+     * @return a writer positioned after the last game
+     * @throws IOException if the file cannot be read or written
+     */
+    public static GameArchiveWriter append(Path file) throws IOException {
+
+        GameArchive archive = GameArchive.open(file);
+        long[] offsets = archive.getBlockOffsets();
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+
+        // Cut the old index first, so a crash cannot leave a stale trailer.
+        channel.truncate(archive.getDataEnd());
+        channel.position(archive.getDataEnd());
+
+        return new GameArchiveWriter(channel, archive.getBoardSize(), archive.getDataEnd(),
+                Arrays.copyOf(offsets, Math.max(16, offsets.length)), archive.size());
+    }
+
+    /**
+     * Appends a finished game.
+     *
+     * @param moves squares played, in order, passes excluded
+     * @param count number of entries of {@code moves} to use
+     * @param blackDiscs final number of black discs
+     * @param whiteDiscs final number of white discs
+     * @param tag free value from 0 to 65535 stored with the game, e.g. the
+     *            policy or the run that produced it
+     * @return the number given to the game
+     * @throws IOException if the game cannot be written
+     */
+    public synchronized int add(int[] moves, int count, int blackDiscs, int whiteDiscs, int tag)
+            throws IOException {
+
+        if (closed) {
+            throw new IllegalStateException("Game archive writer is closed");
+        }
+
+        if (count < 0 || count > squares - 4) {
+            throw new IllegalArgumentException("Invalid number of moves: " + count);
+        }
+
+        if (blackDiscs < 0 || whiteDiscs < 0 || blackDiscs + whiteDiscs != count + 4) {
+            throw new IllegalArgumentException("Disc counts " + blackDiscs + "-" + whiteDiscs
+                    + " do not match " + count + " moves");
+        }
+
+        if (tag < 0 || tag > 0xFFFF) {
+            throw new IllegalArgumentException("Tag out of range: " + tag);
+        }
+
+        for (int ply = 0; ply < count; ply++) {
+            if (moves[ply] < 0 || moves[ply] >= squares) {
+                throw new IllegalArgumentException("Invalid square " + moves[ply] + " at ply " + (ply + 1));
+            }
+        }
+
+        if (games % BLOCK_GAMES == 0) {
+            int block = games / BLOCK_GAMES;
+            if (block == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+            }
+            blockOffsets[block] = position;
+        }
+
+        out.writeShort(count);
+        out.writeShort(blackDiscs);
+        out.writeShort(whiteDiscs);
+        out.writeShort(tag);
+
+        for (int ply = 0; ply < count; ply++) {
+            out.writeByte(moves[ply]);
+        }
+
+        position += GameArchive.GAME_HEADER_BYTES + count;
+        return games++;
+    }
+
+    /**
+     * @return the number of games in the archive, including earlier ones
+     *         when appending
+     */
+    public synchronized int size() {
+        return games;
+    }
+
+    /**
+     * Writes buffered games to the file. They are readable afterwards, even
+     * before the writer is closed.
+     *
+     * @throws IOException if the games cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Writes the block index and the trailer, then closes the file.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            int blocks = (games + BLOCK_GAMES - 1) / BLOCK_GAMES;
+
+            for (int block = 0; block < blocks; block++) {
+                out.writeLong(blockOffsets[block]);
+            }
+
+            out.writeLong(position);
+            out.writeInt(games);
+            out.writeInt(BLOCK_GAMES);
+            out.writeInt(blocks);
+            out.writeInt(GameArchive.TRAILER_MAGIC);
+            out.flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
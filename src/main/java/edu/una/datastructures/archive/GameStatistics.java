@@ -0,0 +1,186 @@
+package edu.una.datastructures.archive;
+
+import edu.una.datastructures.model.BitBoard;
+
+/**
+ * Results of a series of 8x8 games: wins per color and the histograms of
+ * game length and final disc differential.
+ * <p>
+ * An instance is filled by a single thread; threads that play or replay
+ * games in parallel each keep their own and {@link #merge} them at the end.
+ */
+public final class GameStatistics {
+
+    /** Longest possible game, in moves. */
+    public static final int MAX_MOVES = BitBoard.SQUARES - 4;
+
+    private long blackWins;
+    private long whiteWins;
+    private long draws;
+    private long differentialSum;
+
+    /** Number of games per length in moves. */
+    private final long[] lengths = new long[MAX_MOVES + 1];
+
+    /** Number of games per final differential (black - white), offset by 64. */
+    private final long[] differentials = new long[2 * BitBoard.SQUARES + 1];
+
+    /**
+     * Records a finished game.
+     *
+     * @param moves number of moves played, passes excluded
+     * @param differential final disc differential, black minus white
+     */
+    public void record(int moves, int differential) {
+
+        if (differential > 0) {
+            blackWins++;
+        } else if (differential < 0) {
+            whiteWins++;
+        } else {
+            draws++;
+        }
+
+        differentialSum += differential;
+        lengths[moves]++;
+        differentials[differential + BitBoard.SQUARES]++;
+    }
+
+    /**
+     * Adds the results of another series.
+     *
+     * @param other the statistics to add
+     */
+    public void merge(GameStatistics other) {
+
+        blackWins += other.blackWins;
+        whiteWins += other.whiteWins;
+        draws += other.draws;
+        differentialSum += other.differentialSum;
+
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] += other.lengths[i];
+        }
+
+        for (int i = 0; i < differentials.length; i++) {
+            differentials[i] += other.differentials[i];
+        }
+    }
+
+    /**
+     * @return the number of games recorded
+     */
+    public long getGames() {
+        return blackWins + whiteWins + draws;
+    }
+
+    public long getBlackWins() {
+        return blackWins;
+    }
+
+    public long getWhiteWins() {
+        return whiteWins;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    /**
+     * @return the mean final disc differential, black minus white, or 0
+     *         before any game
+     */
+    public double getMeanDifferential() {
+        long games = getGames();
+        return games == 0 ? 0 : (double) differentialSum / games;
+    }
+
+    /**
+     * @param differential final disc differential, black minus white
+     * @return the number of games that ended with it
+     */
+    public long getDifferentialCount(int differential) {
+        return differentials[differential + BitBoard.SQUARES];
+    }
+
+    /**
+     * @param moves number of moves, passes excluded
+     * @return the number of games of that length
+     */
+    public long getLengthCount(int moves) {
+        return lengths[moves];
+    }
+
+    /**
+     * Prints the win rates and the length and differential distributions.
+     * Nothing is printed before any game.
+     */
+    public void print() {
+
+        long games = getGames();
+
+        if (games == 0) {
+            return;
+        }
+
+        System.out.printf("Black wins: %.2f%%  White wins: %.2f%%  Draws: %.2f%%%n",
+                100.0 * blackWins / games, 100.0 * whiteWins / games, 100.0 * draws / games);
+
+        System.out.printf("Game length: min %d  p10 %d  median %d  p90 %d  max %d  mean %.2f%n",
+                percentile(lengths, games, 0.0), percentile(lengths, games, 0.1),
+                percentile(lengths, games, 0.5), percentile(lengths, games, 0.9),
+                percentile(lengths, games, 1.0), mean(lengths, games));
+
+        System.out.println("Length distribution (moves: games):");
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] > 0) {
+                System.out.printf("  %2d: %,d%n", i, lengths[i]);
+            }
+        }
+
+        System.out.printf("Disc differential (black - white): mean %+.2f%n", getMeanDifferential());
+        System.out.println("Differential distribution (range: games):");
+        for (int low = -BitBoard.SQUARES; low <= BitBoard.SQUARES; low += 8) {
+            long count = 0;
+            for (int d = low; d < low + 8 && d <= BitBoard.SQUARES; d++) {
+                count += getDifferentialCount(d);
+            }
+            if (count > 0) {
+                System.out.printf("  %+3d..%+3d: %,d%n", low, Math.min(low + 7, BitBoard.SQUARES), count);
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest bucket index at which the cumulative count
+     * reaches the given fraction of all games.
+     */
+    private static int percentile(long[] histogram, long total, double fraction) {
+
+        long target = Math.max(1, (long) Math.ceil(total * fraction));
+        long cumulative = 0;
+
+        for (int i = 0; i < histogram.length; i++) {
+            cumulative += histogram[i];
+            if (cumulative >= target) {
+                return i;
+            }
+        }
+
+        return histogram.length - 1;
+    }
+
+    /**
+     * Returns the mean bucket index of a histogram.
+     */
+    private static double mean(long[] histogram, long total) {
+
+        double sum = 0;
+
+        for (int i = 0; i < histogram.length; i++) {
+            sum += (double) i * histogram[i];
+        }
+
+        return sum / total;
+    }
+}
@@ -0,0 +1,217 @@
+package edu.una.datastructures.archive;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-capacity table of game results per key, shared by the threads of
+ * an {@link ArchiveAnalyzer}.
+ * <p>
+ * Keys are placed by open addressing with a short linear probe and claimed
+ * with a compare-and-set, and the counters are atomic, so threads update
+ * the table without locks. The arrays are allocated once: when the probe
+ * finds no slot for a new key its result is counted as dropped instead of
+ * growing the table, which keeps memory bounded whatever the input size.
+ * Key 0 marks an empty slot and is never stored.
+ */
+final class ResultTable {
+
+    /** Slots visited before a new key is dropped. */
+    private static final int PROBES = 16;
+
+    /** Largest capacity whose slot count still fits an int. */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private final AtomicLongArray keys;
+    private final AtomicIntegerArray games;
+    private final AtomicIntegerArray blackWins;
+    private final AtomicIntegerArray draws;
+    private final int mask;
+
+    /** Shift taking the top bits of a mixed key as its home slot. */
+    private final int shift;
+
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    /**
+     * Creates a table.
+     *
+     * @param capacity number of slots, from 1 to {@link #MAX_CAPACITY},
+     *                 rounded up to a power of two
+     */
+    ResultTable(int capacity) {
+
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Table capacity must be between 1 and "
+                    + MAX_CAPACITY + ": " + capacity);
+        }
+
+        int slots = Integer.highestOneBit(Math.max(PROBES, capacity - 1) << 1);
+
+        this.keys = new AtomicLongArray(slots);
+        this.games = new AtomicIntegerArray(slots);
+        this.blackWins = new AtomicIntegerArray(slots);
+        this.draws = new AtomicIntegerArray(slots);
+        this.mask = slots - 1;
+        this.shift = Long.SIZE - Integer.numberOfTrailingZeros(slots);
+    }
+
+    /**
+     * @return the first slot probed for a key
+     */
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * Adds one game result to a key.
+     *
+     * @param key a non-zero key
+     * @param differential final disc differential, black minus white
+     */
+    void add(long key, int differential) {
+
+        int start = home(key);
+
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = (start + probe) & mask;
+            long current = keys.get(slot);
+
+            if (current == 0 && keys.compareAndSet(slot, 0, key)) {
+                current = key;
+            } else if (current == 0) {
+                current = keys.get(slot);
+            }
+
+            if (current == key) {
+                games.incrementAndGet(slot);
+                if (differential > 0) {
+                    blackWins.incrementAndGet(slot);
+                } else if (differential == 0) {
+                    draws.incrementAndGet(slot);
+                }
+                return;
+            }
+        }
+
+        dropped.incrementAndGet();
+    }
+
+    /**
+     * @return the number of slots
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @param slot slot index
+     * @return the key stored in the slot, or 0 if it is empty
+     */
+    long keyAt(int slot) {
+        return keys.get(slot);
+    }
+
+    int gamesAt(int slot) {
+        return games.get(slot);
+    }
+
+    int blackWinsAt(int slot) {
+        return blackWins.get(slot);
+    }
+
+    int drawsAt(int slot) {
+        return draws.get(slot);
+    }
+
+    /**
+     * Finds the slot of a key.
+     *
+     * @param key a non-zero key
+     * @return the slot index, or -1 if the key is not stored
+     */
+    int find(long key) {
+
+        int start = home(key);
+
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = (start + probe) & mask;
+            long current = keys.get(slot);
+
+            if (current == key) {
+                return slot;
+            }
+            if (current == 0) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the number of keys stored
+     */
+    int size() {
+
+        int count = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (keys.get(slot) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of results that found no free slot
+     */
+    int getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Finds the most played keys.
+     *
+     * @param limit maximum number of slots returned
+     * @return slot indices ordered by decreasing number of games
+     */
+    int[] top(int limit) {
+
+        if (limit < 1) {
+            return new int[0];
+        }
+
+        int[] best = new int[limit];
+        int count = 0;
+
+        for (int slot = 0; slot <= mask; slot++) {
+            if (keys.get(slot) == 0) {
+                continue;
+            }
+
+            int played = games.get(slot);
+            int position;
+
+            if (count < limit) {
+                position = count++;
+            } else if (games.get(best[limit - 1]) < played) {
+                position = limit - 1;
+            } else {
+                continue;
+            }
+
+            // Insertion into the sorted prefix; the last entry falls off.
+            while (position > 0 && games.get(best[position - 1]) < played) {
+                best[position] = best[position - 1];
+                position--;
+            }
+
+            best[position] = slot;
+        }
+
+        return Arrays.copyOf(best, count);
+    }
+}
@@ -0,0 +1,51 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.logic.BotPlayer;
+
+/**
+ * A bot that searches for its moves and can be watched and stopped from
+ * another thread, such as a user interface running the search in the
+ * background.
+ */
+public interface BotEngine extends BotPlayer, AutoCloseable {
+
+    /**
+     * Stops the running search, which then returns the best move found so
+     * far. May be called from any thread.
+     */
+    void cancel();
+
+    /**
+     * Readies the engine for its next search, from the thread that may
+     * cancel it. A {@link #cancel()} made after this call stops that search
+     * even if it arrives before the search has started; a search that was
+     * not prepared forgets the cancels made before it started.
+     */
+    void prepareSearch();
+
+    /**
+     * Sets the listener told about the progress of every search.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    void setSearchListener(SearchListener listener);
+
+    /**
+     * Starts searching on the opponent's time, if the engine can. Does
+     * nothing by default.
+     *
+     * @param player pieces of the bot's opponent, who is to move
+     * @param opponent pieces of the bot
+     * @throws InterruptedException if interrupted while stopping an earlier
+     *                              search
+     */
+    default void ponder(long player, long opponent) throws InterruptedException {
+    }
+
+    /**
+     * Stops the running search and releases the engine threads. The engine
+     * must not start new searches afterwards.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,729 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.model.BitBoard;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exact endgame solver returning the final disc differential under perfect
+ * play.
+ * <p>
+ * The solver works directly on the two masks of a position and uses the
+ * usual endgame techniques:
+ * <ul>
+ *   <li>fastest-first ordering, trying first the moves that leave the
+ *       opponent the fewest replies, while many squares are empty</li>
+ *   <li>parity ordering near the end, trying first the squares of board
+ *       quadrants holding an odd number of empties</li>
+ *   <li>dedicated routines for the last four to one empty squares, which
+ *       neither generate move lists nor probe the table</li>
+ *   <li>its own small transposition table, separate from the midgame one</li>
+ * </ul>
+ * Scores are plain disc differentials from the point of view of the player
+ * to move; empty squares left when neither side can move are not counted.
+ */
+public final class EndgameSolver {
+
+    /** Score bound larger than any disc differential. */
+    private static final int INFINITY = 100;
+
+    /** Positions with fewer empties are not stored in the table. */
+    private static final int TABLE_MIN_EMPTIES = 8;
+
+    /** Positions with fewer empties use parity instead of fastest-first. */
+    private static final int FASTEST_FIRST_MIN_EMPTIES = 7;
+
+    /** Number of nodes between two checks of the limits. */
+    private static final int CHECK_INTERVAL = 4096;
+
+    /** Quadrant index of every square. */
+    private static final int[] QUADRANT = new int[BitBoard.SQUARES];
+
+    /** Masks of the four quadrants. */
+    private static final long[] QUADRANT_MASKS = {
+        0x000000000F0F0F0FL, 0x00000000F0F0F0F0L,
+        0x0F0F0F0F00000000L, 0xF0F0F0F000000000L
+    };
+
+    /** Rows, columns and diagonals of the board, used to find full lines. */
+    private static final long[][] LINES = new long[4][];
+
+    /** Edge squares. */
+    private static final long BORDER = 0xFF818181818181FFL;
+
+    /** Squares not in the first column. */
+    private static final long NOT_FIRST_COLUMN = 0xFEFEFEFEFEFEFEFEL;
+
+    /** Squares not in the last column. */
+    private static final long NOT_LAST_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+
+    /** Neighbors of every square; a move needs an opponent piece among them. */
+    private static final long[] NEIGHBORS = new long[BitBoard.SQUARES];
+
+    /** Static square priorities used to break ordering ties. */
+    private static final long[] PRIORITY_GROUPS = {
+        SearchEngine.CORNERS,
+        SearchEngine.EDGES,
+        ~(SearchEngine.CORNERS | SearchEngine.EDGES | SearchEngine.C_SQUARES | SearchEngine.X_SQUARES),
+        SearchEngine.C_SQUARES,
+        SearchEngine.X_SQUARES
+    };
+
+    static {
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            QUADRANT[square] = (square / 32) * 2 + (square % 8) / 4;
+            NEIGHBORS[square] = BitBoard.neighbors(1L << square);
+        }
+
+        LINES[0] = new long[BitBoard.SIZE];
+        LINES[1] = new long[BitBoard.SIZE];
+        LINES[2] = new long[2 * BitBoard.SIZE - 1];
+        LINES[3] = new long[2 * BitBoard.SIZE - 1];
+
+        for (int row = 0; row < BitBoard.SIZE; row++) {
+            for (int col = 0; col < BitBoard.SIZE; col++) {
+                long bit = 1L << BitBoard.square(row, col);
+                LINES[0][row] |= bit;
+                LINES[1][col] |= bit;
+                LINES[2][row - col + BitBoard.SIZE - 1] |= bit;
+                LINES[3][row + col] |= bit;
+            }
+        }
+    }
+
+    /** Dedicated table of solved positions. */
+    private final TranspositionTable table;
+
+    /** Move lists per number of empties, reused across the search. */
+    private final int[][] moveLists = new int[BitBoard.SQUARES + 1][BitBoard.SQUARES];
+
+    /** Ordering keys matching {@link #moveLists}. */
+    private final int[][] moveKeys = new int[BitBoard.SQUARES + 1][BitBoard.SQUARES];
+
+    private long nodes;
+    private long nextCheck;
+    private long deadline = Long.MAX_VALUE;
+    private long nodeLimit;
+    private AtomicBoolean stopSignal;
+    private boolean aborted;
+
+    /**
+     * Creates a solver with its own transposition table.
+     *
+     * @param hashMegabytes memory budget of the table in MB
+     */
+    public EndgameSolver(int hashMegabytes) {
+        this.table = new TranspositionTable(hashMegabytes);
+    }
+
+    /**
+     * Sets the limits applied to the following calls of {@link #solve}.
+     *
+     * @param deadline system time at which to give up, in nanoseconds
+     * @param nodeLimit node budget, or 0 for no limit
+     * @param stopSignal shared flag that stops the solver, or null
+     */
+    void setLimits(long deadline, long nodeLimit, AtomicBoolean stopSignal) {
+        this.deadline = deadline;
+        this.nodeLimit = nodeLimit;
+        this.stopSignal = stopSignal;
+    }
+
+    /**
+     * @return the nodes visited by the last call of {@link #solve}, whether
+     *         it finished or not
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the transposition table of the solver
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Solves a position exactly.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opponent
+     * @return the best move with the exact disc differential as score, or
+     *         null if a limit was reached first
+     */
+    public SearchResult solve(long player, long opponent) {
+
+        long start = System.nanoTime();
+        nodes = 0;
+        nextCheck = nodeLimit > 0 ? Math.min(nodeLimit, CHECK_INTERVAL) : CHECK_INTERVAL;
+        aborted = false;
+        table.newSearch();
+
+        long moves = BitBoard.legalMoves(player, opponent);
+        int empties = Long.bitCount(~(player | opponent));
+
+        if (moves == 0) {
+            int score = BitBoard.legalMoves(opponent, player) == 0
+                    ? finalScore(player, opponent)
+                    : -search(opponent, player, -INFINITY, INFINITY);
+            return aborted ? null
+                    : new SearchResult(SearchBoard.PASS, score, empties, nodes, System.nanoTime() - start);
+        }
+
+        int[] list = moveLists[BitBoard.SQUARES];
+        int count = orderMoves(player, opponent, moves, list, moveKeys[BitBoard.SQUARES], empties, SearchBoard.PASS);
+
+        int alpha = -INFINITY;
+        int bestMove = list[0];
+
+        for (int i = 0; i < count && !aborted; i++) {
+            int square = list[i];
+            long flipped = BitBoard.flips(player, opponent, square);
+            long nextPlayer = opponent & ~flipped;
+            long nextOpponent = player | flipped | (1L << square);
+
+            int score;
+            if (i == 0) {
+                score = -search(nextPlayer, nextOpponent, -INFINITY, INFINITY);
+            } else {
+                score = -search(nextPlayer, nextOpponent, -alpha - 1, -alpha);
+                if (score > alpha && !aborted) {
+                    score = -search(nextPlayer, nextOpponent, -INFINITY, -alpha);
+                }
+            }
+
+            if (score > alpha && !aborted) {
+                alpha = score;
+                bestMove = square;
+            }
+        }
+
+        if (aborted) {
+            return null;
+        }
+
+        return new SearchResult(bestMove, alpha, empties, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Principal variation search for positions with more than four empties.
+     */
+    private int search(long player, long opponent, int alpha, int beta) {
+
+        long empty = ~(player | opponent);
+        int empties = Long.bitCount(empty);
+
+        if (empties <= 4) {
+            return solveSmall(player, opponent, alpha, beta, empty, empties);
+        }
+
+        // The last-empties routines count nodes too, so compare instead of masking.
+        if (++nodes >= nextCheck) {
+            nextCheck = nodes + CHECK_INTERVAL;
+            checkLimits();
+        }
+
+        if (aborted) {
+            return 0;
+        }
+
+        long moves = BitBoard.legalMoves(player, opponent);
+
+        if (moves == 0) {
+            if (BitBoard.legalMoves(opponent, player) == 0) {
+                return finalScore(player, opponent);
+            }
+            return -search(opponent, player, -beta, -alpha);
+        }
+
+        // Stable opponent pieces bound the best reachable score.
+        if (64 - 2 * Long.bitCount(opponent) <= alpha) {
+            int bound = 64 - 2 * Long.bitCount(stablePieces(opponent, player | opponent));
+            if (bound <= alpha) {
+                return bound;
+            }
+        }
+
+        long hash = 0;
+        int hashMove = SearchBoard.PASS;
+
+        if (empties >= TABLE_MIN_EMPTIES) {
+            hash = hash(player, opponent);
+            long entry = table.probe(hash);
+
+            if (entry != TranspositionTable.MISS) {
+                int stored = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                hashMove = TranspositionTable.move(entry);
+
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && stored >= beta)
+                        || (bound == TranspositionTable.UPPER && stored <= alpha)) {
+                    return stored;
+                }
+                if (bound == TranspositionTable.LOWER && stored > alpha) {
+                    alpha = stored;
+                } else if (bound == TranspositionTable.UPPER && stored < beta) {
+                    beta = stored;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int[] list = moveLists[empties];
+        int count = orderMoves(player, opponent, moves, list, moveKeys[empties], empties, hashMove);
+        int best = -INFINITY;
+        int bestMove = list[0];
+
+        for (int i = 0; i < count; i++) {
+            int square = list[i];
+            long flipped = BitBoard.flips(player, opponent, square);
+            long nextPlayer = opponent & ~flipped;
+            long nextOpponent = player | flipped | (1L << square);
+
+            int score;
+            if (i == 0) {
+                score = -search(nextPlayer, nextOpponent, -beta, -alpha);
+            } else {
+                score = -search(nextPlayer, nextOpponent, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -search(nextPlayer, nextOpponent, -beta, -alpha);
+                }
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = square;
+
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (aborted) {
+            return 0;
+        }
+
+        if (empties >= TABLE_MIN_EMPTIES) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                      : best >= beta ? TranspositionTable.LOWER
+                      : TranspositionTable.EXACT;
+            table.store(hash, empties, bound, best, bestMove);
+        }
+
+        return best;
+    }
+
+    /**
+     * Orders the legal moves of a position.
+     *
+     * @return the number of moves written to the list
+     */
+    private int orderMoves(long player, long opponent, long moves, int[] list, int[] keys,
+                           int empties, int hashMove) {
+
+        int count = 0;
+
+        if (empties >= FASTEST_FIRST_MIN_EMPTIES) {
+            // Fastest first: fewest opponent replies, corners counting double.
+            for (long m = moves; m != 0; m &= m - 1) {
+                int square = Long.numberOfTrailingZeros(m);
+                long flipped = BitBoard.flips(player, opponent, square);
+                long mine = player | flipped | (1L << square);
+                long replies = BitBoard.legalMoves(opponent & ~flipped, mine);
+                long frontier = BitBoard.neighbors(mine) & ~(mine | opponent);
+
+                int key = (Long.bitCount(replies) + Long.bitCount(replies & SearchEngine.CORNERS)) * 64
+                        + Long.bitCount(frontier) * 2 + priority(square);
+                if (square == hashMove) {
+                    key = Integer.MIN_VALUE;
+                }
+                count = insert(list, keys, count, square, key);
+            }
+            return count;
+        }
+
+        // Parity: squares of quadrants with an odd number of empties first.
+        long empty = ~(player | opponent);
+        long odd = 0;
+        for (long quadrant : QUADRANT_MASKS) {
+            if ((Long.bitCount(empty & quadrant) & 1) != 0) {
+                odd |= quadrant;
+            }
+        }
+
+        for (long m = moves; m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            int key = ((odd & (1L << square)) != 0 ? 0 : 16) + priority(square);
+            if (square == hashMove) {
+                key = Integer.MIN_VALUE;
+            }
+            count = insert(list, keys, count, square, key);
+        }
+
+        return count;
+    }
+
+    /**
+     * Inserts a move into a list kept sorted by increasing key.
+     *
+     * @return the new size of the list
+     */
+    private static int insert(int[] list, int[] keys, int count, int square, int key) {
+
+        int i = count;
+        while (i > 0 && keys[i - 1] > key) {
+            list[i] = list[i - 1];
+            keys[i] = keys[i - 1];
+            i--;
+        }
+
+        list[i] = square;
+        keys[i] = key;
+        return count + 1;
+    }
+
+    /**
+     * @return the static ordering class of a square, lower being better
+     */
+    private static int priority(int square) {
+
+        long bit = 1L << square;
+
+        for (int i = 0; i < PRIORITY_GROUPS.length; i++) {
+            if ((PRIORITY_GROUPS[i] & bit) != 0) {
+                return i;
+            }
+        }
+
+        return PRIORITY_GROUPS.length;
+    }
+
+    /**
+     * Dispatches positions with four or fewer empties to the dedicated
+     * routines, after sorting the empties by parity.
+     */
+    private int solveSmall(long player, long opponent, int alpha, int beta, long empty, int empties) {
+
+        nodes++;
+
+        switch (empties) {
+            case 0:
+                return finalScore(player, opponent);
+            case 1:
+                return solve1(player, opponent, Long.numberOfTrailingZeros(empty));
+            case 2: {
+                int a = Long.numberOfTrailingZeros(empty);
+                int b = 63 - Long.numberOfLeadingZeros(empty);
+                return solve2(player, opponent, alpha, beta, a, b, false);
+            }
+            case 3: {
+                int a = Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+                int b = Long.numberOfTrailingZeros(empty);
+                int c = 63 - Long.numberOfLeadingZeros(empty);
+                // A square alone in its quadrant is played first.
+                if (QUADRANT[a] == QUADRANT[b]) {
+                    return solve3(player, opponent, alpha, beta, c, a, b, false);
+                }
+                if (QUADRANT[a] == QUADRANT[c]) {
+                    return solve3(player, opponent, alpha, beta, b, a, c, false);
+                }
+                return solve3(player, opponent, alpha, beta, a, b, c, false);
+            }
+            default: {
+                int a = Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+                int b = Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+                int c = Long.numberOfTrailingZeros(empty);
+                int d = 63 - Long.numberOfLeadingZeros(empty);
+                return solve4(player, opponent, alpha, beta, sortByParity(a, b, c, d), false);
+            }
+        }
+    }
+
+    /**
+     * Packs four squares into an int, odd-parity quadrants first.
+     */
+    private static int sortByParity(int a, int b, int c, int d) {
+
+        int[] squares = {a, b, c, d};
+        int packed = 0;
+        int shift = 0;
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int square : squares) {
+                int sameQuadrant = 0;
+                for (int other : squares) {
+                    if (QUADRANT[other] == QUADRANT[square]) {
+                        sameQuadrant++;
+                    }
+                }
+                boolean odd = (sameQuadrant & 1) != 0;
+                if (odd == (pass == 0)) {
+                    packed |= square << shift;
+                    shift += 8;
+                }
+            }
+        }
+
+        return packed;
+    }
+
+    /**
+     * Last four empties, given as four squares packed one per byte.
+     */
+    private int solve4(long player, long opponent, int alpha, int beta, int squares, boolean passed) {
+
+        int best = -INFINITY;
+
+        for (int i = 0; i < 4; i++) {
+            int square = (squares >>> (8 * i)) & 0xFF;
+
+            if ((opponent & NEIGHBORS[square]) == 0) {
+                continue;
+            }
+
+            long flipped = BitBoard.flips(player, opponent, square);
+            if (flipped == 0) {
+                continue;
+            }
+
+            int rest = removeSquare(squares, i);
+            int score = -solve3(opponent & ~flipped, player | flipped | (1L << square), -beta, -alpha,
+                                rest & 0xFF, (rest >>> 8) & 0xFF, (rest >>> 16) & 0xFF, false);
+            nodes++;
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        return best;
+                    }
+                }
+            }
+        }
+
+        if (best == -INFINITY) {
+            if (passed) {
+                return finalScore(player, opponent);
+            }
+            return -solve4(opponent, player, -beta, -alpha, squares, true);
+        }
+
+        return best;
+    }
+
+    /**
+     * Removes the square at the given byte index of a packed list of four.
+     *
+     * @return the three remaining squares, packed in order
+     */
+    private static int removeSquare(int squares, int index) {
+        int low = squares & ((1 << (8 * index)) - 1);
+        int high = (squares >>> (8 * (index + 1))) << (8 * index);
+        return low | high;
+    }
+
+    /**
+     * Last three empties.
+     */
+    private int solve3(long player, long opponent, int alpha, int beta, int a, int b, int c, boolean passed) {
+
+        int best = -INFINITY;
+
+        if ((opponent & NEIGHBORS[a]) != 0) {
+            long flipped = BitBoard.flips(player, opponent, a);
+            if (flipped != 0) {
+                nodes++;
+                best = -solve2(opponent & ~flipped, player | flipped | (1L << a), -beta, -alpha, b, c, false);
+                if (best >= beta) {
+                    return best;
+                }
+                if (best > alpha) {
+                    alpha = best;
+                }
+            }
+        }
+
+        if ((opponent & NEIGHBORS[b]) != 0) {
+            long flipped = BitBoard.flips(player, opponent, b);
+            if (flipped != 0) {
+                nodes++;
+                int score = -solve2(opponent & ~flipped, player | flipped | (1L << b), -beta, -alpha, a, c, false);
+                if (score > best) {
+                    best = score;
+                    if (best >= beta) {
+                        return best;
+                    }
+                    if (best > alpha) {
+                        alpha = best;
+                    }
+                }
+            }
+        }
+
+        if ((opponent & NEIGHBORS[c]) != 0) {
+            long flipped = BitBoard.flips(player, opponent, c);
+            if (flipped != 0) {
+                nodes++;
+                int score = -solve2(opponent & ~flipped, player | flipped | (1L << c), -beta, -alpha, a, b, false);
+                if (score > best) {
+                    best = score;
+                }
+            }
+        }
+
+        if (best == -INFINITY) {
+            if (passed) {
+                return finalScore(player, opponent);
+            }
+            return -solve3(opponent, player, -beta, -alpha, a, b, c, true);
+        }
+
+        return best;
+    }
+
+    /**
+     * Last two empties.
+     */
+    private int solve2(long player, long opponent, int alpha, int beta, int a, int b, boolean passed) {
+
+        int best = -INFINITY;
+
+        if ((opponent & NEIGHBORS[a]) != 0) {
+            long flipped = BitBoard.flips(player, opponent, a);
+            if (flipped != 0) {
+                nodes++;
+                best = -solve1(opponent & ~flipped, player | flipped | (1L << a), b);
+                if (best >= beta) {
+                    return best;
+                }
+            }
+        }
+
+        if ((opponent & NEIGHBORS[b]) != 0) {
+            long flipped = BitBoard.flips(player, opponent, b);
+            if (flipped != 0) {
+                nodes++;
+                int score = -solve1(opponent & ~flipped, player | flipped | (1L << b), a);
+                if (score > best) {
+                    best = score;
+                }
+            }
+        }
+
+        if (best == -INFINITY) {
+            if (passed) {
+                return finalScore(player, opponent);
+            }
+            return -solve2(opponent, player, -beta, -alpha, a, b, true);
+        }
+
+        return best;
+    }
+
+    /**
+     * Last empty square: the score follows directly from the flip counts.
+     */
+    private static int solve1(long player, long opponent, int square) {
+
+        int playerCount = Long.bitCount(player);
+        int opponentCount = 63 - playerCount;
+
+        long flipped = BitBoard.flips(player, opponent, square);
+        if (flipped != 0) {
+            int flips = Long.bitCount(flipped);
+            return (playerCount + flips + 1) - (opponentCount - flips);
+        }
+
+        flipped = BitBoard.flips(opponent, player, square);
+        if (flipped != 0) {
+            int flips = Long.bitCount(flipped);
+            return (playerCount - flips) - (opponentCount + flips + 1);
+        }
+
+        return playerCount - opponentCount;
+    }
+
+    /**
+     * Finds pieces that can never be flipped: along each of the four axes a
+     * stable piece lies on a full line, on the edge, or next to another
+     * stable piece of its color.
+     *
+     * @param pieces pieces of one player
+     * @param occupied every occupied square
+     * @return a subset of the stable pieces
+     */
+    static long stablePieces(long pieces, long occupied) {
+
+        long horizontal = fullLines(occupied, LINES[0]) | 0x8181818181818181L;
+        long vertical = fullLines(occupied, LINES[1]) | 0xFF000000000000FFL;
+        long diagonal = fullLines(occupied, LINES[2]) | BORDER;
+        long antiDiagonal = fullLines(occupied, LINES[3]) | BORDER;
+
+        long stable = pieces & horizontal & vertical & diagonal & antiDiagonal;
+        long previous;
+
+        do {
+            previous = stable;
+            long h = horizontal | ((stable << 1) & NOT_FIRST_COLUMN) | ((stable >>> 1) & NOT_LAST_COLUMN);
+            long v = vertical | (stable << 8) | (stable >>> 8);
+            long d = diagonal | ((stable << 9) & NOT_FIRST_COLUMN) | ((stable >>> 9) & NOT_LAST_COLUMN);
+            long a = antiDiagonal | ((stable << 7) & NOT_LAST_COLUMN) | ((stable >>> 7) & NOT_FIRST_COLUMN);
+            stable = pieces & h & v & d & a;
+        } while (stable != previous);
+
+        return stable;
+    }
+
+    /**
+     * @return the union of the given lines that are completely occupied
+     */
+    private static long fullLines(long occupied, long[] lines) {
+
+        long full = 0;
+
+        for (long line : lines) {
+            if ((occupied & line) == line) {
+                full |= line;
+            }
+        }
+
+        return full;
+    }
+
+    /**
+     * @return the disc differential of a finished game
+     */
+    private static int finalScore(long player, long opponent) {
+        return Long.bitCount(player) - Long.bitCount(opponent);
+    }
+
+    /**
+     * Hashes a position for the solver table. Positions are searched
+     * without a move stack, so the hash is computed from the masks.
+     */
+    private static long hash(long player, long opponent) {
+        long h = player * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(opponent * 0xC2B2AE3D27D4EB4FL, 31);
+        h = (h ^ (h >>> 29)) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Stops the solver once a limit is reached.
+     */
+    private void checkLimits() {
+        if ((nodeLimit > 0 && nodes >= nodeLimit)
+                || (stopSignal != null && stopSignal.get())
+                || System.nanoTime() >= deadline) {
+            aborted = true;
+        }
+    }
+}
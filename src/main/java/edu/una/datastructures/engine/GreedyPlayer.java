@@ -0,0 +1,32 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.logic.BotPlayer;
+import edu.una.datastructures.model.BitBoard;
+
+/**
+ * Bot that plays the legal move flipping the most pieces, preferring the
+ * lowest square on ties.
+ */
+public class GreedyPlayer implements BotPlayer {
+
+    @Override
+    public int selectMove(long player, long opponent) {
+
+        long moves = BitBoard.legalMoves(player, opponent);
+        int best = SearchBoard.PASS;
+        int bestFlips = 0;
+
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+
+            int flips = Long.bitCount(BitBoard.flips(player, opponent, square));
+            if (flips > bestFlips) {
+                bestFlips = flips;
+                best = square;
+            }
+        }
+
+        return best;
+    }
+}
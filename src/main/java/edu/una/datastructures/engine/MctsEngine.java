@@ -0,0 +1,632 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.metrics.EngineMetrics;
+import edu.una.datastructures.model.BitBoard;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monte Carlo Tree Search bot, an alternative to the minimax search of
+ * {@link SearchEngine}.
+ * <p>
+ * Every playout descends the {@link MctsTree} from the root choosing
+ * children by UCT (win rate plus an exploration bonus), expands the leaf it
+ * reaches on its second visit, plays the game out to the end and adds the
+ * result to every node on its path. Playouts use the bitboard rules and
+ * are either uniformly random or lightly guided: a corner is taken when one
+ * is available and X-squares are avoided while other moves exist. The move
+ * played is the root child with the most visits.
+ * <p>
+ * All threads share one tree. A playout counts its visit on every node as
+ * it descends and only adds the result at the end, so the nodes other
+ * threads are exploring look like losses for a moment (virtual loss) and
+ * concurrent playouts spread over different branches. The main thread runs
+ * on the caller; helpers run on a fixed pool.
+ * <p>
+ * The tree is kept between moves: when the next position is one or two
+ * plies below the previous root, that subtree becomes the new root and its
+ * statistics are reused. Playouts per second and the tree size of the last
+ * search are available from the getters and the metrics, and a listener is
+ * told about the best move so far every {@link #PROGRESS_INTERVAL_MILLIS}.
+ */
+public class MctsEngine implements BotEngine {
+
+    /** Weight of the exploration term of UCT, for win rates in [0, 1]. */
+    private static final double EXPLORATION = 0.7;
+
+    /** Visits after which a leaf is expanded. */
+    private static final int EXPAND_VISITS = 2;
+
+    /** Plies below the previous root searched for the new position. */
+    private static final int REUSE_PLIES = 2;
+
+    /** Number of playouts between two checks of the time limit. */
+    private static final int CHECK_INTERVAL = 64;
+
+    /** Time between two progress reports of a search. */
+    static final long PROGRESS_INTERVAL_MILLIS = 100;
+
+    /** Longest path of a playout through the tree, passes included. */
+    private static final int MAX_PATH = SearchBoard.MAX_PLY;
+
+    private final MctsTree tree;
+
+    /** Main worker, run on the calling thread, followed by the helpers. */
+    private final Worker[] workers;
+
+    /** Threads running the helpers, or null when single-threaded. */
+    private final ExecutorService pool;
+
+    /** Set when the running search must stop. */
+    private volatile boolean stop;
+
+    /** Set by {@link #close()}; later searches run no playouts. */
+    private volatile boolean closed;
+
+    /** Raised by {@link #cancel()} to stop the running search. */
+    private final AtomicBoolean cancelSignal = new AtomicBoolean();
+
+    /** Set by {@link #prepareSearch()}; the next search keeps the cancel signal. */
+    private volatile boolean prepared;
+
+    /** Playouts of the running search over every thread. */
+    private final AtomicLong playouts = new AtomicLong();
+
+    /** Time budget per move in milliseconds, or 0 for no limit. */
+    private long timeLimitMillis = 1000;
+
+    /** Playout budget per move, or 0 for no limit. */
+    private long playoutLimit;
+
+    /** True for guided playouts, false for uniformly random ones. */
+    private boolean guided = true;
+
+    /** System time at which the current search must stop. */
+    private long deadline;
+
+    /** Position of the root of the tree, from the point of view of its mover. */
+    private long rootPlayer;
+    private long rootOpponent;
+
+    private long lastPlayouts;
+    private long lastElapsedNanos;
+    private int reusedNodes;
+
+    /** Receives the playouts and search time, or null. */
+    private EngineMetrics metrics;
+
+    /** Told about the progress of every search, or null. */
+    private volatile SearchListener listener;
+
+    /**
+     * Creates an engine.
+     *
+     * @param threads number of playout threads, including the calling one
+     * @param treeMegabytes memory budget of the tree in MB
+     * @param seed seed of the playout generators; with one thread and a
+     *             playout limit, searches are reproducible
+     */
+    public MctsEngine(int threads, int treeMegabytes, long seed) {
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one playout thread is required");
+        }
+
+        this.tree = new MctsTree(treeMegabytes);
+        this.workers = new Worker[threads];
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(seeds.split(), i == 0);
+        }
+
+        this.pool = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the time budget for each move.
+     *
+     * @param timeLimitMillis milliseconds per move, or 0 for no limit
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Sets the playout budget for each move. With several threads the
+     * search may run a few playouts more.
+     *
+     * @param playoutLimit playouts per move, or 0 for no limit
+     */
+    public void setPlayoutLimit(long playoutLimit) {
+        this.playoutLimit = playoutLimit;
+    }
+
+    /**
+     * Chooses between guided and uniformly random playouts.
+     *
+     * @param guided true to take corners and avoid X-squares in playouts
+     */
+    public void setGuidedPlayouts(boolean guided) {
+        this.guided = guided;
+    }
+
+    /**
+     * Sets the metrics receiving the playouts and time of every search and
+     * registers the size of the tree as a gauge.
+     *
+     * @param metrics the metrics, or null to stop recording
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.getRegistry().gauge("mcts.treeNodes", this::getTreeSize);
+        }
+    }
+
+    /**
+     * Sets the listener told about the most visited move, its win rate and
+     * the playouts so far, every {@link #PROGRESS_INTERVAL_MILLIS} of a
+     * search.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Stops the running search, which then plays the most visited move so
+     * far. May be called from any thread.
+     */
+    @Override
+    public void cancel() {
+        cancelSignal.set(true);
+    }
+
+    @Override
+    public void prepareSearch() {
+        cancelSignal.set(false);
+        prepared = true;
+    }
+
+    /**
+     * @return the number of playout threads, including the calling one
+     */
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * @return the playouts of the last search
+     */
+    public long getPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * @return the playouts per second of the last search
+     */
+    public long getPlayoutsPerSecond() {
+        return lastElapsedNanos == 0 ? 0 : lastPlayouts * 1_000_000_000L / lastElapsedNanos;
+    }
+
+    /**
+     * @return the number of nodes in the tree
+     */
+    public int getTreeSize() {
+        return tree.getSize();
+    }
+
+    /**
+     * @return the maximum number of nodes allowed by the memory budget
+     */
+    public int getTreeCapacity() {
+        return tree.getCapacity();
+    }
+
+    /**
+     * @return the nodes kept from the previous search when the last search
+     *         started, or 0 if the tree was rebuilt
+     */
+    public int getReusedNodes() {
+        return reusedNodes;
+    }
+
+    @Override
+    public int selectMove(long player, long opponent) {
+        return search(player, opponent).getBestMove();
+    }
+
+    /**
+     * Searches the given position within the configured limits.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opposing player
+     * @return the most visited move, its win rate in thousandths as the
+     *         score, the deepest tree path as the depth and the playouts as
+     *         the nodes
+     */
+    public SearchResult search(long player, long opponent) {
+
+        long start = System.nanoTime();
+        if (!prepared) {
+            cancelSignal.set(false);
+        }
+        prepared = false;
+        reuseTree(player, opponent);
+
+        long legal = BitBoard.legalMoves(player, opponent);
+
+        if (legal == 0) {
+            return new SearchResult(SearchBoard.PASS, 0, 0, 0, System.nanoTime() - start);
+        }
+
+        stop = false;
+        playouts.set(0);
+        deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+
+        // Read after clearing the stop flag, so a close() made since the
+        // start of the search is either seen here or stops the workers.
+        if (closed) {
+            stop = true;
+        }
+
+        List<Future<?>> running = new ArrayList<>(workers.length - 1);
+        for (int i = 1; i < workers.length && !stop; i++) {
+            Worker helper = workers[i];
+            try {
+                running.add(pool.submit(() -> helper.run(player, opponent)));
+            } catch (RejectedExecutionException e) {
+                // Closed meanwhile: the helpers already started stop at once.
+                break;
+            }
+        }
+
+        workers[0].run(player, opponent);
+        stop = true;
+
+        int depth = workers[0].maxDepth;
+        for (int i = 0; i < running.size(); i++) {
+            try {
+                running.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Playout helper failed", e.getCause());
+            }
+            depth = Math.max(depth, workers[i + 1].maxDepth);
+        }
+
+        lastPlayouts = playouts.get();
+        lastElapsedNanos = System.nanoTime() - start;
+
+        if (metrics != null) {
+            metrics.recordPlayouts(lastPlayouts, lastElapsedNanos);
+        }
+
+        if (tree.getFirstChild(0) < 0) {
+            // Stopped before the root was expanded.
+            return new SearchResult(MoveOrderer.firstStatic(legal), 0, depth, lastPlayouts, lastElapsedNanos);
+        }
+
+        return result(depth, lastPlayouts, lastElapsedNanos);
+    }
+
+    /**
+     * Describes the most visited root child, whose win rate in thousandths
+     * is the score. The root must be expanded.
+     */
+    private SearchResult result(int depth, long nodes, long elapsedNanos) {
+
+        int best = mostVisitedChild();
+        int visits = tree.getVisits(best);
+        int score = visits == 0 ? 0 : (int) (tree.getScore(best) * 500L / visits);
+
+        return new SearchResult(tree.getMove(best), score, depth, nodes, elapsedNanos);
+    }
+
+    /**
+     * Makes the given position the root of the tree, keeping the subtree
+     * already grown below it when it is reachable from the previous root.
+     */
+    private void reuseTree(long player, long opponent) {
+
+        int node = findNode(0, rootPlayer, rootOpponent, player, opponent, REUSE_PLIES);
+
+        if (node >= 0) {
+            tree.reroot(node);
+            reusedNodes = tree.getSize();
+        } else {
+            tree.clear();
+            reusedNodes = 0;
+        }
+
+        rootPlayer = player;
+        rootOpponent = opponent;
+    }
+
+    /**
+     * Looks for a position among the expanded nodes below a node.
+     *
+     * @return the node holding the position, or -1
+     */
+    private int findNode(int node, long player, long opponent, long targetPlayer, long targetOpponent,
+                         int plies) {
+
+        if (player == targetPlayer && opponent == targetOpponent) {
+            return node;
+        }
+
+        int first = tree.getFirstChild(node);
+
+        if (plies == 0 || first < 0) {
+            return -1;
+        }
+
+        for (int child = first; child < first + tree.getChildCount(node); child++) {
+            int square = tree.getMove(child);
+            long flipped = square == SearchBoard.PASS ? 0 : BitBoard.flips(player, opponent, square);
+            long mine = square == SearchBoard.PASS ? player : player | flipped | (1L << square);
+
+            int found = findNode(child, opponent & ~flipped, mine, targetPlayer, targetOpponent, plies - 1);
+            if (found >= 0) {
+                return found;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the root child with the most visits
+     */
+    private int mostVisitedChild() {
+
+        int first = tree.getFirstChild(0);
+        int best = first;
+
+        for (int child = first + 1; child < first + tree.getChildCount(0); child++) {
+            if (tree.getVisits(child) > tree.getVisits(best)) {
+                best = child;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Stops the running search and the helper threads. Helpers still
+     * queued start and return at once, so a search running on another
+     * thread finishes normally; later searches run no playouts and return
+     * a move by square class.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        stop = true;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Playout loop of one thread, with its own generator and path buffer.
+     */
+    private final class Worker {
+
+        private final SplittableRandom random;
+
+        /** Nodes of the current playout, from the root down. */
+        private final int[] path = new int[MAX_PATH];
+
+        /** Deepest path of the last search. */
+        private int maxDepth;
+
+        /** True for the worker running on the caller, which reports progress. */
+        private final boolean main;
+
+        Worker(SplittableRandom random, boolean main) {
+            this.random = random;
+            this.main = main;
+        }
+
+        /**
+         * Runs playouts from the root until a limit is reached.
+         */
+        void run(long player, long opponent) {
+
+            maxDepth = 0;
+            long count = 0;
+            long start = System.nanoTime();
+            long nextReport = start + PROGRESS_INTERVAL_MILLIS * 1_000_000L;
+
+            while (!stop) {
+                playout(player, opponent);
+
+                long total = playouts.incrementAndGet();
+
+                if (playoutLimit > 0 && total >= playoutLimit) {
+                    stop = true;
+                } else if ((++count & (CHECK_INTERVAL - 1)) == 0) {
+                    long now = System.nanoTime();
+
+                    if (cancelSignal.get() || now >= deadline) {
+                        stop = true;
+                    } else if (main && now >= nextReport) {
+                        report(total, now - start);
+                        nextReport = now + PROGRESS_INTERVAL_MILLIS * 1_000_000L;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Tells the listener, if any, about the search so far. The tree is
+         * read while other threads update it, so the figures are approximate.
+         */
+        private void report(long total, long elapsedNanos) {
+
+            SearchListener current = listener;
+
+            if (current != null && tree.getFirstChild(0) >= 0) {
+                current.iterationCompleted(result(maxDepth, total, elapsedNanos));
+            }
+        }
+
+        /**
+         * Runs one playout: selection, expansion, simulation and update.
+         */
+        private void playout(long player, long opponent) {
+
+            int node = 0;
+            int length = 0;
+            path[length++] = 0;
+            tree.addVisit(0);
+
+            while (true) {
+                int first = tree.getFirstChild(node);
+
+                if (first < 0) {
+                    if (first == MctsTree.EXPANDING || length == MAX_PATH
+                            || (node != 0 && tree.getVisits(node) < EXPAND_VISITS)) {
+                        break;
+                    }
+
+                    long legal = BitBoard.legalMoves(player, opponent);
+
+                    if ((legal == 0 && BitBoard.legalMoves(opponent, player) == 0) || !tree.expand(node, legal)) {
+                        break;
+                    }
+
+                    first = tree.getFirstChild(node);
+                }
+
+                node = select(node, first, tree.getChildCount(node));
+                int square = tree.getMove(node);
+
+                if (square != SearchBoard.PASS) {
+                    long flipped = BitBoard.flips(player, opponent, square);
+                    player |= flipped | (1L << square);
+                    opponent &= ~flipped;
+                }
+
+                long swap = player;
+                player = opponent;
+                opponent = swap;
+
+                tree.addVisit(node);
+                path[length++] = node;
+            }
+
+            maxDepth = Math.max(maxDepth, length - 1);
+
+            // Points of the player who moved into the leaf, alternating upwards.
+            int points = 2 - simulate(player, opponent);
+
+            for (int i = length - 1; i >= 0; i--) {
+                tree.addScore(path[i], points);
+                points = 2 - points;
+            }
+        }
+
+        /**
+         * Chooses the child with the best UCT value; unvisited children
+         * come first.
+         */
+        private int select(int node, int first, int count) {
+
+            double logVisits = Math.log(Math.max(1, tree.getVisits(node)));
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (int child = first; child < first + count; child++) {
+                int visits = tree.getVisits(child);
+
+                if (visits == 0) {
+                    return child;
+                }
+
+                double value = tree.getScore(child) / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+
+            return best;
+        }
+
+        /**
+         * Plays a position out to the end of the game.
+         *
+         * @return 2 if the player to move wins, 1 for a draw, 0 for a loss
+         */
+        private int simulate(long player, long opponent) {
+
+            boolean swapped = false;
+            boolean passed = false;
+
+            while (true) {
+                long moves = BitBoard.legalMoves(player, opponent);
+
+                if (moves == 0) {
+                    if (passed) {
+                        break;
+                    }
+                    passed = true;
+                } else {
+                    passed = false;
+                    int square = pick(moves);
+                    long flipped = BitBoard.flips(player, opponent, square);
+                    player |= flipped | (1L << square);
+                    opponent &= ~flipped;
+                }
+
+                long swap = player;
+                player = opponent;
+                opponent = swap;
+                swapped = !swapped;
+            }
+
+            int diff = Long.bitCount(player) - Long.bitCount(opponent);
+            if (swapped) {
+                diff = -diff;
+            }
+
+            return diff > 0 ? 2 : diff < 0 ? 0 : 1;
+        }
+
+        /**
+         * Picks the move of a playout.
+         */
+        private int pick(long moves) {
+
+            if (guided) {
+                long corners = moves & SearchEngine.CORNERS;
+                long safe = moves & ~SearchEngine.X_SQUARES;
+                moves = corners != 0 ? corners : safe != 0 ? safe : moves;
+            }
+
+            for (int n = random.nextInt(Long.bitCount(moves)); n > 0; n--) {
+                moves &= moves - 1;
+            }
+
+            return Long.numberOfTrailingZeros(moves);
+        }
+    }
+}
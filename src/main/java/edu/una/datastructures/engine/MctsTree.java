@@ -0,0 +1,246 @@
+package edu.una.datastructures.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Search tree of {@link MctsEngine}, stored in primitive arrays indexed by
+ * node number.
+ * <p>
+ * Node 0 is the root. The children of a node are allocated together in one
+ * contiguous block when the node is expanded, so a node only records its
+ * first child and its number of children. Every node stores the move that
+ * leads to it, its visits and its score: two points per playout won and one
+ * per draw, for the player who made that move.
+ * <p>
+ * The number of nodes is fixed by a memory budget; once it is reached, the
+ * tree stops growing and playouts start from its leaves. Several threads
+ * may select, expand and update nodes at the same time: counters are
+ * atomic, and a node's children are written before its first child index
+ * is published. {@link #clear()} and {@link #reroot(int)} must run while no
+ * other thread uses the tree.
+ */
+final class MctsTree {
+
+    /** First child index of a node that has not been expanded. */
+    static final int UNEXPANDED = -1;
+
+    /** First child index of a node being expanded by another thread. */
+    static final int EXPANDING = -2;
+
+    /** Bytes used by one node over all arrays. */
+    static final int BYTES_PER_NODE = 22;
+
+    /** Move leading to each node, or {@link SearchBoard#PASS}. */
+    private final byte[] moves;
+
+    /** Number of children of each expanded node. */
+    private final byte[] childCounts;
+
+    /** Parent of each node, or -1 for the root. */
+    private final int[] parents;
+
+    /** First child of each node, or {@link #UNEXPANDED} / {@link #EXPANDING}. */
+    private final AtomicIntegerArray firstChildren;
+
+    /** Visits of each node, including the playouts still running through it. */
+    private final AtomicIntegerArray visits;
+
+    /** Score of each node for the player who made its move. */
+    private final AtomicIntegerArray scores;
+
+    /** New index of every node during {@link #reroot(int)}. */
+    private final int[] remap;
+
+    /** Number of allocated nodes; may run past the capacity once full. */
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int capacity;
+
+    /**
+     * Creates a tree using at most the given amount of memory.
+     *
+     * @param megabytes memory budget in MB, at least 1
+     */
+    MctsTree(int megabytes) {
+
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Tree size must be at least 1 MB");
+        }
+
+        this.capacity = (int) Math.min((long) megabytes * 1024 * 1024 / BYTES_PER_NODE, Integer.MAX_VALUE - 64);
+        this.moves = new byte[capacity];
+        this.childCounts = new byte[capacity];
+        this.parents = new int[capacity];
+        this.firstChildren = new AtomicIntegerArray(capacity);
+        this.visits = new AtomicIntegerArray(capacity);
+        this.scores = new AtomicIntegerArray(capacity);
+        this.remap = new int[capacity];
+        clear();
+    }
+
+    /**
+     * Removes every node but a new, unvisited root.
+     */
+    void clear() {
+        initialize(0, SearchBoard.PASS, -1);
+        size.set(1);
+    }
+
+    /**
+     * @return the number of nodes in the tree
+     */
+    int getSize() {
+        return Math.min(size.get(), capacity);
+    }
+
+    /**
+     * @return the maximum number of nodes
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getMove(int node) {
+        return moves[node];
+    }
+
+    int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    int getFirstChild(int node) {
+        return firstChildren.get(node);
+    }
+
+    int getVisits(int node) {
+        return visits.get(node);
+    }
+
+    int getScore(int node) {
+        return scores.get(node);
+    }
+
+    /**
+     * Counts a playout going through a node before its result is known, so
+     * other threads see the node as visited without a win: the virtual
+     * loss that spreads concurrent playouts over different branches.
+     */
+    void addVisit(int node) {
+        visits.getAndIncrement(node);
+    }
+
+    /**
+     * Adds the result of a playout that went through a node.
+     *
+     * @param node the node
+     * @param points 2 for a win, 1 for a draw, 0 for a loss of the player
+     *               who made the node's move
+     */
+    void addScore(int node, int points) {
+        if (points != 0) {
+            scores.getAndAdd(node, points);
+        }
+    }
+
+    /**
+     * Expands a node with one child per legal move, or a single pass child
+     * when there is none.
+     *
+     * @param node the node, which must not be terminal
+     * @param legal the legal moves of the player to move at the node
+     * @return true if the node was expanded by this call; false if another
+     *         thread is expanding it or the tree is full
+     */
+    boolean expand(int node, long legal) {
+
+        if (size.get() >= capacity || !firstChildren.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+            return false;
+        }
+
+        int count = legal == 0 ? 1 : Long.bitCount(legal);
+        int first = size.getAndAdd(count);
+
+        if (first + count > capacity) {
+            firstChildren.set(node, UNEXPANDED);
+            return false;
+        }
+
+        if (legal == 0) {
+            initialize(first, SearchBoard.PASS, node);
+        }
+
+        int child = first;
+        for (long m = legal; m != 0; m &= m - 1) {
+            initialize(child++, Long.numberOfTrailingZeros(m), node);
+        }
+
+        childCounts[node] = (byte) count;
+        firstChildren.set(node, first);
+        return true;
+    }
+
+    /**
+     * Keeps only the subtree of a node, which becomes the root. Nodes are
+     * moved down in index order, which keeps every block of children
+     * contiguous and never overwrites a node before it is moved.
+     *
+     * @param root the node becoming the root
+     */
+    void reroot(int root) {
+
+        if (root == 0) {
+            return;
+        }
+
+        int end = getSize();
+        Arrays.fill(remap, root, end, -1);
+
+        remap[root] = 0;
+        copy(root, 0, -1);
+        int kept = 1;
+
+        for (int node = root + 1; node < end; node++) {
+            int parent = parents[node];
+
+            if (parent < root || remap[parent] < 0) {
+                continue;
+            }
+
+            int target = kept++;
+            int newParent = remap[parent];
+            remap[node] = target;
+
+            // The moved parent still holds the old index of its first child.
+            if (firstChildren.get(newParent) == node) {
+                firstChildren.set(newParent, target);
+            }
+            copy(node, target, newParent);
+        }
+
+        size.set(kept);
+    }
+
+    /**
+     * Writes a new node. The writes become visible to other threads with
+     * the publication of the parent's first child index.
+     */
+    private void initialize(int node, int move, int parent) {
+        moves[node] = (byte) move;
+        childCounts[node] = 0;
+        parents[node] = parent;
+        visits.lazySet(node, 0);
+        scores.lazySet(node, 0);
+        firstChildren.lazySet(node, UNEXPANDED);
+    }
+
+    private void copy(int from, int to, int parent) {
+        moves[to] = moves[from];
+        childCounts[to] = childCounts[from];
+        parents[to] = parent;
+        visits.set(to, visits.get(from));
+        scores.set(to, scores.get(from));
+        firstChildren.set(to, firstChildren.get(from));
+    }
+}
@@ -0,0 +1,319 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.model.BitBoard;
+
+/**
+ * Orders the moves of the nodes of a search, so alpha-beta tries the moves
+ * most likely to cause a cutoff first.
+ * <p>
+ * Moves are ranked by, in decreasing precedence:
+ * <ul>
+ *   <li>the best move stored in the transposition table</li>
+ *   <li>the two killer moves of the ply: the last moves that caused a
+ *       cutoff at the same distance from the root</li>
+ *   <li>a score adding the history of the move (how often and how deep it
+ *       caused cutoffs for the same side), its static square class (corners
+ *       first, X-squares last) and, at depths of at least
+ *       {@link #MOBILITY_MIN_DEPTH}, a penalty for every reply it leaves the
+ *       opponent</li>
+ * </ul>
+ * Nodes shallower than {@link #SORT_MIN_DEPTH} have too small subtrees to
+ * repay sorting: they try the table move and the killers, then the other
+ * moves by square class.
+ * <p>
+ * Every ply has its own preallocated move list, so ordering never
+ * allocates and the lists of the plies above stay valid while a child node
+ * is searched.
+ * <p>
+ * The orderer also counts the cutoffs reported to it and how many of them
+ * came from the first move tried, the usual measure of ordering quality.
+ * An instance serves one search thread.
+ */
+public final class MoveOrderer {
+
+    /** Depth from which moves are sorted by key; shallower nodes use square classes. */
+    static final int SORT_MIN_DEPTH = 3;
+
+    /** Depth from which moves are ranked by the replies they leave. */
+    static final int MOBILITY_MIN_DEPTH = 4;
+
+    /** Square classes in the order in which shallow nodes try them. */
+    private static final long[] CLASS_ORDER = {
+        SearchEngine.CORNERS,
+        ~(SearchEngine.CORNERS | SearchEngine.X_SQUARES | SearchEngine.C_SQUARES),
+        SearchEngine.C_SQUARES,
+        SearchEngine.X_SQUARES
+    };
+
+    /** Key of the transposition table move. */
+    private static final int HASH_KEY = Integer.MAX_VALUE;
+
+    /** Keys of the first and second killer moves. */
+    private static final int KILLER_KEY = 1 << 28;
+    private static final int SECOND_KILLER_KEY = KILLER_KEY - 1;
+
+    /** History scores are halved once one of them exceeds this value. */
+    private static final int HISTORY_LIMIT = 1 << 16;
+
+    /** Penalty of every opponent reply, and the extra one of corner replies. */
+    private static final int REPLY_PENALTY = 1 << 14;
+    private static final int CORNER_REPLY_PENALTY = 1 << 16;
+
+    /** Static score of every square, from its square class. */
+    private static final int[] SQUARE_SCORES = new int[BitBoard.SQUARES];
+
+    static {
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            long bit = 1L << square;
+
+            if ((SearchEngine.CORNERS & bit) != 0) {
+                SQUARE_SCORES[square] = 1 << 18;
+            } else if ((SearchEngine.X_SQUARES & bit) != 0) {
+                SQUARE_SCORES[square] = -(1 << 18);
+            } else if ((SearchEngine.C_SQUARES & bit) != 0) {
+                SQUARE_SCORES[square] = -(1 << 15);
+            } else if ((SearchEngine.EDGES & bit) != 0) {
+                SQUARE_SCORES[square] = 1 << 13;
+            }
+        }
+    }
+
+    /** Move lists per ply. */
+    private final int[][] moveLists = new int[SearchBoard.MAX_PLY][BitBoard.SQUARES];
+
+    /** Ordering keys matching {@link #moveLists}, highest first. */
+    private final int[][] moveKeys = new int[SearchBoard.MAX_PLY][BitBoard.SQUARES];
+
+    /** Two killer moves per ply, or {@link SearchBoard#PASS}. */
+    private final int[][] killers = new int[SearchBoard.MAX_PLY][2];
+
+    /** History scores per side to move and square. */
+    private final int[][] history = new int[2][BitBoard.SQUARES];
+
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    /**
+     * Creates an orderer with empty killers and history.
+     */
+    public MoveOrderer() {
+        clearKillers();
+    }
+
+    /**
+     * Prepares the orderer for a new search: forgets the killers, halves
+     * the history so older cutoffs weigh less, and resets the cutoff
+     * counters.
+     */
+    public void newSearch() {
+
+        clearKillers();
+        ageHistory();
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+    }
+
+    /**
+     * Orders the legal moves of a node into the list of its ply.
+     *
+     * @param ply distance of the node from the root
+     * @param side color of the player to move relative to the root: 0 or 1
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opposing player
+     * @param moves legal moves of the player to move
+     * @param hashMove best move stored for the node, or {@link SearchBoard#PASS}
+     * @param depth remaining depth of the node
+     * @return the number of moves, read back with {@link #getMove}
+     */
+    public int order(int ply, int side, long player, long opponent, long moves, int hashMove, int depth) {
+
+        int[] list = moveLists[ply];
+
+        if (depth < SORT_MIN_DEPTH) {
+            return orderByClass(list, moves, hashMove, killers[ply]);
+        }
+
+        int[] keys = moveKeys[ply];
+        int[] sideHistory = history[side];
+        int killer = killers[ply][0];
+        int secondKiller = killers[ply][1];
+        boolean mobility = depth >= MOBILITY_MIN_DEPTH;
+        int count = 0;
+
+        for (long m = moves; m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            int key;
+
+            if (square == hashMove) {
+                key = HASH_KEY;
+            } else if (square == killer) {
+                key = KILLER_KEY;
+            } else if (square == secondKiller) {
+                key = SECOND_KILLER_KEY;
+            } else {
+                key = sideHistory[square] + SQUARE_SCORES[square];
+
+                if (mobility) {
+                    long flipped = BitBoard.flips(player, opponent, square);
+                    long replies = BitBoard.legalMoves(opponent & ~flipped, player | flipped | (1L << square));
+                    key -= Long.bitCount(replies) * REPLY_PENALTY
+                         + Long.bitCount(replies & SearchEngine.CORNERS) * CORNER_REPLY_PENALTY;
+                }
+            }
+
+            count = insert(list, keys, count, square, key);
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns a move of the list last ordered for a ply.
+     *
+     * @param ply distance of the node from the root
+     * @param index position of the move in the list
+     * @return the square of the move
+     */
+    public int getMove(int ply, int index) {
+        return moveLists[ply][index];
+    }
+
+    /**
+     * Records a move that caused a beta cutoff: it becomes the first
+     * killer of its ply and its history grows with the square of the
+     * remaining depth.
+     *
+     * @param ply distance of the node from the root
+     * @param side color of the player to move relative to the root
+     * @param square the move
+     * @param depth remaining depth of the node
+     * @param index position of the move among the moves tried, 0 for the first
+     */
+    public void recordCutoff(int ply, int side, int square, int depth, int index) {
+
+        cutoffs++;
+        if (index == 0) {
+            firstMoveCutoffs++;
+        }
+
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != square) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = square;
+        }
+
+        int[] sideHistory = history[side];
+        sideHistory[square] += depth * depth;
+        if (sideHistory[square] > HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * @return the beta cutoffs recorded since the last {@link #newSearch()}
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * @return the cutoffs caused by the first move tried
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * @return the share of cutoffs caused by the first move tried, or 0
+     *         before any cutoff
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Returns the move a node with no other information should try first:
+     * the legal move of the best static square class.
+     *
+     * @param moves the legal moves
+     * @return the square of the preferred move, or {@link SearchBoard#PASS}
+     */
+    static int firstStatic(long moves) {
+
+        int best = SearchBoard.PASS;
+
+        for (long m = moves; m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            if (best == SearchBoard.PASS || SQUARE_SCORES[square] > SQUARE_SCORES[best]) {
+                best = square;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Lists the table move, then the killers, then the other moves by
+     * square class, without computing keys.
+     *
+     * @return the number of moves
+     */
+    private static int orderByClass(int[] list, long moves, int hashMove, int[] plyKillers) {
+
+        int count = 0;
+
+        if (hashMove != SearchBoard.PASS && (moves & (1L << hashMove)) != 0) {
+            list[count++] = hashMove;
+            moves &= ~(1L << hashMove);
+        }
+
+        for (int killer : plyKillers) {
+            if (killer != SearchBoard.PASS && (moves & (1L << killer)) != 0) {
+                list[count++] = killer;
+                moves &= ~(1L << killer);
+            }
+        }
+
+        for (long squareClass : CLASS_ORDER) {
+            for (long m = moves & squareClass; m != 0; m &= m - 1) {
+                list[count++] = Long.numberOfTrailingZeros(m);
+            }
+        }
+
+        return count;
+    }
+
+    private void clearKillers() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = SearchBoard.PASS;
+            plyKillers[1] = SearchBoard.PASS;
+        }
+    }
+
+    private void ageHistory() {
+        for (int[] sideHistory : history) {
+            for (int square = 0; square < sideHistory.length; square++) {
+                sideHistory[square] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Inserts a move into a list kept sorted by decreasing key.
+     *
+     * @return the new size of the list
+     */
+    private static int insert(int[] list, int[] keys, int count, int square, int key) {
+
+        int i = count;
+        while (i > 0 && keys[i - 1] < key) {
+            list[i] = list[i - 1];
+            keys[i] = keys[i - 1];
+            i--;
+        }
+
+        list[i] = square;
+        keys[i] = key;
+        return count + 1;
+    }
+}
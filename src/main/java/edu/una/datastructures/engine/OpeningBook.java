@@ -0,0 +1,156 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.logic.BotPlayer;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only opening book backed by a memory-mapped file.
+ * <p>
+ * The file holds a fixed header followed by 16-byte records sorted by
+ * position hash and then by move:
+ * <pre>
+ * header: int magic, int version, int record count, int reserved
+ * record: long hash, byte move, byte reserved, short score, int games
+ * </pre>
+ * The hash is {@link Zobrist#hash(long, long, int)} of the pieces of the
+ * player to move and of the opponent, with side 0, so a position is found
+ * whichever color is to move. The score is the mean final disc differential
+ * from the mover's point of view, times 100. Opening the book maps the file
+ * without parsing it, and every lookup is a binary search over the mapping.
+ * <p>
+ * As a {@link BotPlayer}, the book answers -1 for positions it does not
+ * know, so it can be consulted before a search.
+ */
+public final class OpeningBook implements BotPlayer {
+
+    /** File signature: "RVBK". */
+    static final int MAGIC = 0x5256424B;
+
+    /** Version of the file format. */
+    static final int VERSION = 1;
+
+    /** Size of the header in bytes. */
+    static final int HEADER_BYTES = 16;
+
+    /** Size of one record in bytes. */
+    static final int RECORD_BYTES = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int records;
+
+    /** Minimum number of games a move needs before it is played. */
+    private int minGames = 1;
+
+    private OpeningBook(MappedByteBuffer buffer) {
+
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an opening book file");
+        }
+
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported opening book version: " + buffer.getInt(4));
+        }
+
+        this.buffer = buffer;
+        this.records = buffer.getInt(8);
+
+        if ((long) HEADER_BYTES + (long) records * RECORD_BYTES > buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated opening book file");
+        }
+    }
+
+    /**
+     * Maps an opening book file into memory.
+     *
+     * @param file the book file
+     * @return the opened book
+     * @throws IOException if the file cannot be read
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Sets how many recorded games a move needs before it is played.
+     *
+     * @param minGames the minimum number of games
+     */
+    public void setMinGames(int minGames) {
+        this.minGames = minGames;
+    }
+
+    /**
+     * @return the number of records in the book
+     */
+    public int size() {
+        return records;
+    }
+
+    /**
+     * Finds the best book move of a position.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opponent
+     * @return the square of the highest-scored move with enough games, or
+     *         -1 if the position is not in the book
+     */
+    @Override
+    public int selectMove(long player, long opponent) {
+
+        long hash = Zobrist.hash(player, opponent, 0);
+        int index = firstRecord(hash);
+        int bestMove = -1;
+        int bestScore = Integer.MIN_VALUE;
+
+        for (; index < records && hashAt(index) == hash; index++) {
+            int offset = HEADER_BYTES + index * RECORD_BYTES;
+            int score = buffer.getShort(offset + 10);
+            int games = buffer.getInt(offset + 12);
+
+            if (games >= minGames && score > bestScore) {
+                bestScore = score;
+                bestMove = buffer.get(offset + 8);
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Binary search for the first record holding a hash.
+     *
+     * @param hash the position hash
+     * @return index of the first matching record, or of the first greater
+     *         one when the hash is absent
+     */
+    private int firstRecord(long hash) {
+
+        int low = 0;
+        int high = records;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (hashAt(middle) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private long hashAt(int index) {
+        return buffer.getLong(HEADER_BYTES + index * RECORD_BYTES);
+    }
+}
@@ -0,0 +1,192 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.model.BitBoard;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from recorded games.
+ * <p>
+ * Every game is replayed from the starting position; for each of its first
+ * moves the builder accumulates how often the move was played in that
+ * position and the final disc differential from the mover's point of view.
+ * Games are expected to be complete, since the differential is taken from
+ * the position after the last recorded move.
+ */
+public final class OpeningBookBuilder {
+
+    /** Number of moves of each game added to the book. */
+    private final int maxPlies;
+
+    /** Statistics per position and move. */
+    private final Map<BookKey, int[]> statistics = new HashMap<>();
+
+    /**
+     * Creates a builder.
+     *
+     * @param maxPlies number of moves of each game to record
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Adds a game written as concatenated square names, e.g.
+     * {@code f5d6c3d3c4}. Whitespace is ignored and passes are implicit.
+     *
+     * @param notation the moves of the game
+     */
+    public void addGame(String notation) {
+
+        String compact = notation.replaceAll("\\s+", "");
+
+        if (compact.length() % 2 != 0) {
+            throw new IllegalArgumentException("Invalid game: " + notation);
+        }
+
+        int[] moves = new int[compact.length() / 2];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = BitBoard.parseSquare(compact.substring(2 * i, 2 * i + 2));
+        }
+
+        addGame(moves);
+    }
+
+    /**
+     * Adds a game given as the sequence of squares played. Forced passes
+     * are not listed; they are detected while replaying.
+     *
+     * @param moves the squares played, in order
+     */
+    public void addGame(int[] moves) {
+
+        long player = BitBoard.INITIAL_BLACK;
+        long opponent = BitBoard.INITIAL_WHITE;
+        boolean blackToMove = true;
+
+        long[] hashes = new long[Math.min(maxPlies, moves.length)];
+        boolean[] blackMoved = new boolean[hashes.length];
+
+        for (int ply = 0; ply < moves.length; ply++) {
+
+            if (BitBoard.legalMoves(player, opponent) == 0) {
+                long swap = player;
+                player = opponent;
+                opponent = swap;
+                blackToMove = !blackToMove;
+            }
+
+            int square = moves[ply];
+
+            if (square < 0 || square >= BitBoard.SQUARES) {
+                throw new IllegalArgumentException("Invalid square " + square + " at ply " + (ply + 1));
+            }
+
+            long flipped = ((player | opponent) & (1L << square)) != 0
+                    ? 0 : BitBoard.flips(player, opponent, square);
+
+            if (flipped == 0) {
+                throw new IllegalArgumentException("Illegal move " + BitBoard.squareName(square)
+                        + " at ply " + (ply + 1));
+            }
+
+            if (ply < hashes.length) {
+                hashes[ply] = Zobrist.hash(player, opponent, 0);
+                blackMoved[ply] = blackToMove;
+            }
+
+            long next = opponent & ~flipped;
+            opponent = player | flipped | (1L << square);
+            player = next;
+            blackToMove = !blackToMove;
+        }
+
+        long black = blackToMove ? player : opponent;
+        long white = blackToMove ? opponent : player;
+        int blackDifferential = Long.bitCount(black) - Long.bitCount(white);
+
+        for (int ply = 0; ply < hashes.length; ply++) {
+            int[] entry = statistics.computeIfAbsent(new BookKey(hashes[ply], moves[ply]), key -> new int[2]);
+            entry[0]++;
+            entry[1] += blackMoved[ply] ? blackDifferential : -blackDifferential;
+        }
+    }
+
+    /**
+     * @return the number of distinct position and move pairs collected
+     */
+    public int size() {
+        return statistics.size();
+    }
+
+    /**
+     * Writes the book file, sorted by position hash and move.
+     *
+     * @param file the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+
+        List<Map.Entry<BookKey, int[]>> entries = new ArrayList<>(statistics.entrySet());
+        entries.sort((a, b) -> {
+            int byHash = Long.compare(a.getKey().hash, b.getKey().hash);
+            return byHash != 0 ? byHash : Integer.compare(a.getKey().move, b.getKey().move);
+        });
+
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(entries.size());
+            out.writeInt(0);
+
+            for (Map.Entry<BookKey, int[]> entry : entries) {
+                int games = entry.getValue()[0];
+                long score = Math.round(100.0 * entry.getValue()[1] / games);
+
+                out.writeLong(entry.getKey().hash);
+                out.writeByte(entry.getKey().move);
+                out.writeByte(0);
+                out.writeShort((int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score)));
+                out.writeInt(games);
+            }
+        }
+    }
+
+    /**
+     * Position hash and move identifying a book record.
+     */
+    private static final class BookKey {
+
+        private final long hash;
+        private final int move;
+
+        BookKey(long hash, int move) {
+            this.hash = hash;
+            this.move = move;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof BookKey)) {
+                return false;
+            }
+            BookKey key = (BookKey) other;
+            return hash == key.hash && move == key.move;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash * 31 + move);
+        }
+    }
+}
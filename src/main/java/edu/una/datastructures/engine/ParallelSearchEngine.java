@@ -0,0 +1,240 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.logic.BotPlayer;
+import edu.una.datastructures.metrics.EngineMetrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Multi-threaded search bot using Lazy SMP.
+ * <p>
+ * Every worker thread runs its own {@link SearchEngine} on the same root
+ * position, sharing one lock-free {@link TranspositionTable}. Helper
+ * threads start their iterative deepening at staggered depths, so they fill
+ * the table with entries the main thread picks up later. The main worker
+ * runs on the calling thread, decides the move and stops the helpers when
+ * it finishes.
+ * <p>
+ * With a single thread no helper is started and the search is identical to
+ * {@link SearchEngine}, so node-limited searches are fully reproducible.
+ */
+public class ParallelSearchEngine implements BotPlayer, AutoCloseable {
+
+    /** Shared cache of searched positions. */
+    private final TranspositionTable table;
+
+    /** Main worker, run on the calling thread. */
+    private final SearchEngine main;
+
+    /** Helper workers, one per extra thread. */
+    private final SearchEngine[] helpers;
+
+    /** Stops the helpers once the main worker is done. */
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+
+    /** Threads running the helpers, or null when single-threaded. */
+    private final ExecutorService pool;
+
+    /**
+     * Creates a parallel search engine.
+     *
+     * @param threads number of worker threads, including the calling one
+     * @param hashMegabytes memory budget of the shared table in MB
+     */
+    public ParallelSearchEngine(int threads, int hashMegabytes) {
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one search thread is required");
+        }
+
+        this.table = new TranspositionTable(hashMegabytes);
+        this.main = new SearchEngine(table);
+        this.helpers = new SearchEngine[threads - 1];
+
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new SearchEngine(table);
+            helpers[i].setTimeLimit(0);
+        }
+
+        setStaggeredHelpers(true);
+
+        this.pool = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Chooses where the helpers start their iterative deepening: every
+     * other helper one ply deeper than the main worker, or all at depth 1.
+     * Staggering is the default; {@code SpeedupBenchmark} compares both.
+     *
+     * @param staggered true to stagger the first depth of the helpers
+     */
+    public void setStaggeredHelpers(boolean staggered) {
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i].configureHelper(stopSignal, staggered ? 1 + (i + 1) % 2 : 1);
+        }
+    }
+
+    /**
+     * Sets the time budget for each move.
+     *
+     * @param timeLimitMillis milliseconds per move, or 0 for no limit
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        main.setTimeLimit(timeLimitMillis);
+    }
+
+    /**
+     * Sets the node budget of the main worker for each move.
+     *
+     * @param nodeLimit nodes per move, or 0 for no limit
+     */
+    public void setNodeLimit(long nodeLimit) {
+        main.setNodeLimit(nodeLimit);
+    }
+
+    /**
+     * Sets the deepest iteration the search may run.
+     *
+     * @param maxDepth maximum depth in plies
+     */
+    public void setMaxDepth(int maxDepth) {
+        main.setMaxDepth(maxDepth);
+        for (SearchEngine helper : helpers) {
+            helper.setMaxDepth(maxDepth);
+        }
+    }
+
+    /**
+     * Scores leaves with pattern tables; every worker gets its own
+     * evaluator over the shared weights.
+     *
+     * @param weights the pattern weights, or null for the heuristic
+     */
+    public void setPatternWeights(PatternWeights weights) {
+        main.setPatternWeights(weights);
+        for (SearchEngine helper : helpers) {
+            helper.setPatternWeights(weights);
+        }
+    }
+
+    /**
+     * Sets the listener told about every iteration completed by the main
+     * worker. Reported node counts are those of the main worker only.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    public void setSearchListener(SearchListener listener) {
+        main.setSearchListener(listener);
+    }
+
+    /**
+     * Sets the metrics of every worker. Nodes are counted per worker; the
+     * search time and table probes are those of the main worker, whose
+     * table counters include the probes of the helpers.
+     *
+     * @param metrics the metrics, or null to stop recording
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        main.setMetrics(metrics);
+        for (SearchEngine helper : helpers) {
+            helper.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * Stops the running search. The main worker returns the move of its
+     * last completed iteration and the helpers stop with it. May be called
+     * from any thread.
+     */
+    public void cancel() {
+        main.cancel();
+    }
+
+    /**
+     * Readies the next search on the thread that may cancel it, so a
+     * {@link #cancel()} made before the search starts is not lost.
+     *
+     * @see SearchEngine#prepareSearch()
+     */
+    public void prepareSearch() {
+        main.prepareSearch();
+    }
+
+    /**
+     * @return the number of worker threads, including the calling one
+     */
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * @return the transposition table shared by all workers
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    @Override
+    public int selectMove(long player, long opponent) {
+        return search(player, opponent).getBestMove();
+    }
+
+    /**
+     * Searches the given position on all worker threads.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opposing player
+     * @return the result of the main worker, with the nodes of every worker
+     */
+    public SearchResult search(long player, long opponent) {
+
+        if (pool == null) {
+            return main.search(player, opponent);
+        }
+
+        stopSignal.set(false);
+        List<Future<SearchResult>> running = new ArrayList<>(helpers.length);
+
+        for (SearchEngine helper : helpers) {
+            running.add(pool.submit(() -> helper.search(player, opponent)));
+        }
+
+        SearchResult result = main.search(player, opponent);
+        stopSignal.set(true);
+
+        long nodes = result.getNodes();
+
+        for (Future<SearchResult> future : running) {
+            try {
+                nodes += future.get().getNodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(),
+                                nodes, result.getElapsedNanos());
+    }
+
+    /**
+     * Stops the helper threads.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            stopSignal.set(true);
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.model.BitBoard;
+
+/**
+ * Pattern-based evaluation with incrementally maintained pattern indices.
+ * <p>
+ * The board is covered by pattern instances: the four edges, the four 3x3
+ * corner blocks and every diagonal of four or more squares. Each instance
+ * reads its squares as a base-3 number (0 empty, 1 own piece, 2 opposing
+ * piece) that indexes a table of {@link PatternWeights}; instances of the
+ * same shape share one table per game phase. A mobility term completes the
+ * score.
+ * <p>
+ * The indices are kept for both points of view and updated by
+ * {@link #makeMove} and {@link #undoMove} from the placed square and the
+ * flip mask, touching only the instances that contain a changed square, so
+ * evaluating a leaf is a sum of table lookups. Colors are labelled like
+ * {@link SearchBoard}: side 0 is the player to move at the last
+ * {@link #reset}.
+ */
+public final class PatternEvaluator {
+
+    /** Pattern shape of the four edges. */
+    static final int EDGE = 0;
+
+    /** Pattern shape of the four 3x3 corner blocks. */
+    static final int CORNER = 1;
+
+    /** Pattern shapes of the diagonals of length 8, 7, 6, 5 and 4. */
+    static final int DIAGONAL_8 = 2;
+
+    /** Number of pattern shapes. */
+    static final int SHAPES = 7;
+
+    /** Number of squares of each shape. */
+    static final int[] SHAPE_LENGTHS = {8, 9, 8, 7, 6, 5, 4};
+
+    /** Squares of every instance, first square in the least significant digit. */
+    static final int[][] INSTANCES;
+
+    /** Shape of every instance. */
+    static final int[] INSTANCE_SHAPES;
+
+    /** Instances containing each square. */
+    private static final int[][] SQUARE_INSTANCES = new int[BitBoard.SQUARES][];
+
+    /** Power of 3 of each square within the instances of {@link #SQUARE_INSTANCES}. */
+    private static final int[][] SQUARE_POWERS = new int[BitBoard.SQUARES][];
+
+    static {
+        int[][] instances = new int[4 + 4 + 2 + 4 * 4][];
+        int[] shapes = new int[instances.length];
+        int n = 0;
+
+        // Edges, read from a corner.
+        int last = BitBoard.SIZE - 1;
+        int[][] edges = {line(0, 0, 0, 1), line(last, 0, 0, 1), line(0, 0, 1, 0), line(0, last, 1, 0)};
+        for (int[] squares : edges) {
+            shapes[n] = EDGE;
+            instances[n++] = squares;
+        }
+
+        // Corner blocks, read row by row starting at the corner.
+        int[][] corners = {{0, 0, 1, 1}, {0, 7, 1, -1}, {7, 0, -1, 1}, {7, 7, -1, -1}};
+        for (int[] corner : corners) {
+            int[] squares = new int[9];
+            for (int i = 0; i < 9; i++) {
+                squares[i] = BitBoard.square(corner[0] + corner[2] * (i / 3), corner[1] + corner[3] * (i % 3));
+            }
+            shapes[n] = CORNER;
+            instances[n++] = squares;
+        }
+
+        // Diagonals of length 8 down to 4, two per direction.
+        for (int length = BitBoard.SIZE; length >= 4; length--) {
+            int offset = BitBoard.SIZE - length;
+            int shape = DIAGONAL_8 + offset;
+            int[][] diagonals = length == BitBoard.SIZE
+                    ? new int[][] {diagonal(0, 0, 1, length), diagonal(0, 7, -1, length)}
+                    : new int[][] {
+                        diagonal(0, offset, 1, length), diagonal(offset, 0, 1, length),
+                        diagonal(0, 7 - offset, -1, length), diagonal(offset, 7, -1, length)
+                    };
+            for (int[] squares : diagonals) {
+                shapes[n] = shape;
+                instances[n++] = squares;
+            }
+        }
+
+        INSTANCES = instances;
+        INSTANCE_SHAPES = shapes;
+
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            int count = 0;
+            for (int[] squares : INSTANCES) {
+                for (int s : squares) {
+                    if (s == square) {
+                        count++;
+                    }
+                }
+            }
+
+            SQUARE_INSTANCES[square] = new int[count];
+            SQUARE_POWERS[square] = new int[count];
+            count = 0;
+
+            for (int i = 0; i < INSTANCES.length; i++) {
+                int power = 1;
+                for (int s : INSTANCES[i]) {
+                    if (s == square) {
+                        SQUARE_INSTANCES[square][count] = i;
+                        SQUARE_POWERS[square][count++] = power;
+                    }
+                    power *= 3;
+                }
+            }
+        }
+    }
+
+    /** Weights used for evaluation. */
+    private final PatternWeights weights;
+
+    /** Pattern indices with side 0 as the own color. */
+    private final int[] indices = new int[INSTANCES.length];
+
+    /** Pattern indices with side 1 as the own color. */
+    private final int[] swapped = new int[INSTANCES.length];
+
+    /**
+     * Creates an evaluator reading the given weights.
+     *
+     * @param weights the pattern weights
+     */
+    public PatternEvaluator(PatternWeights weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * @return the weights read by this evaluator
+     */
+    public PatternWeights getWeights() {
+        return weights;
+    }
+
+    /**
+     * Recomputes every index for a new root position.
+     *
+     * @param player pieces of side 0
+     * @param opponent pieces of side 1
+     */
+    public void reset(long player, long opponent) {
+        computeIndices(player, opponent, indices);
+        computeIndices(opponent, player, swapped);
+    }
+
+    /**
+     * Updates the indices after a move.
+     *
+     * @param side side that moved: 0 or 1
+     * @param square square where the piece was placed
+     * @param flipped mask of the flipped pieces
+     */
+    public void makeMove(int side, int square, long flipped) {
+
+        // Placing adds the mover's digit; a flip turns digit 2 into 1 for the
+        // mover's point of view and 1 into 2 for the other one.
+        int own = side == 0 ? 1 : 2;
+        add(square, own, 3 - own);
+
+        int delta = side == 0 ? -1 : 1;
+        for (long f = flipped; f != 0; f &= f - 1) {
+            add(Long.numberOfTrailingZeros(f), delta, -delta);
+        }
+    }
+
+    /**
+     * Reverts the indices to their state before a move.
+     *
+     * @param side side that moved: 0 or 1
+     * @param square square where the piece was placed
+     * @param flipped mask of the flipped pieces
+     */
+    public void undoMove(int side, int square, long flipped) {
+
+        int own = side == 0 ? 1 : 2;
+        add(square, -own, own - 3);
+
+        int delta = side == 0 ? 1 : -1;
+        for (long f = flipped; f != 0; f &= f - 1) {
+            add(Long.numberOfTrailingZeros(f), delta, -delta);
+        }
+    }
+
+    /**
+     * Scores the current position for the side to move.
+     *
+     * @param side side to move: 0 or 1
+     * @param empties number of empty squares
+     * @param mobility legal moves of the side to move minus those of the
+     *                 other side
+     * @return the evaluation from the point of view of the side to move
+     */
+    public int evaluate(int side, int empties, int mobility) {
+
+        int phase = PatternWeights.phase(empties);
+        int[] own = side == 0 ? indices : swapped;
+        int score = weights.getMobility(phase) * mobility;
+
+        for (int i = 0; i < own.length; i++) {
+            score += weights.getTable(phase, INSTANCE_SHAPES[i])[own[i]];
+        }
+
+        return score;
+    }
+
+    /**
+     * Computes the indices of a position from scratch.
+     *
+     * @param player pieces counted as own (digit 1)
+     * @param opponent pieces counted as opposing (digit 2)
+     * @param out array of {@link #INSTANCES} length receiving the indices
+     */
+    static void computeIndices(long player, long opponent, int[] out) {
+
+        for (int i = 0; i < INSTANCES.length; i++) {
+            int index = 0;
+            int[] squares = INSTANCES[i];
+
+            for (int j = squares.length - 1; j >= 0; j--) {
+                long bit = 1L << squares[j];
+                index = index * 3 + ((player & bit) != 0 ? 1 : (opponent & bit) != 0 ? 2 : 0);
+            }
+
+            out[i] = index;
+        }
+    }
+
+    /**
+     * Adds digit deltas for one square to both index arrays.
+     */
+    private void add(int square, int delta, int swappedDelta) {
+
+        int[] instances = SQUARE_INSTANCES[square];
+        int[] powers = SQUARE_POWERS[square];
+
+        for (int i = 0; i < instances.length; i++) {
+            indices[instances[i]] += delta * powers[i];
+            swapped[instances[i]] += swappedDelta * powers[i];
+        }
+    }
+
+    /**
+     * @return the squares of a straight line of eight squares
+     */
+    private static int[] line(int row, int col, int rowStep, int colStep) {
+
+        int[] squares = new int[BitBoard.SIZE];
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = BitBoard.square(row + rowStep * i, col + colStep * i);
+        }
+        return squares;
+    }
+
+    /**
+     * @return the squares of a diagonal going down and left or right
+     */
+    private static int[] diagonal(int row, int col, int colStep, int length) {
+
+        int[] squares = new int[length];
+        for (int i = 0; i < length; i++) {
+            squares[i] = BitBoard.square(row + i, col + colStep * i);
+        }
+        return squares;
+    }
+}
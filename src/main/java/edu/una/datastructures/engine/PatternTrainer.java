@@ -0,0 +1,133 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.model.BitBoard;
+
+/**
+ * Fits {@link PatternWeights} to labelled positions by stochastic gradient
+ * descent on the squared error.
+ * <p>
+ * Each training position nudges the weights of its phase towards the
+ * target score: every table entry used by the position moves by the same
+ * step, and the mobility weight by the step times the mobility difference.
+ * Weights are kept in floating point during training and rounded when
+ * {@link #toWeights()} is called.
+ */
+public final class PatternTrainer {
+
+    /** Tables indexed by phase, shape and pattern index. */
+    private final float[][][] tables = new float[PatternWeights.PHASES][PatternEvaluator.SHAPES][];
+
+    /** Mobility weight of each phase. */
+    private final float[] mobility = new float[PatternWeights.PHASES];
+
+    /** Step size applied per position. */
+    private final float learningRate;
+
+    /** Pattern indices of the position being trained, reused. */
+    private final int[] indices = new int[PatternEvaluator.INSTANCES.length];
+
+    /** Sum of squared errors since the last call to {@link #resetError()}. */
+    private double squaredError;
+
+    /** Positions trained since the last call to {@link #resetError()}. */
+    private long positions;
+
+    /**
+     * Creates a trainer starting from existing weights.
+     *
+     * @param initial weights to start from
+     * @param learningRate step size, e.g. 0.002
+     */
+    public PatternTrainer(PatternWeights initial, double learningRate) {
+
+        this.learningRate = (float) learningRate;
+
+        for (int phase = 0; phase < PatternWeights.PHASES; phase++) {
+            mobility[phase] = initial.getMobility(phase);
+
+            for (int shape = 0; shape < PatternEvaluator.SHAPES; shape++) {
+                short[] source = initial.getTable(phase, shape);
+                float[] table = new float[source.length];
+                for (int i = 0; i < source.length; i++) {
+                    table[i] = source[i];
+                }
+                tables[phase][shape] = table;
+            }
+        }
+    }
+
+    /**
+     * Trains on one position.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opponent
+     * @param target desired evaluation from the point of view of the player
+     *               to move
+     */
+    public void train(long player, long opponent, int target) {
+
+        int phase = PatternWeights.phase(Long.bitCount(~(player | opponent)));
+        int moves = Long.bitCount(BitBoard.legalMoves(player, opponent))
+                  - Long.bitCount(BitBoard.legalMoves(opponent, player));
+
+        PatternEvaluator.computeIndices(player, opponent, indices);
+        float[][] phaseTables = tables[phase];
+
+        float prediction = mobility[phase] * moves;
+        for (int i = 0; i < indices.length; i++) {
+            prediction += phaseTables[PatternEvaluator.INSTANCE_SHAPES[i]][indices[i]];
+        }
+
+        float error = target - prediction;
+        float step = learningRate * error;
+
+        for (int i = 0; i < indices.length; i++) {
+            phaseTables[PatternEvaluator.INSTANCE_SHAPES[i]][indices[i]] += step;
+        }
+        mobility[phase] += step * moves / indices.length;
+
+        squaredError += (double) error * error;
+        positions++;
+    }
+
+    /**
+     * @return the root mean squared error since the last reset
+     */
+    public double getRootMeanSquaredError() {
+        return positions == 0 ? 0 : Math.sqrt(squaredError / positions);
+    }
+
+    /**
+     * Clears the error statistics, e.g. between two training passes.
+     */
+    public void resetError() {
+        squaredError = 0;
+        positions = 0;
+    }
+
+    /**
+     * Rounds the current weights into an immutable set.
+     *
+     * @return the trained weights
+     */
+    public PatternWeights toWeights() {
+
+        short[][][] rounded = new short[PatternWeights.PHASES][PatternEvaluator.SHAPES][];
+        int[] roundedMobility = new int[PatternWeights.PHASES];
+
+        for (int phase = 0; phase < PatternWeights.PHASES; phase++) {
+            roundedMobility[phase] = Math.round(mobility[phase]);
+
+            for (int shape = 0; shape < PatternEvaluator.SHAPES; shape++) {
+                float[] table = tables[phase][shape];
+                short[] out = new short[table.length];
+                for (int i = 0; i < table.length; i++) {
+                    out[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(table[i])));
+                }
+                rounded[phase][shape] = out;
+            }
+        }
+
+        return new PatternWeights(rounded, roundedMobility);
+    }
+}
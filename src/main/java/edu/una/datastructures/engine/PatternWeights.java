@@ -0,0 +1,254 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.model.BitBoard;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Immutable weight tables of the {@link PatternEvaluator}, one set per game
+ * phase.
+ * <p>
+ * Each phase holds one table per pattern shape, indexed by the base-3
+ * pattern index, and one mobility weight. The binary file is big endian:
+ * <pre>
+ * header: int magic, int version, int phases, int shapes
+ * phase:  int mobility, then for each shape: int entries, short[entries]
+ * </pre>
+ * Weights are read-only once created, so one instance can be shared by
+ * every search thread.
+ */
+public final class PatternWeights {
+
+    /** File signature: "RVPW". */
+    static final int MAGIC = 0x52565057;
+
+    /** Version of the file format. */
+    static final int VERSION = 1;
+
+    /** Number of game phases. */
+    public static final int PHASES = 6;
+
+    /** Moves played per phase. */
+    private static final int MOVES_PER_PHASE = 10;
+
+    /** Tables indexed by phase, shape and pattern index. */
+    private final short[][][] tables;
+
+    /** Mobility weight of each phase. */
+    private final int[] mobility;
+
+    PatternWeights(short[][][] tables, int[] mobility) {
+        this.tables = tables;
+        this.mobility = mobility;
+    }
+
+    /**
+     * Returns the phase of a position.
+     *
+     * @param empties number of empty squares
+     * @return the phase, from 0 (opening) to {@link #PHASES} - 1
+     */
+    public static int phase(int empties) {
+        int played = BitBoard.SQUARES - 4 - empties;
+        return Math.max(0, Math.min(PHASES - 1, played / MOVES_PER_PHASE));
+    }
+
+    /**
+     * Builds weights equivalent to the square-class heuristic of
+     * {@link SearchEngine}: the value of every square is spread over the
+     * instances covering it, so a position scores like the heuristic up to
+     * rounding.
+     *
+     * @return the default weights
+     */
+    public static PatternWeights createDefault() {
+
+        int[] coverage = new int[BitBoard.SQUARES];
+        for (int[] squares : PatternEvaluator.INSTANCES) {
+            for (int square : squares) {
+                coverage[square]++;
+            }
+        }
+
+        short[][][] tables = new short[PHASES][PatternEvaluator.SHAPES][];
+        int[] mobility = new int[PHASES];
+
+        // Instances of one shape are symmetric, so the first one defines the table.
+        for (int shape = 0; shape < PatternEvaluator.SHAPES; shape++) {
+            int[] squares = firstInstance(shape);
+            short[] table = new short[entries(shape)];
+
+            for (int index = 0; index < table.length; index++) {
+                double score = 0;
+                int digits = index;
+
+                for (int square : squares) {
+                    int digit = digits % 3;
+                    digits /= 3;
+                    if (digit != 0) {
+                        int value = squareValue(square);
+                        score += (digit == 1 ? value : -value) / (double) coverage[square];
+                    }
+                }
+
+                table[index] = (short) Math.round(score);
+            }
+
+            for (int phase = 0; phase < PHASES; phase++) {
+                tables[phase][shape] = table;
+            }
+        }
+
+        for (int phase = 0; phase < PHASES; phase++) {
+            mobility[phase] = 10;
+        }
+
+        return new PatternWeights(tables, mobility);
+    }
+
+    /**
+     * Reads weights from a file.
+     *
+     * @param file the weights file
+     * @return the loaded weights
+     * @throws IOException if the file cannot be read
+     */
+    public static PatternWeights load(Path file) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a pattern weights file");
+            }
+
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported pattern weights version: " + version);
+            }
+
+            if (in.readInt() != PHASES || in.readInt() != PatternEvaluator.SHAPES) {
+                throw new IllegalArgumentException("Pattern weights do not match the evaluator");
+            }
+
+            short[][][] tables = new short[PHASES][PatternEvaluator.SHAPES][];
+            int[] mobility = new int[PHASES];
+
+            for (int phase = 0; phase < PHASES; phase++) {
+                mobility[phase] = in.readInt();
+
+                for (int shape = 0; shape < PatternEvaluator.SHAPES; shape++) {
+                    int entries = in.readInt();
+                    if (entries != entries(shape)) {
+                        throw new IllegalArgumentException("Wrong table size for shape " + shape + ": " + entries);
+                    }
+
+                    short[] table = new short[entries];
+                    for (int i = 0; i < entries; i++) {
+                        table[i] = in.readShort();
+                    }
+                    tables[phase][shape] = table;
+                }
+            }
+
+            return new PatternWeights(tables, mobility);
+        }
+    }
+
+    /**
+     * Writes the weights to a file.
+     *
+     * @param file the destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(PHASES);
+            out.writeInt(PatternEvaluator.SHAPES);
+
+            for (int phase = 0; phase < PHASES; phase++) {
+                out.writeInt(mobility[phase]);
+
+                for (short[] table : tables[phase]) {
+                    out.writeInt(table.length);
+                    for (short weight : table) {
+                        out.writeShort(weight);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the table of one shape in one phase.
+     *
+     * @param phase the game phase
+     * @param shape the pattern shape
+     * @return the table, indexed by pattern index; must not be modified
+     */
+    short[] getTable(int phase, int shape) {
+        return tables[phase][shape];
+    }
+
+    /**
+     * @param phase the game phase
+     * @return the weight of one move of mobility difference
+     */
+    int getMobility(int phase) {
+        return mobility[phase];
+    }
+
+    /**
+     * @param shape the pattern shape
+     * @return the number of entries of its table
+     */
+    static int entries(int shape) {
+        int entries = 1;
+        for (int i = 0; i < PatternEvaluator.SHAPE_LENGTHS[shape]; i++) {
+            entries *= 3;
+        }
+        return entries;
+    }
+
+    /**
+     * @return the squares of the first instance of a shape
+     */
+    private static int[] firstInstance(int shape) {
+        for (int i = 0; i < PatternEvaluator.INSTANCES.length; i++) {
+            if (PatternEvaluator.INSTANCE_SHAPES[i] == shape) {
+                return PatternEvaluator.INSTANCES[i];
+            }
+        }
+        throw new IllegalStateException("No instance of shape " + shape);
+    }
+
+    /**
+     * @return the value of a square in the square-class heuristic
+     */
+    private static int squareValue(int square) {
+
+        long bit = 1L << square;
+
+        if ((SearchEngine.CORNERS & bit) != 0) {
+            return 100;
+        }
+        if ((SearchEngine.X_SQUARES & bit) != 0) {
+            return -40;
+        }
+        if ((SearchEngine.C_SQUARES & bit) != 0) {
+            return -15;
+        }
+        if ((SearchEngine.EDGES & bit) != 0) {
+            return 5;
+        }
+        return 0;
+    }
+}
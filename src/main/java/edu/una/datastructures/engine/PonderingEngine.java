@@ -0,0 +1,321 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.logic.BotPlayer;
+import edu.una.datastructures.metrics.EngineMetrics;
+import edu.una.datastructures.model.BitBoard;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bot that keeps searching while the opponent thinks.
+ * <p>
+ * After the bot has moved, {@link #ponder} predicts the opponent's reply
+ * and starts searching the resulting position on a background thread,
+ * without a time limit. The predicted reply is the best move stored in the
+ * transposition table for the opponent's position by the bot's own search,
+ * or the greedy move when the table has none.
+ * <p>
+ * When the bot is next asked for a move:
+ * <ul>
+ *   <li>on a ponder hit, the position is the one being pondered, so the
+ *       pondering search simply continues until the normal time budget,
+ *       counted from when pondering started, is used up. If it already is,
+ *       the move is returned at once, usually from a deeper iteration than
+ *       a normal search would reach;</li>
+ *   <li>on a ponder miss, the pondering search is stopped and a normal
+ *       search runs. The transposition table is kept, so positions the
+ *       ponder search shares with the actual game are not searched again.</li>
+ * </ul>
+ * Hits and misses are counted so the hit rate can be shown.
+ * <p>
+ * Pondering and move searches use the same {@link ParallelSearchEngine},
+ * one at a time. {@link #ponder} must not be called while a move is being
+ * searched.
+ */
+public final class PonderingEngine implements BotEngine {
+
+    /** Interval at which a search that must stop is told again, in ms. */
+    private static final long STOP_POLL_MILLIS = 10;
+
+    private final ParallelSearchEngine engine;
+
+    private final BotPlayer predictor = new GreedyPlayer();
+
+    private final ExecutorService ponderThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long timeLimitMillis;
+
+    /** Running ponder search, or null. */
+    private Future<SearchResult> pondering;
+
+    /** Position being pondered, with the bot to move. */
+    private long ponderPlayer;
+    private long ponderOpponent;
+
+    /** System time at which the current ponder search started. */
+    private long ponderStart;
+
+    private long hits;
+    private long misses;
+
+    /** Set by {@link #prepareSearch()} until the next move search starts. */
+    private volatile boolean prepared;
+
+    /** Set by {@link #cancel()}, cleared by {@link #prepareSearch()}. */
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a pondering bot.
+     *
+     * @param engine the engine searching both moves and ponder positions
+     * @param timeLimitMillis time budget per move in milliseconds
+     */
+    public PonderingEngine(ParallelSearchEngine engine, long timeLimitMillis) {
+
+        if (timeLimitMillis <= 0) {
+            throw new IllegalArgumentException("Pondering needs a time budget per move");
+        }
+
+        this.engine = engine;
+        this.timeLimitMillis = timeLimitMillis;
+        engine.setTimeLimit(timeLimitMillis);
+    }
+
+    /**
+     * Starts pondering on the opponent's time. Any earlier ponder search is
+     * stopped first. Nothing happens if the opponent has no move or if the
+     * bot would have to pass after the predicted reply.
+     *
+     * @param player pieces of the opponent, who is to move
+     * @param opponent pieces of the bot
+     * @throws InterruptedException if interrupted while stopping an earlier
+     *         ponder search
+     */
+    @Override
+    public synchronized void ponder(long player, long opponent) throws InterruptedException {
+
+        stopPondering();
+
+        long moves = BitBoard.legalMoves(player, opponent);
+
+        if (moves == 0) {
+            return;
+        }
+
+        int reply = predictReply(player, opponent, moves);
+        long flipped = BitBoard.flips(player, opponent, reply);
+        long botPieces = opponent & ~flipped;
+        long opponentPieces = player | flipped | (1L << reply);
+
+        if (BitBoard.legalMoves(botPieces, opponentPieces) == 0) {
+            return;
+        }
+
+        ponderPlayer = botPieces;
+        ponderOpponent = opponentPieces;
+        ponderStart = System.nanoTime();
+
+        pondering = ponderThread.submit(() -> {
+            engine.setTimeLimit(0);
+            try {
+                return engine.search(botPieces, opponentPieces);
+            } finally {
+                engine.setTimeLimit(timeLimitMillis);
+            }
+        });
+    }
+
+    /**
+     * Predicts the opponent's reply from the transposition table of the
+     * bot's last search, where the position was searched with the bot as
+     * the first color.
+     */
+    private int predictReply(long player, long opponent, long moves) {
+
+        long entry = engine.getTranspositionTable().probe(Zobrist.hash(opponent, player, 1));
+
+        if (entry != TranspositionTable.MISS) {
+            int move = TranspositionTable.move(entry);
+            if (move >= 0 && (moves & (1L << move)) != 0) {
+                return move;
+            }
+        }
+
+        return predictor.selectMove(player, opponent);
+    }
+
+    @Override
+    public int selectMove(long player, long opponent) {
+
+        boolean keepCancel = prepared;
+        prepared = false;
+
+        Future<SearchResult> ponderSearch;
+        boolean hit;
+        long elapsedMillis;
+
+        synchronized (this) {
+            ponderSearch = pondering;
+            pondering = null;
+            hit = ponderSearch != null && player == ponderPlayer && opponent == ponderOpponent;
+            elapsedMillis = (System.nanoTime() - ponderStart) / 1_000_000;
+
+            if (hit) {
+                hits++;
+            } else if (ponderSearch != null) {
+                misses++;
+            }
+        }
+
+        try {
+            if (hit) {
+                SearchResult result;
+                try {
+                    result = ponderSearch.get(Math.max(0, timeLimitMillis - elapsedMillis), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    result = stop(ponderSearch);
+                }
+                return result.getBestMove();
+            }
+
+            if (ponderSearch != null) {
+                stop(ponderSearch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SearchBoard.PASS;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ponder search failed", e.getCause());
+        }
+
+        // Stopping the ponder search cancels the engine, so the move search
+        // is only prepared now and told about an earlier cancel by hand.
+        if (keepCancel) {
+            engine.prepareSearch();
+            if (cancelled) {
+                engine.cancel();
+            }
+        }
+
+        return engine.search(player, opponent).getBestMove();
+    }
+
+    /**
+     * Stops the running search, whether it is a move search or a ponder
+     * search. May be called from any thread.
+     */
+    @Override
+    public void cancel() {
+
+        cancelled = true;
+        engine.cancel();
+
+        try {
+            synchronized (this) {
+                stopPondering();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void prepareSearch() {
+        cancelled = false;
+        prepared = true;
+    }
+
+    /**
+     * Stops the ponder search, if any, and waits for it to finish.
+     */
+    private void stopPondering() throws InterruptedException {
+
+        if (pondering != null) {
+            stop(pondering);
+            pondering = null;
+        }
+    }
+
+    /**
+     * Stops a ponder search and returns its result. The engine is told to
+     * stop until the search ends, since a search that was still starting
+     * when first told would otherwise miss the request.
+     */
+    private SearchResult stop(Future<SearchResult> search) throws InterruptedException {
+
+        while (true) {
+            engine.cancel();
+            try {
+                return search.get(STOP_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Still running: tell it again.
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ponder search failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Sets the listener told about every iteration of the move and ponder
+     * searches.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        engine.setSearchListener(listener);
+    }
+
+    /**
+     * Sets the metrics of the engine and registers the ponder hit rate as
+     * the {@code cache.ponder.hitRate} gauge.
+     *
+     * @param metrics the metrics, or null to stop recording
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        engine.setMetrics(metrics);
+        if (metrics != null) {
+            metrics.getRegistry().gauge("cache.ponder.hitRate", this::getPonderHitRate);
+        }
+    }
+
+    /**
+     * @return the number of moves found already pondered
+     */
+    public synchronized long getPonderHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of moves that differed from the pondered reply
+     */
+    public synchronized long getPonderMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the share of pondered moves that were hits, from 0 to 1
+     */
+    public synchronized double getPonderHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Stops pondering and the engine threads.
+     */
+    @Override
+    public void close() {
+        cancel();
+        ponderThread.shutdownNow();
+        engine.close();
+    }
+}
@@ -0,0 +1,41 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.logic.BotPlayer;
+import edu.una.datastructures.model.BitBoard;
+import java.util.SplittableRandom;
+
+/**
+ * Bot that plays a uniformly random legal move.
+ * <p>
+ * Each instance owns its random generator, so instances must not be shared
+ * between threads; a fixed seed makes the sequence of moves reproducible.
+ */
+public class RandomPlayer implements BotPlayer {
+
+    private final SplittableRandom random;
+
+    /**
+     * Creates a random player.
+     *
+     * @param seed seed of the random generator
+     */
+    public RandomPlayer(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int selectMove(long player, long opponent) {
+
+        long moves = BitBoard.legalMoves(player, opponent);
+
+        if (moves == 0) {
+            return SearchBoard.PASS;
+        }
+
+        for (int n = random.nextInt(Long.bitCount(moves)); n > 0; n--) {
+            moves &= moves - 1;
+        }
+
+        return Long.numberOfTrailingZeros(moves);
+    }
+}
@@ -0,0 +1,194 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.model.BitBoard;
+
+/**
+ * Compact, reversible position used by the search engine.
+ * <p>
+ * The position is stored from the point of view of the player to move.
+ * Moves are applied and undone in place using a preallocated stack of
+ * flip masks, so walking the game tree never copies the linked board and
+ * never allocates.
+ * <p>
+ * A Zobrist hash is maintained incrementally by {@link #makeMove(int)}.
+ * Colors are labelled relative to the root: the player to move after
+ * {@link #reset(long, long)} owns the first color of {@link Zobrist}.
+ * When a {@link PatternEvaluator} is attached, its pattern indices follow
+ * the same moves.
+ */
+public final class SearchBoard {
+
+    /** Square value used to represent a pass. */
+    public static final int PASS = -1;
+
+    /** Maximum number of moves and passes that can be stacked. */
+    public static final int MAX_PLY = 128;
+
+    /** Pieces of the player to move. */
+    private long player;
+
+    /** Pieces of the opposing player. */
+    private long opponent;
+
+    /** Flip masks of the moves applied so far. */
+    private final long[] flipStack = new long[MAX_PLY];
+
+    /** Placed-piece masks of the moves applied so far (0 for passes). */
+    private final long[] moveStack = new long[MAX_PLY];
+
+    /** Hashes of the positions before each stacked move. */
+    private final long[] hashStack = new long[MAX_PLY];
+
+    /** Number of moves currently stacked. */
+    private int ply;
+
+    /** Zobrist hash of the current position. */
+    private long hash;
+
+    /** Zobrist color of the player to move: 0 or 1. */
+    private int side;
+
+    /** Evaluator kept in sync with the position, or null. */
+    private PatternEvaluator evaluator;
+
+    /**
+     * Attaches an evaluator whose pattern indices follow every move.
+     * Takes effect at the next {@link #reset(long, long)}.
+     *
+     * @param evaluator the evaluator, or null to detach it
+     */
+    public void setEvaluator(PatternEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Resets the board to a new root position and clears the move stack.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opposing player
+     */
+    public void reset(long player, long opponent) {
+        this.player = player;
+        this.opponent = opponent;
+        this.ply = 0;
+        this.side = 0;
+        this.hash = Zobrist.hash(player, opponent, 0);
+
+        if (evaluator != null) {
+            evaluator.reset(player, opponent);
+        }
+    }
+
+    /**
+     * @return the pieces of the player to move
+     */
+    public long getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return the pieces of the opposing player
+     */
+    public long getOpponent() {
+        return opponent;
+    }
+
+    /**
+     * @return the Zobrist hash of the current position
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return the color of the player to move relative to the root: 0 or 1
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * @return the number of moves applied since the last reset
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @return the mask of empty squares
+     */
+    public long getEmpty() {
+        return ~(player | opponent);
+    }
+
+    /**
+     * @return the legal moves of the player to move
+     */
+    public long legalMoves() {
+        return BitBoard.legalMoves(player, opponent);
+    }
+
+    /**
+     * @return the legal moves the opposing player would have
+     */
+    public long opponentMoves() {
+        return BitBoard.legalMoves(opponent, player);
+    }
+
+    /**
+     * Applies a legal move and hands the turn to the opponent.
+     *
+     * @param square the square to play, or {@link #PASS}
+     * @return the mask of flipped pieces
+     */
+    public long makeMove(int square) {
+
+        long move = square == PASS ? 0 : 1L << square;
+        long flipped = square == PASS ? 0 : BitBoard.flips(player, opponent, square);
+
+        flipStack[ply] = flipped;
+        moveStack[ply] = move;
+        hashStack[ply] = hash;
+        ply++;
+
+        long nextHash = hash ^ Zobrist.SIDE_TO_MOVE;
+        if (square != PASS) {
+            nextHash ^= Zobrist.pieceKey(side, square);
+            for (long f = flipped; f != 0; f &= f - 1) {
+                nextHash ^= Zobrist.flipKey(Long.numberOfTrailingZeros(f));
+            }
+        }
+        hash = nextHash;
+
+        if (evaluator != null && square != PASS) {
+            evaluator.makeMove(side, square, flipped);
+        }
+        side ^= 1;
+
+        long next = opponent & ~flipped;
+        opponent = player | flipped | move;
+        player = next;
+
+        return flipped;
+    }
+
+    /**
+     * Undoes the last move or pass, restoring the previous position.
+     */
+    public void undoMove() {
+
+        ply--;
+        long flipped = flipStack[ply];
+        long move = moveStack[ply];
+        hash = hashStack[ply];
+        side ^= 1;
+
+        if (evaluator != null && move != 0) {
+            evaluator.undoMove(side, Long.numberOfTrailingZeros(move), flipped);
+        }
+
+        long previous = opponent ^ flipped ^ move;
+        opponent = player | flipped;
+        player = previous;
+    }
+}
@@ -0,0 +1,683 @@
+package edu.una.datastructures.engine;
+
+import edu.una.datastructures.logic.BotPlayer;
+import edu.una.datastructures.metrics.EngineMetrics;
+import edu.una.datastructures.metrics.SearchEvent;
+import edu.una.datastructures.model.BitBoard;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Game-tree search bot based on negamax with alpha-beta pruning and
+ * iterative deepening.
+ * <p>
+ * The search runs on a {@link SearchBoard}, applying and undoing moves in
+ * place. Each search is bounded by a time budget, a node budget and a
+ * maximum depth; whichever is reached first stops the search and the move
+ * of the last completed iteration is returned.
+ * <p>
+ * Results of interior nodes are cached in a {@link TranspositionTable}
+ * keyed by the incremental hash of the board. Moves are tried in the order
+ * of a {@link MoveOrderer}: the cached best move first, then killer moves,
+ * history, square classes and the replies left to the opponent.
+ * <p>
+ * Once few enough squares are empty, the search hands the position over to
+ * an {@link EndgameSolver} and plays the move with the best exact outcome.
+ * Under a time or node budget, the heuristic search first runs on half of
+ * it and the solver gets the rest; if the solve does not finish, the move
+ * of the heuristic search is played.
+ * <p>
+ * Leaves are scored by a square-class heuristic, or by a
+ * {@link PatternEvaluator} once pattern weights are set.
+ */
+public class SearchEngine implements BotPlayer {
+
+    /** Score bound larger than any reachable score. */
+    static final int INFINITY = 10_000_000;
+
+    /** Base score of a won game, offset by the final disc difference. */
+    static final int WIN = 1_000_000;
+
+    /** Corner squares. */
+    static final long CORNERS = 0x8100000000000081L;
+
+    /** Squares diagonally adjacent to a corner. */
+    static final long X_SQUARES = 0x0042000000004200L;
+
+    /** Edge squares orthogonally adjacent to a corner. */
+    static final long C_SQUARES = 0x4281000000008142L;
+
+    /** Edge squares that are neither corners nor C-squares. */
+    static final long EDGES = 0x3C0081818181003CL;
+
+    /** Number of nodes between two checks of the search limits. */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /** Default memory budget of the transposition table, in MB. */
+    private static final int DEFAULT_HASH_MB = 16;
+
+    /** Default number of empties at which the endgame solver takes over. */
+    private static final int DEFAULT_ENDGAME_EMPTIES = 18;
+
+    /** Memory budget of the table of the endgame solver, in MB. */
+    private static final int ENDGAME_HASH_MB = 4;
+
+    /**
+     * Divisor of a limited budget giving the part spent on the heuristic
+     * search before an endgame solve; the solver gets the rest.
+     */
+    private static final int MIDGAME_SHARE_DIVISOR = 2;
+
+    /** Position searched in place. */
+    private final SearchBoard board = new SearchBoard();
+
+    /** Move lists, killers and history of this search thread. */
+    private final MoveOrderer orderer = new MoveOrderer();
+
+    /** Cache of previously searched positions. */
+    private TranspositionTable table;
+
+    /** Time budget per move in milliseconds, or 0 for no limit. */
+    private long timeLimitMillis = 1000;
+
+    /** Node budget per move, or 0 for no limit. */
+    private long nodeLimit;
+
+    /** Deepest iteration to run. */
+    private int maxDepth = 60;
+
+    /** Empties at or below which positions are solved exactly, or 0 to never solve. */
+    private int endgameEmpties = DEFAULT_ENDGAME_EMPTIES;
+
+    /** Exact solver, created on first use. */
+    private EndgameSolver solver;
+
+    /** Pattern evaluator attached to the board, or null for the heuristic. */
+    private PatternEvaluator evaluator;
+
+    /** Nodes visited in the current search. */
+    private long nodes;
+
+    /** System time at which the current search must stop. */
+    private long deadline;
+
+    /** Node count at which the current search must stop, or 0 for no limit. */
+    private long nodeBudget;
+
+    /** Set once a limit is reached; the running iteration is discarded. */
+    private boolean aborted;
+
+    /** Best move found by the running root iteration. */
+    private int rootBestMove;
+
+    /** Shared flag that stops this engine when set, or null. */
+    private AtomicBoolean stopSignal;
+
+    /** Raised by {@link #cancel()} to stop the running search. */
+    private final AtomicBoolean cancelSignal = new AtomicBoolean();
+
+    /** Set by {@link #prepareSearch()}; the next search keeps the cancel signal. */
+    private volatile boolean prepared;
+
+    /** Receives the result of every completed iteration, or null. */
+    private SearchListener listener;
+
+    /** First iteration depth; helper threads start deeper to diversify. */
+    private int firstDepth = 1;
+
+    /** True when this engine helps a parallel search and shares the table. */
+    private boolean helper;
+
+    /** Receives nodes, search time and table probes, or null. */
+    private EngineMetrics metrics;
+
+    /**
+     * Creates an engine with its own transposition table.
+     */
+    public SearchEngine() {
+        this(new TranspositionTable(DEFAULT_HASH_MB));
+    }
+
+    /**
+     * Creates an engine using the given transposition table, which may be
+     * shared with other engines.
+     *
+     * @param table the transposition table
+     */
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Sets the time budget for each move.
+     *
+     * @param timeLimitMillis milliseconds per move, or 0 for no limit
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Sets the node budget for each move.
+     *
+     * @param nodeLimit nodes per move, or 0 for no limit
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Sets the deepest iteration the search may run.
+     *
+     * @param maxDepth maximum depth in plies
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Sets the number of empty squares at which the exact endgame solver
+     * takes over from the heuristic search.
+     *
+     * @param endgameEmpties empties at or below which positions are solved,
+     *                       or 0 to disable the solver
+     */
+    public void setEndgameEmpties(int endgameEmpties) {
+        this.endgameEmpties = endgameEmpties;
+    }
+
+    /**
+     * Scores leaves with pattern tables instead of the square-class
+     * heuristic. The weights may be shared with other engines.
+     *
+     * @param weights the pattern weights, or null for the heuristic
+     */
+    public void setPatternWeights(PatternWeights weights) {
+        this.evaluator = weights == null ? null : new PatternEvaluator(weights);
+        board.setEvaluator(evaluator);
+    }
+
+    /**
+     * Replaces the transposition table with a new, empty one.
+     *
+     * @param megabytes memory budget of the table in MB
+     */
+    public void setHashSize(int megabytes) {
+        this.table = new TranspositionTable(megabytes);
+    }
+
+    /**
+     * Sets the listener told about every completed iteration.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the metrics receiving the nodes of every search and, unless
+     * this engine is a helper, the search time and the transposition table
+     * hits and misses.
+     *
+     * @param metrics the metrics, or null to stop recording
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Stops the search running at the time of the call, which then returns
+     * the move of its last completed iteration. May be called from any
+     * thread; a search started afterwards is not affected unless it was
+     * prepared before the call.
+     */
+    public void cancel() {
+        cancelSignal.set(true);
+    }
+
+    /**
+     * Readies the next search on the thread that may cancel it: a
+     * {@link #cancel()} made from now on stops that search, even if the
+     * search has not started yet.
+     */
+    public void prepareSearch() {
+        cancelSignal.set(false);
+        prepared = true;
+    }
+
+    /**
+     * Returns the transposition table, e.g. to read its counters.
+     *
+     * @return the table used by this engine
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Returns the move orderer, e.g. to read the cutoff rate of the first
+     * move tried in the last search.
+     *
+     * @return the move orderer of this engine
+     */
+    public MoveOrderer getMoveOrderer() {
+        return orderer;
+    }
+
+    /**
+     * Turns this engine into a helper of a parallel search. Helpers stop
+     * when the shared signal is set and leave the table generation to the
+     * main engine.
+     *
+     * @param stopSignal flag raised when the main search finishes
+     * @param firstDepth depth of the first iteration
+     */
+    void configureHelper(AtomicBoolean stopSignal, int firstDepth) {
+        this.stopSignal = stopSignal;
+        this.firstDepth = firstDepth;
+        this.helper = true;
+    }
+
+    @Override
+    public int selectMove(long player, long opponent) {
+        return search(player, opponent).getBestMove();
+    }
+
+    /**
+     * Searches the given position within the configured limits. Emits a
+     * {@link SearchEvent} when Java Flight Recorder records it.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opposing player
+     * @return the best move found and the search statistics
+     */
+    public SearchResult search(long player, long opponent) {
+
+        SearchEvent event = new SearchEvent();
+        event.begin();
+
+        long hits = table.getHits();
+        long misses = table.getMisses();
+        SearchResult result = run(player, opponent);
+
+        if (metrics != null) {
+            metrics.recordNodes(result.getNodes());
+            metrics.recordCutoffs(orderer.getCutoffs(), orderer.getFirstMoveCutoffs());
+            if (!helper) {
+                metrics.recordSearch(result.getElapsedNanos());
+                metrics.recordTableProbes(table.getHits() - hits, table.getMisses() - misses);
+            }
+        }
+
+        if (event.shouldCommit()) {
+            event.bestMove = result.getBestMove();
+            event.depth = result.getDepth();
+            event.nodes = result.getNodes();
+            event.score = result.getScore();
+            event.empties = Long.bitCount(~(player | opponent));
+            event.cutoffs = orderer.getCutoffs();
+            event.firstMoveCutoffRate = orderer.getFirstMoveCutoffRate();
+            event.helper = helper;
+            event.commit();
+        }
+
+        return result;
+    }
+
+    /**
+     * Runs a search for {@link #search}, without recording metrics.
+     */
+    private SearchResult run(long player, long opponent) {
+
+        long start = System.nanoTime();
+        board.reset(player, opponent);
+        orderer.newSearch();
+        nodes = 0;
+        aborted = false;
+        if (!prepared) {
+            cancelSignal.set(false);
+        }
+        prepared = false;
+        deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+        nodeBudget = nodeLimit;
+        if (!helper) {
+            table.newSearch();
+        }
+
+        long moves = board.legalMoves();
+
+        if (moves == 0) {
+            return new SearchResult(SearchBoard.PASS, 0, 0, 0, System.nanoTime() - start);
+        }
+
+        int empties = Long.bitCount(board.getEmpty());
+
+        boolean solving = !helper && empties <= endgameEmpties;
+        boolean limited = deadline != Long.MAX_VALUE || nodeBudget > 0;
+
+        if (solving && !limited) {
+            // Without limits the solver always finishes unless cancelled.
+            SearchResult solved = solveEndgame(player, opponent, start);
+            if (solved != null) {
+                if (listener != null) {
+                    listener.iterationCompleted(solved);
+                }
+                return solved;
+            }
+            aborted = false;
+        }
+
+        long fullDeadline = deadline;
+
+        if (solving && limited) {
+            // The midgame iterations get the first part of the budget, so a
+            // solve that runs out of the rest still leaves their move.
+            if (deadline != Long.MAX_VALUE) {
+                deadline = start + (deadline - start) / MIDGAME_SHARE_DIVISOR;
+            }
+            if (nodeBudget > 0) {
+                nodeBudget = Math.max(1, nodeBudget / MIDGAME_SHARE_DIVISOR);
+            }
+        }
+
+        int bestMove = MoveOrderer.firstStatic(moves);
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+
+            int score = searchRoot(depth, moves, bestMove);
+
+            if (aborted) {
+                break;
+            }
+
+            bestMove = rootBestMove;
+            bestScore = score;
+            completedDepth = depth;
+            table.store(board.getHash(), depth, TranspositionTable.EXACT, score, bestMove);
+
+            if (listener != null) {
+                listener.iterationCompleted(new SearchResult(bestMove, bestScore, completedDepth, nodes,
+                                                             System.nanoTime() - start));
+            }
+
+            // Passes do not consume depth, so this iteration reached every game end.
+            if (depth >= empties) {
+                break;
+            }
+        }
+
+        deadline = fullDeadline;
+        nodeBudget = nodeLimit;
+
+        if (solving && limited && completedDepth < empties && !cancelSignal.get()) {
+            aborted = false;
+            SearchResult solved = solveEndgame(player, opponent, start);
+            if (solved != null) {
+                if (listener != null) {
+                    listener.iterationCompleted(solved);
+                }
+                return solved;
+            }
+        }
+
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Solves the position exactly within what is left of the limits of this
+     * search. The nodes of the solver are added to those of the search,
+     * whether it finishes or not.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opposing player
+     * @param start system time at which the search started
+     * @return the exact result, scored like a finished game, or null if a
+     *         limit was reached first
+     */
+    private SearchResult solveEndgame(long player, long opponent, long start) {
+
+        if (nodeBudget > 0 && nodes >= nodeBudget) {
+            return null;
+        }
+
+        if (solver == null) {
+            solver = new EndgameSolver(ENDGAME_HASH_MB);
+        }
+
+        solver.setLimits(deadline, nodeBudget > 0 ? nodeBudget - nodes : 0, cancelSignal);
+        SearchResult solved = solver.solve(player, opponent);
+        nodes += solver.getNodes();
+
+        if (solved == null) {
+            return null;
+        }
+
+        int diff = solved.getScore();
+        int score = diff > 0 ? WIN + diff : diff < 0 ? -WIN + diff : 0;
+
+        return new SearchResult(solved.getBestMove(), score, solved.getDepth(), nodes,
+                                System.nanoTime() - start);
+    }
+
+    /**
+     * Runs one iteration at the root, trying the previous best move first.
+     *
+     * @param depth remaining depth in plies
+     * @param moves legal moves at the root
+     * @param firstMove move to try first
+     * @return the score of the best root move
+     */
+    private int searchRoot(int depth, long moves, int firstMove) {
+
+        rootBestMove = firstMove;
+
+        int count = orderer.order(0, board.getSide(), board.getPlayer(), board.getOpponent(),
+                                  moves, firstMove, depth);
+        int alpha = -INFINITY;
+
+        for (int i = 0; i < count && !aborted; i++) {
+            int square = orderer.getMove(0, i);
+
+            board.makeMove(square);
+            int score = -negamax(depth - 1, -INFINITY, -alpha, false);
+            board.undoMove();
+
+            if (score > alpha && !aborted) {
+                alpha = score;
+                rootBestMove = square;
+            }
+        }
+
+        return alpha;
+    }
+
+    /**
+     * Negamax search with alpha-beta pruning.
+     *
+     * @param depth remaining depth in plies
+     * @param alpha lower bound of the search window
+     * @param beta upper bound of the search window
+     * @param passed true if the previous ply was a pass
+     * @return the score of the position from the mover's point of view
+     */
+    private int negamax(int depth, int alpha, int beta, boolean passed) {
+
+        nodes++;
+
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+            checkLimits();
+        }
+
+        if (aborted) {
+            return 0;
+        }
+
+        long moves = board.legalMoves();
+
+        if (moves == 0) {
+            if (passed) {
+                return finalScore(board.getPlayer(), board.getOpponent());
+            }
+
+            board.makeMove(SearchBoard.PASS);
+            int score = -negamax(depth, -beta, -alpha, true);
+            board.undoMove();
+            return score;
+        }
+
+        if (depth == 0) {
+            if (evaluator != null) {
+                int mobility = Long.bitCount(moves) - Long.bitCount(board.opponentMoves());
+                return evaluator.evaluate(board.getSide(), Long.bitCount(board.getEmpty()), mobility);
+            }
+            return evaluate(board.getPlayer(), board.getOpponent(), moves);
+        }
+
+        long hash = board.getHash();
+        long entry = table.probe(hash);
+        int hashMove = SearchBoard.PASS;
+
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+
+            if (TranspositionTable.depth(entry) >= depth) {
+                int stored = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && stored >= beta)
+                        || (bound == TranspositionTable.UPPER && stored <= alpha)) {
+                    return stored;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = SearchBoard.PASS;
+
+        int ply = board.getPly();
+        int side = board.getSide();
+        int tried = 0;
+
+        // The table move often cuts off on its own, before the others are ordered.
+        if (hashMove != SearchBoard.PASS && (moves & (1L << hashMove)) != 0) {
+            moves &= ~(1L << hashMove);
+            tried = 1;
+
+            board.makeMove(hashMove);
+            best = -negamax(depth - 1, -beta, -alpha, false);
+            board.undoMove();
+            bestMove = hashMove;
+
+            if (best > alpha) {
+                alpha = best;
+
+                if (alpha >= beta) {
+                    if (!aborted) {
+                        orderer.recordCutoff(ply, side, hashMove, depth, 0);
+                    }
+                    moves = 0;
+                }
+            }
+        }
+
+        int count = moves == 0 ? 0
+                  : orderer.order(ply, side, board.getPlayer(), board.getOpponent(), moves, SearchBoard.PASS, depth);
+
+        for (int i = 0; i < count; i++) {
+            int square = orderer.getMove(ply, i);
+
+            board.makeMove(square);
+            int score = -negamax(depth - 1, -beta, -alpha, false);
+            board.undoMove();
+
+            if (score > best) {
+                best = score;
+                bestMove = square;
+
+                if (score > alpha) {
+                    alpha = score;
+
+                    if (alpha >= beta) {
+                        if (!aborted) {
+                            orderer.recordCutoff(ply, side, square, depth, tried + i);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (aborted) {
+            return 0;
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                  : best >= beta ? TranspositionTable.LOWER
+                  : TranspositionTable.EXACT;
+        table.store(hash, depth, bound, best, bestMove);
+
+        return best;
+    }
+
+    /**
+     * Stops the search once the time or node budget is exhausted.
+     */
+    private void checkLimits() {
+
+        if (nodeBudget > 0 && nodes >= nodeBudget) {
+            aborted = true;
+        } else if (stopSignal != null && stopSignal.get()) {
+            aborted = true;
+        } else if (cancelSignal.get()) {
+            aborted = true;
+        } else if (System.nanoTime() >= deadline) {
+            aborted = true;
+        }
+    }
+
+    /**
+     * Scores a finished game from the point of view of the given player.
+     *
+     * @param player pieces of the player
+     * @param opponent pieces of the opponent
+     * @return a win or loss score offset by the disc difference, or 0
+     */
+    static int finalScore(long player, long opponent) {
+
+        int diff = Long.bitCount(player) - Long.bitCount(opponent);
+
+        if (diff > 0) {
+            return WIN + diff;
+        }
+
+        if (diff < 0) {
+            return -WIN + diff;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Heuristic evaluation of a position based on square classes and
+     * mobility, from the point of view of the player to move.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opposing player
+     * @param moves legal moves of the player to move
+     * @return the heuristic score
+     */
+    static int evaluate(long player, long opponent, long moves) {
+
+        int corners = Long.bitCount(player & CORNERS) - Long.bitCount(opponent & CORNERS);
+        int xSquares = Long.bitCount(player & X_SQUARES) - Long.bitCount(opponent & X_SQUARES);
+        int cSquares = Long.bitCount(player & C_SQUARES) - Long.bitCount(opponent & C_SQUARES);
+        int edges = Long.bitCount(player & EDGES) - Long.bitCount(opponent & EDGES);
+        int mobility = Long.bitCount(moves) - Long.bitCount(BitBoard.legalMoves(opponent, player));
+
+        return 100 * corners - 40 * xSquares - 15 * cSquares + 5 * edges + 10 * mobility;
+    }
+}
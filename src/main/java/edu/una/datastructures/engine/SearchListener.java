@@ -0,0 +1,20 @@
+package edu.una.datastructures.engine;
+
+/**
+ * Receives the progress of a search while it runs, for instance to show it
+ * in a user interface.
+ * <p>
+ * Listeners are called on the searching thread, so they should return
+ * quickly and hand the result over to their own thread if needed.
+ */
+public interface SearchListener {
+
+    /**
+     * Called when an iteration of the search completes, and once when the
+     * endgame solver finds the exact result.
+     *
+     * @param progress best move, score and depth so far, with the nodes
+     *                 visited and the time elapsed since the search started
+     */
+    void iterationCompleted(SearchResult progress);
+}
@@ -0,0 +1,79 @@
+package edu.una.datastructures.engine;
+
+/**
+ * Outcome of a search: the chosen move together with the statistics of
+ * the last completed iteration.
+ */
+public final class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    /**
+     * Creates a search result.
+     *
+     * @param bestMove square of the best move, or {@link SearchBoard#PASS}
+     * @param score score of the best move from the mover's point of view
+     * @param depth deepest fully completed iteration
+     * @param nodes number of nodes visited
+     * @param elapsedNanos wall-clock duration of the search
+     */
+    public SearchResult(int bestMove, int score, int depth, long nodes, long elapsedNanos) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the square of the best move, or {@link SearchBoard#PASS}
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return the score of the best move from the mover's point of view
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the deepest fully completed iteration
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the number of nodes visited
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the wall-clock duration of the search in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the search speed in nodes per second
+     */
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "move=" + bestMove + " score=" + score + " depth=" + depth
+                + " nodes=" + nodes + " nps=" + getNodesPerSecond();
+    }
+}
@@ -0,0 +1,255 @@
+package edu.una.datastructures.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table keyed by Zobrist hashes.
+ * <p>
+ * Entries are stored in two primitive {@code long} arrays: one for the
+ * verification key and one for the packed entry data (score, depth, bound,
+ * best move and search generation). The table is organized in buckets of
+ * two slots. The first slot is depth-preferred and keeps the most valuable
+ * entry; the second slot always receives the newest entry that did not
+ * qualify for the first one.
+ * <p>
+ * Each key is stored exclusive-or'ed with its data, so an entry that was
+ * torn by concurrent writers fails verification instead of returning
+ * mismatched data. This makes the table safe to share between search
+ * threads without locks; the hit, miss and collision counters are plain
+ * fields and only approximate when several threads update them.
+ */
+public final class TranspositionTable {
+
+    /** Bound type: the stored score is exact. */
+    public static final int EXACT = 1;
+
+    /** Bound type: the stored score is a lower bound (fail-high). */
+    public static final int LOWER = 2;
+
+    /** Bound type: the stored score is an upper bound (fail-low). */
+    public static final int UPPER = 3;
+
+    /** Value returned by {@link #probe(long)} when the position is absent. */
+    public static final long MISS = 0;
+
+    /** Bytes used by one slot: a key and a data word. */
+    private static final int BYTES_PER_SLOT = 16;
+
+    /** Verification keys, each exclusive-or'ed with its data word. */
+    private final long[] keys;
+
+    /** Packed entry data. */
+    private final long[] data;
+
+    /** Mask selecting a bucket from a hash. */
+    private final int bucketMask;
+
+    /** Current search generation, used to age out old entries. */
+    private int generation;
+
+    private long hits;
+    private long misses;
+    private long collisions;
+
+    /**
+     * Creates a table using at most the given amount of memory.
+     *
+     * @param megabytes memory budget in MB, at least 1
+     */
+    public TranspositionTable(int megabytes) {
+
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB");
+        }
+
+        long slots = (long) megabytes * 1024 * 1024 / BYTES_PER_SLOT;
+        int buckets = Integer.highestOneBit((int) Math.min(slots / 2, 1 << 30));
+
+        this.keys = new long[buckets * 2];
+        this.data = new long[buckets * 2];
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param hash the Zobrist hash of the position
+     * @return the packed entry data, or {@link #MISS}
+     */
+    public long probe(long hash) {
+
+        int slot = ((int) hash & bucketMask) << 1;
+
+        long first = data[slot];
+        if ((keys[slot] ^ first) == hash && first != 0) {
+            hits++;
+            return first;
+        }
+
+        long second = data[slot + 1];
+        if ((keys[slot + 1] ^ second) == hash && second != 0) {
+            hits++;
+            return second;
+        }
+
+        misses++;
+
+        if (first != 0 || second != 0) {
+            collisions++;
+        }
+
+        return MISS;
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param hash the Zobrist hash of the position
+     * @param depth the depth searched
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @param score the score found
+     * @param move the best move found, or {@link SearchBoard#PASS}
+     */
+    public void store(long hash, int depth, int bound, int score, int move) {
+
+        int slot = ((int) hash & bucketMask) << 1;
+        long entry = pack(depth, bound, score, move, generation);
+
+        long first = data[slot];
+        boolean sameKey = (keys[slot] ^ first) == hash;
+
+        if (first == 0
+                || sameKey
+                || depth >= depth(first)
+                || generation(first) != generation) {
+            data[slot] = entry;
+            keys[slot] = hash ^ entry;
+            return;
+        }
+
+        data[slot + 1] = entry;
+        keys[slot + 1] = hash ^ entry;
+    }
+
+    /**
+     * Starts a new search generation, so entries from earlier searches lose
+     * their priority in the depth-preferred slot.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Removes every entry and resets the counters.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        generation = 0;
+        resetStatistics();
+    }
+
+    /**
+     * Resets the hit, miss and collision counters.
+     */
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        collisions = 0;
+    }
+
+    /**
+     * @return the number of probes that found their position
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of probes that did not find their position
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of misses whose bucket held other positions
+     */
+    public long getCollisions() {
+        return collisions;
+    }
+
+    /**
+     * @return the fraction of probes that found their position
+     */
+    public double getHitRate() {
+        long probes = hits + misses;
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * @return the number of entries the table can hold
+     */
+    public int getCapacity() {
+        return data.length;
+    }
+
+    /**
+     * @return the memory used by the entry arrays, in bytes
+     */
+    public long getMemoryBytes() {
+        return (long) data.length * BYTES_PER_SLOT;
+    }
+
+    /**
+     * @param entry packed entry data
+     * @return the stored score
+     */
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * @param entry packed entry data
+     * @return the stored depth
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    /**
+     * @param entry packed entry data
+     * @return the stored bound type
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /**
+     * @param entry packed entry data
+     * @return the stored best move, or {@link SearchBoard#PASS}
+     */
+    public static int move(long entry) {
+        return ((int) (entry >>> 42) & 0x7F) - 1;
+    }
+
+    /**
+     * @param entry packed entry data
+     * @return the generation in which the entry was stored
+     */
+    private static int generation(long entry) {
+        return (int) (entry >>> 49) & 0xFF;
+    }
+
+    /**
+     * Packs the fields of an entry into one word. The bound type is never
+     * zero, so a packed entry is never equal to {@link #MISS}.
+     */
+    private static long pack(int depth, int bound, int score, int move, int generation) {
+        return (score & 0xFFFFFFFFL)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) (move + 1) << 42)
+                | ((long) generation << 49);
+    }
+}
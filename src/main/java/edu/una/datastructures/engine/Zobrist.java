@@ -0,0 +1,97 @@
+package edu.una.datastructures.engine;
+
+/**
+ * Zobrist keys used to hash positions.
+ * <p>
+ * Every square has one random key per color; the hash of a position is the
+ * exclusive-or of the keys of its occupied squares, plus {@link #SIDE_TO_MOVE}
+ * when the second color is to move. Keys come from a fixed seed so hashes
+ * are stable across runs and can be stored on disk.
+ */
+public final class Zobrist {
+
+    /** Key added when the second color is to move. */
+    public static final long SIDE_TO_MOVE;
+
+    /** Keys indexed by {@code color * 64 + square}. */
+    private static final long[] PIECE_KEYS = new long[128];
+
+    /** Keys that turn a piece of one color into the other on a square. */
+    private static final long[] FLIP_KEYS = new long[64];
+
+    static {
+        long seed = 0x5EED_0F_0BE110L;
+
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            PIECE_KEYS[i] = mix(seed);
+        }
+
+        for (int square = 0; square < FLIP_KEYS.length; square++) {
+            FLIP_KEYS[square] = PIECE_KEYS[square] ^ PIECE_KEYS[64 + square];
+        }
+
+        SIDE_TO_MOVE = mix(seed + 0x9E3779B97F4A7C15L);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a piece on a square.
+     *
+     * @param color 0 for the first color, 1 for the second
+     * @param square square index in the range 0-63
+     * @return the piece key
+     */
+    public static long pieceKey(int color, int square) {
+        return PIECE_KEYS[(color << 6) | square];
+    }
+
+    /**
+     * Returns the key that changes the color of the piece on a square.
+     *
+     * @param square square index in the range 0-63
+     * @return the exclusive-or of both piece keys of the square
+     */
+    public static long flipKey(int square) {
+        return FLIP_KEYS[square];
+    }
+
+    /**
+     * Computes the full hash of a position.
+     *
+     * @param first pieces of the first color
+     * @param second pieces of the second color
+     * @param side 0 if the first color is to move, 1 otherwise
+     * @return the Zobrist hash
+     */
+    public static long hash(long first, long second, int side) {
+
+        long hash = side == 0 ? 0 : SIDE_TO_MOVE;
+
+        while (first != 0) {
+            hash ^= PIECE_KEYS[Long.numberOfTrailingZeros(first)];
+            first &= first - 1;
+        }
+
+        while (second != 0) {
+            hash ^= PIECE_KEYS[64 + Long.numberOfTrailingZeros(second)];
+            second &= second - 1;
+        }
+
+        return hash;
+    }
+
+    /**
+     * SplitMix64 finalizer used to derive well-distributed keys.
+     *
+     * @param z the value to mix
+     * @return the mixed value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,21 @@
+package edu.una.datastructures.logic;
+
+import edu.una.datastructures.model.Node;
+
+/**
+ * Receives the nodes changed by a {@link GameController}, so views can
+ * update only the cells that changed instead of redrawing the board.
+ * <p>
+ * A node is reported when its piece changes (the placed piece and the
+ * pieces flipped by a move, or restored by an undo) or when its valid-move
+ * flag changes. The same node may be reported more than once per move.
+ */
+public interface BoardListener {
+
+    /**
+     * Called after the piece or the valid-move flag of a node changed.
+     *
+     * @param node the changed node
+     */
+    void nodeChanged(Node node);
+}
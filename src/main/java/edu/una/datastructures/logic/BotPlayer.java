@@ -0,0 +1,19 @@
+package edu.una.datastructures.logic;
+
+/**
+ * Strategy used by {@link GameController} to choose the moves of the bot.
+ * <p>
+ * Positions are described from the point of view of the player to move,
+ * using the square masks of {@link edu.una.datastructures.model.BitBoard}.
+ */
+public interface BotPlayer {
+
+    /**
+     * Chooses a move for the player to move.
+     *
+     * @param player mask of the pieces of the player to move
+     * @param opponent mask of the pieces of the opposing player
+     * @return the square index of the chosen move, or -1 if there is none
+     */
+    int selectMove(long player, long opponent);
+}
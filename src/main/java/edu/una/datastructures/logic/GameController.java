@@ -1,14 +1,28 @@
 package edu.una.datastructures.logic;
 
+import edu.una.datastructures.metrics.EngineMetrics;
+import edu.una.datastructures.metrics.MoveEvent;
+import edu.una.datastructures.model.BitBoard;
 import edu.una.datastructures.model.Board;
 import edu.una.datastructures.model.Node;
 import edu.una.datastructures.model.PieceColor;
+import edu.una.datastructures.model.Position;
+import edu.una.datastructures.model.SquareSet;
+import java.util.function.IntSupplier;
 
 /**
  * Controls the overall flow of a Reversi game.
  * <p>
  * This class manages turn switching, move execution, game mode selection,
  * and end-of-game conditions, delegating rule validation to {@link GameLogic}.
+ * <p>
+ * Legal moves of both players are tracked by a {@link LegalMoveCache} on
+ * boards of up to 64 squares and by a {@link GridMoveCache} on larger ones,
+ * so turn checks and valid-move markers never rescan the whole board. The
+ * controller needs the moves of both players after every move; rescanning
+ * them was measured no faster than the grid cache even on 10x10, the
+ * smallest board over 64 squares. Bots and opening books work on 8x8 masks
+ * and are only consulted on 8x8 boards.
  */
 public class GameController {
 
@@ -18,6 +32,31 @@ public class GameController {
     /** Core game logic used for validation and piece flipping. */
     private final GameLogic logic;
 
+    /** Legal moves of both players on a board of up to 64 squares, or null. */
+    private final LegalMoveCache legalMoves;
+
+    /** Legal moves of both players on larger boards, or null. */
+    private final GridMoveCache gridMoves;
+
+    /** Squares flipped by the move being applied or undone on a grid board. */
+    private final int[] flipBuffer;
+
+    /** Moves played so far, used to undo them. */
+    private final MoveJournal journal = new MoveJournal();
+
+    /** Squares whose nodes are currently flagged as valid moves (up to 64 squares). */
+    private long markedMoves;
+
+    /** Squares whose nodes are currently flagged as valid moves (larger boards). */
+    private final SquareSet markedSquares;
+
+    /**
+     * Nodes by square, collected once by walking the links so that markers
+     * and listeners can be updated without walking from the top-left node
+     * every time.
+     */
+    private final Node[] nodes;
+
     /** Current player whose turn is active. */
     private PieceColor currentPlayer;
 
@@ -27,6 +66,27 @@ public class GameController {
     /** Color assigned to the bot player. */
     private PieceColor botColor;
 
+    /** Strategy used by the bot, or null to play the first valid move. */
+    private BotPlayer bot;
+
+    /** Opening book consulted before the bot, or null. */
+    private BotPlayer openingBook;
+
+    /** Receives the nodes changed by each move, or null. */
+    private BoardListener listener;
+
+    /**
+     * Position after the last move or undo, published for other threads
+     * once {@link #publishPositions()} was called; null before.
+     */
+    private volatile Position position;
+
+    /** True once positions are published after every move and undo. */
+    private boolean publishing;
+
+    /** Receives move latencies, board scans and bot timings, or null. */
+    private EngineMetrics metrics;
+
     /**
      * Creates a new game controller for the given board.
      * The game always starts with the black player.
@@ -36,6 +96,30 @@ public class GameController {
     public GameController(Board board) {
         this.board = board;
         this.logic = new GameLogic();
+
+        int squares = board.getGeometry().getSquares();
+
+        if (squares <= BitBoard.SQUARES) {
+            this.legalMoves = new LegalMoveCache(board.getSize(), board.getMask(PieceColor.BLACK),
+                                                 board.getMask(PieceColor.WHITE));
+            this.gridMoves = null;
+            this.flipBuffer = null;
+            this.markedSquares = null;
+        } else {
+            this.legalMoves = null;
+            this.gridMoves = new GridMoveCache(board);
+            this.flipBuffer = new int[squares];
+            this.markedSquares = SquareSet.create(squares);
+        }
+
+        this.nodes = new Node[squares];
+
+        for (Node row = board.getTopLeft(); row != null; row = row.getSouth()) {
+            for (Node node = row; node != null; node = node.getEast()) {
+                nodes[node.getIndex()] = node;
+            }
+        }
+
         this.currentPlayer = PieceColor.BLACK;
 
         ensureValidTurn();
@@ -49,8 +133,55 @@ public class GameController {
      * @param botColor the color assigned to the bot player
      */
     public void setGameMode(boolean playAgainstBot, PieceColor botColor) {
+        setGameMode(playAgainstBot, botColor, null);
+    }
+
+    /**
+     * Configures the game mode with a specific bot strategy.
+     *
+     * @param playAgainstBot true to enable human vs bot mode
+     * @param botColor the color assigned to the bot player
+     * @param bot the strategy used to choose bot moves, or null to play
+     *            the first valid move
+     */
+    public void setGameMode(boolean playAgainstBot, PieceColor botColor, BotPlayer bot) {
         this.playAgainstBot = playAgainstBot;
         this.botColor = botColor;
+        this.bot = bot;
+    }
+
+    /**
+     * Sets an opening book consulted before the bot strategy. The book
+     * answers -1 for positions it does not know, in which case the bot
+     * strategy is used.
+     *
+     * @param openingBook the book, or null to disable it
+     */
+    public void setOpeningBook(BotPlayer openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Sets the listener notified of every node whose piece or valid-move
+     * flag changes. The changes are taken from the flips of the move
+     * journal and the marker updates, so the board is never rescanned.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    public void setBoardListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the metrics receiving the latency of moves and move checks, the
+     * full-board scans and the bot think time. They are also passed to the
+     * rules engine.
+     *
+     * @param metrics the metrics, or null to stop measuring
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+        logic.setMetrics(metrics);
     }
 
     /**
@@ -63,24 +194,214 @@ public class GameController {
     }
 
     /**
-     * Attempts to play a move on the specified node.
+     * Attempts to play a move on the specified node. Played moves emit a
+     * {@link MoveEvent} when Java Flight Recorder records it.
      *
      * @param node the selected board position
      * @return true if the move was successfully applied
      */
     public boolean playMove(Node node) {
 
-        if (logic.isValidMove(node, currentPlayer)) {
-            logic.applyMove(node, currentPlayer);
+        MoveEvent event = new MoveEvent();
+        event.begin();
+
+        PieceColor mover = currentPlayer;
+        long begin = metrics != null ? System.nanoTime() : 0;
+        boolean played = play(node);
+
+        if (metrics != null) {
+            metrics.recordPlayMove(System.nanoTime() - begin);
+        }
+
+        if (played && event.shouldCommit()) {
+            event.square = node.getIndex();
+            event.player = mover.name();
+            event.flips = journal.getLastFlipCount();
+            event.boardSize = board.getSize();
+            event.commit();
+        }
+
+        return played;
+    }
+
+    /**
+     * Plays a move for {@link #playMove}, without measuring.
+     */
+    private boolean play(Node node) {
+
+        syncLegalMoves();
+
+        if (node != null && node.getIndex() >= 0 && isValidMove(node.getIndex(), currentPlayer)) {
+
+            if (legalMoves != null) {
+                PieceColor opponent = getOpponent(currentPlayer);
+                long before = board.getMask(opponent);
+
+                logic.applyMove(node, currentPlayer, journal);
+
+                long flipped = before & ~board.getMask(opponent);
+                legalMoves.update(node.getIndex(), flipped, currentPlayer);
+            } else {
+                logic.applyMove(node, currentPlayer, journal);
+                gridMoves.update(node.getIndex(), flipBuffer, copyLastFlips());
+            }
+
+            notifyLastMove();
             switchTurn();
             ensureValidTurn();
             markValidMoves();
+            publishPosition();
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Undoes the last move played through this controller, restoring the
+     * pieces, the player to move (and therefore any pass that followed the
+     * move) and the valid-move markers. No memory is allocated unless
+     * positions are published.
+     *
+     * @return true if a move was undone, false if there is none
+     */
+    public boolean undoMove() {
+
+        if (journal.isEmpty()) {
+            return false;
+        }
+
+        syncLegalMoves();
+
+        int square = journal.getLastPlaced().getIndex();
+        PieceColor mover = journal.getLastMover();
+
+        if (legalMoves != null) {
+            long before = board.getMask(mover);
+
+            logic.undoMove(journal);
+
+            long flipped = before & ~board.getMask(mover) & ~(1L << square);
+            legalMoves.revert(square, flipped, mover);
+
+            if (listener != null) {
+                for (long bits = flipped; bits != 0; bits &= bits - 1) {
+                    listener.nodeChanged(nodes[Long.numberOfTrailingZeros(bits)]);
+                }
+            }
+        } else {
+            int flipCount = copyLastFlips();
+            logic.undoMove(journal);
+            gridMoves.revert(square, flipBuffer, flipCount);
+
+            if (listener != null) {
+                for (int i = 0; i < flipCount; i++) {
+                    listener.nodeChanged(nodes[flipBuffer[i]]);
+                }
+            }
+        }
+
+        if (listener != null) {
+            listener.nodeChanged(nodes[square]);
+        }
+
+        currentPlayer = mover;
+        markValidMoves();
+        publishPosition();
+        return true;
+    }
+
+    /**
+     * Starts publishing an immutable snapshot of the game after every move
+     * and undo, for {@link #getPosition()}. Each snapshot is one small
+     * allocation, so games that are not read from other threads leave it
+     * off. Must be called from the thread playing the game.
+     *
+     * @throws IllegalStateException if the board is not 8x8
+     */
+    public void publishPositions() {
+
+        if (board.getSize() != BitBoard.SIZE) {
+            throw new IllegalStateException("Only available on 8x8 boards, not "
+                    + board.getSize() + "x" + board.getSize());
+        }
+
+        publishing = true;
+        publishPosition();
+    }
+
+    /**
+     * Returns an immutable snapshot of the game as of the last move or undo
+     * made through this controller. It may be read from any thread while
+     * the game goes on, and it stays valid after further moves.
+     *
+     * @return the current position
+     * @throws IllegalStateException if {@link #publishPositions()} was not
+     *         called
+     */
+    public Position getPosition() {
+
+        Position current = position;
+
+        if (current == null) {
+            throw new IllegalStateException("Positions are not published");
+        }
+
+        return current;
+    }
+
+    /**
+     * Replaces the published position after the pieces or the player to
+     * move changed. Reads the bitset mirror of the board, so it costs one
+     * small allocation and no traversal.
+     */
+    private void publishPosition() {
+        if (publishing) {
+            position = Position.of(board, currentPlayer);
+        }
+    }
+
+    /**
+     * Reports the placed node and the flipped nodes of the last journal
+     * frame to the listener.
+     */
+    private void notifyLastMove() {
+
+        if (listener == null) {
+            return;
+        }
+
+        for (int i = journal.getLastFlipCount() - 1; i >= 0; i--) {
+            listener.nodeChanged(journal.getLastFlipped(i));
+        }
+        listener.nodeChanged(journal.getLastPlaced());
+    }
+
+    /**
+     * Copies the squares flipped by the last journal frame into the flip
+     * buffer.
+     *
+     * @return the number of flipped squares
+     */
+    private int copyLastFlips() {
+
+        int count = journal.getLastFlipCount();
+        for (int i = 0; i < count; i++) {
+            flipBuffer[i] = journal.getLastFlipped(i).getIndex();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the journal of the moves played so far. The last recorded
+     * move is the one most recently played.
+     *
+     * @return the move journal
+     */
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
     /**
      * Switches the turn to the opposing player if a valid move exists.
      */
@@ -100,26 +421,111 @@ public class GameController {
      * @return true if at least one valid move exists
      */
     public boolean hasValidMove(PieceColor player) {
+        syncLegalMoves();
+        return legalMoves != null ? legalMoves.getLegalMoves(player) != 0
+                                  : !gridMoves.getLegalMoves(player).isEmpty();
+    }
 
-        Node rowStart = board.getTopLeft();
+    /**
+     * Returns the legal moves of a player as a square mask. Only available
+     * on boards of up to 64 squares.
+     *
+     * @param player the player to check
+     * @return mask of legal moves, using the row-major square indices of the board
+     * @throws IllegalStateException if the board has more than 64 squares
+     */
+    public long getValidMoves(PieceColor player) {
+        syncLegalMoves();
+        return legalMoves != null ? legalMoves.getLegalMoves(player)
+                                  : gridMoves.getLegalMoves(player).toLong();
+    }
 
-        while (rowStart != null) {
+    /**
+     * Determines whether a square is a legal move for a player, on boards
+     * of any size.
+     *
+     * @param square row-major square index
+     * @param player the player to check
+     * @return true if the move is legal
+     */
+    public boolean isValidMove(int square, PieceColor player) {
 
-            Node current = rowStart;
+        long begin = metrics != null ? System.nanoTime() : 0;
 
-            while (current != null) {
+        syncLegalMoves();
+        boolean valid = legalMoves != null ? legalMoves.isLegal(square, player)
+                                           : gridMoves.isLegal(square, player);
 
-                if (logic.isValidMove(current, player)) {
-                    return true;
-                }
+        if (metrics != null) {
+            metrics.recordControllerValidMove(System.nanoTime() - begin);
+        }
+        return valid;
+    }
 
-                current = current.getEast();
+    /**
+     * Finds the next legal move of a player, on boards of any size.
+     *
+     * @param player the player to check
+     * @param from the first square index to consider
+     * @return the smallest legal square at or after {@code from}, or -1
+     */
+    public int nextValidMove(PieceColor player, int from) {
+
+        syncLegalMoves();
+
+        if (gridMoves != null) {
+            return gridMoves.getLegalMoves(player).nextSetBit(from);
+        }
+
+        if (from >= BitBoard.SQUARES) {
+            return -1;
+        }
+        long remaining = legalMoves.getLegalMoves(player) & (-1L << from);
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+
+    /**
+     * Counts the legal moves of a player, on boards of any size.
+     *
+     * @param player the player to check
+     * @return the number of legal moves
+     */
+    public int countValidMoves(PieceColor player) {
+        syncLegalMoves();
+        return legalMoves != null ? Long.bitCount(legalMoves.getLegalMoves(player))
+                                  : gridMoves.getLegalMoves(player).count();
+    }
+
+    /**
+     * Rebuilds the legal move cache if the board was modified without
+     * going through this controller.
+     */
+    private void syncLegalMoves() {
+
+        if (gridMoves != null) {
+            if (!gridMoves.isSynchronized()) {
+                gridMoves.reset();
+                recordBoardScan();
             }
+            return;
+        }
 
-            rowStart = rowStart.getSouth();
+        long black = board.getMask(PieceColor.BLACK);
+        long white = board.getMask(PieceColor.WHITE);
+
+        if (!legalMoves.matches(black, white)) {
+            legalMoves.reset(black, white);
+            recordBoardScan();
         }
+    }
 
-        return false;
+    /**
+     * Counts a traversal of the whole board in the metrics, if any.
+     */
+    private void recordBoardScan() {
+        if (metrics != null) {
+            metrics.recordBoardScan();
+        }
     }
 
     /**
@@ -152,42 +558,59 @@ public class GameController {
 
     /**
      * Marks all valid moves for the current player on the board.
+     * Only nodes whose flag actually changes are updated.
      */
     public void markValidMoves() {
 
-        clearValidMoves();
+        if (gridMoves == null) {
+            updateMarkers(getValidMoves(currentPlayer));
+            return;
+        }
 
-        Node rowStart = board.getTopLeft();
+        syncLegalMoves();
+        SquareSet moves = gridMoves.getLegalMoves(currentPlayer);
 
-        while (rowStart != null) {
-            Node current = rowStart;
+        for (int square = markedSquares.nextSetBit(0); square >= 0; square = markedSquares.nextSetBit(square + 1)) {
+            if (!moves.get(square)) {
+                nodes[square].setValidMove(false);
+                markedSquares.clear(square);
+                if (listener != null) {
+                    listener.nodeChanged(nodes[square]);
+                }
+            }
+        }
 
-            while (current != null) {
-                if (logic.isValidMove(current, currentPlayer)) {
-                    current.setValidMove(true);
+        for (int square = moves.nextSetBit(0); square >= 0; square = moves.nextSetBit(square + 1)) {
+            if (!markedSquares.get(square)) {
+                nodes[square].setValidMove(true);
+                markedSquares.set(square);
+                if (listener != null) {
+                    listener.nodeChanged(nodes[square]);
                 }
-                current = current.getEast();
             }
-            rowStart = rowStart.getSouth();
         }
     }
 
     /**
-     * Clears all previously marked valid moves from the board.
+     * Sets the valid-move flag of the nodes so that exactly the given
+     * squares are marked, touching only the nodes that change.
+     *
+     * @param squares the squares to mark
      */
-    private void clearValidMoves() {
+    private void updateMarkers(long squares) {
 
-        Node rowStart = board.getTopLeft();
-
-        while (rowStart != null) {
-            Node current = rowStart;
+        long changed = markedMoves ^ squares;
 
-            while (current != null) {
-                current.setValidMove(false);
-                current = current.getEast();
+        while (changed != 0) {
+            int square = Long.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            nodes[square].setValidMove((squares & (1L << square)) != 0);
+            if (listener != null) {
+                listener.nodeChanged(nodes[square]);
             }
-            rowStart = rowStart.getSouth();
         }
+
+        markedMoves = squares;
     }
 
     /**
@@ -206,29 +629,108 @@ public class GameController {
     }
 
     /**
-     * Executes a move for the bot player when applicable.
-     * The bot selects the first available valid move.
+     * Determines whether the bot is the player to move.
+     *
+     * @return true if the game is against a bot, not over, and the bot has
+     *         the turn
+     */
+    public boolean isBotTurn() {
+        return playAgainstBot && currentPlayer == botColor && !isGameOver();
+    }
+
+    /**
+     * Executes a move for the bot player when applicable, on the calling
+     * thread.
+     *
+     * @see #prepareBotMove()
      */
     public void playBotMoveIfNeeded() {
 
-        if (!playAgainstBot || currentPlayer != botColor) {
-            return;
+        IntSupplier search = prepareBotMove();
+
+        if (search != null) {
+            playBotMove(search.getAsInt());
         }
+    }
 
-        Node rowStart = board.getTopLeft();
+    /**
+     * Captures the current position for the bot and returns the computation
+     * that chooses its move. The computation does not touch the controller
+     * or the board, so it can run on a background thread while the caller
+     * keeps the game responsive; its result is then passed to
+     * {@link #playBotMove(int)} on the game's thread.
+     * <p>
+     * A known opening book move is chosen first; otherwise the configured
+     * {@link BotPlayer} chooses the move, and without one the bot selects
+     * the first available valid move. Boards other than 8x8 always use the
+     * first valid move.
+     *
+     * @return the move computation, returning a square or -1, or null if it
+     *         is not the bot's turn
+     */
+    public IntSupplier prepareBotMove() {
 
-        while (rowStart != null) {
-            Node current = rowStart;
+        if (!isBotTurn()) {
+            return null;
+        }
 
-            while (current != null) {
-                if (logic.isValidMove(current, currentPlayer)) {
-                    playMove(current);
-                    return;
-                }
-                current = current.getEast();
+        if (board.getSize() != BitBoard.SIZE) {
+            int square = nextValidMove(currentPlayer, 0);
+            return () -> square;
+        }
+
+        long player = board.getMask(currentPlayer);
+        long opponent = board.getMask(getOpponent(currentPlayer));
+        long moves = getValidMoves(currentPlayer);
+        BotPlayer book = openingBook;
+        BotPlayer engine = bot;
+        EngineMetrics botMetrics = metrics;
+
+        IntSupplier search = () -> {
+            int square = book != null ? book.selectMove(player, opponent) : -1;
+            boolean known = square >= 0 && (moves & (1L << square)) != 0;
+
+            if (book != null && botMetrics != null) {
+                botMetrics.recordBookProbe(known);
             }
-            rowStart = rowStart.getSouth();
+
+            if (known) {
+                return square;
+            }
+
+            if (engine != null) {
+                return engine.selectMove(player, opponent);
+            }
+
+            return moves == 0 ? -1 : Long.numberOfTrailingZeros(moves);
+        };
+
+        if (botMetrics == null) {
+            return search;
+        }
+
+        return () -> {
+            long begin = System.nanoTime();
+            int square = search.getAsInt();
+            botMetrics.recordBotMove(System.nanoTime() - begin);
+            return square;
+        };
+    }
+
+    /**
+     * Plays a move chosen for the bot.
+     *
+     * @param square the chosen square, or -1 for none
+     * @return true if the move was played; false if it is no longer the
+     *         bot's turn or the move is not valid
+     */
+    public boolean playBotMove(int square) {
+
+        if (!isBotTurn() || square < 0 || square >= nodes.length) {
+            return false;
         }
+
+        return playMove(nodes[square]);
     }
 
     /**
@@ -239,6 +741,8 @@ public class GameController {
      */
     public int countPieces(PieceColor color) {
 
+        recordBoardScan();
+
         int count = 0;
         Node rowStart = board.getTopLeft();
 
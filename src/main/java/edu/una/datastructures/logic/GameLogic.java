@@ -1,5 +1,8 @@
 package edu.una.datastructures.logic;
 
+import edu.una.datastructures.metrics.ApplyMoveEvent;
+import edu.una.datastructures.metrics.EngineMetrics;
+import edu.una.datastructures.model.BoardGeometry;
 import edu.una.datastructures.model.Node;
 import edu.una.datastructures.model.PieceColor;
 
@@ -8,21 +11,27 @@ import edu.una.datastructures.model.PieceColor;
  * <p>
  * All rule checks and piece transformations are performed by traversing
  * the linked node structure directly, without using arrays or matrices.
+ * Rays are walked through the direction-indexed neighbors of each node,
+ * bounded by the node's precomputed distance to the edge, so every walk is
+ * a counted loop and directions too short to capture are skipped.
+ * <p>
+ * Every {@link #applyMove} call emits an {@link ApplyMoveEvent} when Java
+ * Flight Recorder records it.
  */
 public class GameLogic {
 
+    /** Receives call latencies, or null to skip measuring. */
+    private EngineMetrics metrics;
+
     /**
-     * Direction constants used to preserve traversal direction
-     * during validation and piece flipping.
+     * Sets the metrics receiving the latency of every
+     * {@link #isValidMove} and {@link #applyMove} call.
+     *
+     * @param metrics the metrics, or null to stop measuring
      */
-    private static final int NORTH = 0;
-    private static final int SOUTH = 1;
-    private static final int EAST  = 2;
-    private static final int WEST  = 3;
-    private static final int NE    = 4;
-    private static final int NW    = 5;
-    private static final int SE    = 6;
-    private static final int SW    = 7;
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     /**
      * Determines whether placing a piece on the given node
@@ -34,20 +43,35 @@ public class GameLogic {
      */
     public boolean isValidMove(Node start, PieceColor currentPlayer) {
 
+        if (metrics == null) {
+            return canPlay(start, currentPlayer);
+        }
+
+        long begin = System.nanoTime();
+        boolean valid = canPlay(start, currentPlayer);
+        metrics.recordRuleValidMove(System.nanoTime() - begin);
+        return valid;
+    }
+
+    /**
+     * Checks the rules for {@link #isValidMove}, without measuring.
+     */
+    private boolean canPlay(Node start, PieceColor currentPlayer) {
+
         if (start == null || start.getPiece() != PieceColor.EMPTY) {
             return false;
         }
 
         PieceColor opponent = getOpponent(currentPlayer);
 
-        return checkDirection(start.getNorth(), currentPlayer, opponent, NORTH)
-            || checkDirection(start.getSouth(), currentPlayer, opponent, SOUTH)
-            || checkDirection(start.getEast(), currentPlayer, opponent, EAST)
-            || checkDirection(start.getWest(), currentPlayer, opponent, WEST)
-            || checkDirection(start.getNorthEast(), currentPlayer, opponent, NE)
-            || checkDirection(start.getNorthWest(), currentPlayer, opponent, NW)
-            || checkDirection(start.getSouthEast(), currentPlayer, opponent, SE)
-            || checkDirection(start.getSouthWest(), currentPlayer, opponent, SW);
+        return checkDirection(start, currentPlayer, opponent, BoardGeometry.NORTH)
+            || checkDirection(start, currentPlayer, opponent, BoardGeometry.SOUTH)
+            || checkDirection(start, currentPlayer, opponent, BoardGeometry.EAST)
+            || checkDirection(start, currentPlayer, opponent, BoardGeometry.WEST)
+            || checkDirection(start, currentPlayer, opponent, BoardGeometry.NORTH_EAST)
+            || checkDirection(start, currentPlayer, opponent, BoardGeometry.NORTH_WEST)
+            || checkDirection(start, currentPlayer, opponent, BoardGeometry.SOUTH_EAST)
+            || checkDirection(start, currentPlayer, opponent, BoardGeometry.SOUTH_WEST);
     }
 
     /**
@@ -55,117 +79,183 @@ public class GameLogic {
      * A valid direction must contain at least one opponent piece
      * followed by a closing piece of the current player.
      *
-     * @param current the first node in the selected direction
+     * @param start the node where the move is attempted
      * @param player the current player
      * @param opponent the opposing player
      * @param direction the direction of traversal
      * @return true if the direction satisfies capture rules
      */
-    private boolean checkDirection(Node current,
-                                   PieceColor player,
-                                   PieceColor opponent,
-                                   int direction) {
+    private static boolean checkDirection(Node start,
+                                          PieceColor player,
+                                          PieceColor opponent,
+                                          int direction) {
 
+        Node current = start.getNeighbor(direction);
+
+        // Most directions are rejected here, before the ray length is read.
         if (current == null || current.getPiece() != opponent) {
             return false;
         }
 
-        while (current != null) {
-
-            if (current.getPiece() == PieceColor.EMPTY) {
-                return false;
-            }
+        for (int remaining = start.getRayLength(direction) - 1; remaining > 0; remaining--) {
+            current = current.getNeighbor(direction);
+            PieceColor piece = current.getPiece();
 
-            if (current.getPiece() == player) {
-                return true;
+            if (piece != opponent) {
+                return piece == player;
             }
-
-            current = advance(current, direction);
         }
 
         return false;
     }
 
     /**
-     * Advances to the next node in the given traversal direction.
+     * Applies a valid move to the board, placing the piece
+     * and flipping all affected opponent pieces.
      *
-     * @param node the current node
-     * @param direction the direction of movement
-     * @return the adjacent node in the given direction, or null if none exists
+     * @param start the node where the piece is placed
+     * @param currentPlayer the player performing the move
      */
-    private Node advance(Node node, int direction) {
-
-        switch (direction) {
-            case NORTH: return node.getNorth();
-            case SOUTH: return node.getSouth();
-            case EAST:  return node.getEast();
-            case WEST:  return node.getWest();
-            case NE:    return node.getNorthEast();
-            case NW:    return node.getNorthWest();
-            case SE:    return node.getSouthEast();
-            case SW:    return node.getSouthWest();
-            default:    return null;
-        }
+    public void applyMove(Node start, PieceColor currentPlayer) {
+        applyMove(start, currentPlayer, null);
     }
 
     /**
-     * Applies a valid move to the board, placing the piece
-     * and flipping all affected opponent pieces.
+     * Applies a valid move to the board and records it in a journal,
+     * so it can later be reverted with {@link #undoMove(MoveJournal)}.
      *
      * @param start the node where the piece is placed
      * @param currentPlayer the player performing the move
+     * @param journal the journal receiving the placed and flipped nodes,
+     *                or null to skip recording
+     * @return true if the move was valid and applied
      */
-    public void applyMove(Node start, PieceColor currentPlayer) {
+    public boolean applyMove(Node start, PieceColor currentPlayer, MoveJournal journal) {
+
+        ApplyMoveEvent event = new ApplyMoveEvent();
+        event.begin();
+
+        long begin = metrics != null ? System.nanoTime() : 0;
+        int flips = place(start, currentPlayer, journal);
+
+        if (metrics != null) {
+            metrics.recordRuleApplyMove(System.nanoTime() - begin);
+        }
+
+        if (event.shouldCommit()) {
+            event.square = start != null ? start.getIndex() : -1;
+            event.flips = flips;
+            event.commit();
+        }
+
+        return flips > 0;
+    }
+
+    /**
+     * Validates and applies a move for {@link #applyMove}, without
+     * measuring.
+     *
+     * @return the number of flipped pieces, or 0 if the move is not valid
+     */
+    private int place(Node start, PieceColor currentPlayer, MoveJournal journal) {
 
-        if (!isValidMove(start, currentPlayer)) {
-            return;
+        if (!canPlay(start, currentPlayer)) {
+            return 0;
         }
 
         PieceColor opponent = getOpponent(currentPlayer);
         start.setPiece(currentPlayer);
 
-        flipDirection(start.getNorth(), currentPlayer, opponent, NORTH);
-        flipDirection(start.getSouth(), currentPlayer, opponent, SOUTH);
-        flipDirection(start.getEast(), currentPlayer, opponent, EAST);
-        flipDirection(start.getWest(), currentPlayer, opponent, WEST);
-        flipDirection(start.getNorthEast(), currentPlayer, opponent, NE);
-        flipDirection(start.getNorthWest(), currentPlayer, opponent, NW);
-        flipDirection(start.getSouthEast(), currentPlayer, opponent, SE);
-        flipDirection(start.getSouthWest(), currentPlayer, opponent, SW);
+        if (journal != null) {
+            journal.begin(start, currentPlayer);
+        }
+
+        int flips = 0;
+
+        for (int direction = 0; direction < BoardGeometry.DIRECTIONS; direction++) {
+            flips += flipDirection(start, currentPlayer, opponent, direction, journal);
+        }
+
+        return flips;
+    }
+
+    /**
+     * Reverts the last move recorded in a journal, restoring the flipped
+     * pieces and emptying the node where the piece was placed.
+     *
+     * @param journal the journal holding the move
+     * @return the player who made the reverted move, or null if the
+     *         journal is empty
+     */
+    public PieceColor undoMove(MoveJournal journal) {
+
+        if (journal.isEmpty()) {
+            return null;
+        }
+
+        PieceColor mover = journal.getLastMover();
+        PieceColor opponent = getOpponent(mover);
+
+        for (int i = journal.getLastFlipCount() - 1; i >= 0; i--) {
+            journal.getLastFlipped(i).setPiece(opponent);
+        }
+
+        journal.getLastPlaced().setPiece(PieceColor.EMPTY);
+        journal.pop();
+
+        return mover;
     }
 
     /**
      * Flips opponent pieces in a specific direction
      * once a valid closing piece is detected.
      *
-     * @param current the first node in the selected direction
+     * @param start the node where the piece was placed
      * @param player the current player
      * @param opponent the opposing player
      * @param direction the direction of traversal
+     * @param journal journal receiving the flipped nodes, or null
+     * @return the number of flipped pieces
      */
-    private void flipDirection(Node current,
-                               PieceColor player,
-                               PieceColor opponent,
-                               int direction) {
+    private static int flipDirection(Node start,
+                                     PieceColor player,
+                                     PieceColor opponent,
+                                     int direction,
+                                     MoveJournal journal) {
 
-        if (current == null || current.getPiece() != opponent) {
-            return;
+        Node runner = start.getNeighbor(direction);
+
+        if (runner == null || runner.getPiece() != opponent) {
+            return 0;
         }
 
-        Node runner = current;
+        int length = start.getRayLength(direction);
+        int run = 1;
 
-        while (runner != null && runner.getPiece() == opponent) {
-            runner = advance(runner, direction);
+        // Count the opponent pieces up to the first other square.
+        while (run < length) {
+            runner = runner.getNeighbor(direction);
+            if (runner.getPiece() != opponent) {
+                break;
+            }
+            run++;
         }
 
-        if (runner == null || runner.getPiece() != player) {
-            return;
+        if (run == length || runner.getPiece() != player) {
+            return 0;
         }
 
-        while (current != runner) {
+        Node current = start;
+
+        for (int i = 0; i < run; i++) {
+            current = current.getNeighbor(direction);
             current.setPiece(player);
-            current = advance(current, direction);
+            if (journal != null) {
+                journal.recordFlip(current);
+            }
         }
+
+        return run;
     }
 
     /**
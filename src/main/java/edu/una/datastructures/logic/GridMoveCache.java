@@ -0,0 +1,250 @@
+package edu.una.datastructures.logic;
+
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.BoardGeometry;
+import edu.una.datastructures.model.PieceColor;
+import edu.una.datastructures.model.SquareSet;
+
+/**
+ * Keeps the legal moves of both players up to date on a board of any size.
+ * <p>
+ * This is the size-independent counterpart of {@link LegalMoveCache}. For
+ * every empty square the cache stores, per player, which of the eight rays
+ * would flip pieces; a square is a legal move while any of its rays does.
+ * A ray of an empty square can only change when one of the squares it
+ * covers changes, and it covers a changed square only if every square in
+ * between is occupied. After a move, walking from each changed square to
+ * the first empty square in every direction therefore finds exactly the
+ * rays to re-evaluate, one ray each. The work per move depends on the
+ * number of changed squares, not on the size of the board. Flipped pieces
+ * lie on rays of the move square, so their rays along that line are
+ * already covered by the move square and are skipped. Pieces are read from
+ * the board's own square sets.
+ */
+public final class GridMoveCache {
+
+    private final Board board;
+    private final BoardGeometry geometry;
+    private final SquareSet black;
+    private final SquareSet white;
+
+    private final SquareSet blackMoves;
+    private final SquareSet whiteMoves;
+
+    /** Rays of each square that would flip pieces for black, one bit per direction. */
+    private final byte[] blackRays;
+
+    /** Rays of each square that would flip pieces for white, one bit per direction. */
+    private final byte[] whiteRays;
+
+    /** Change count of the board when the cache was last updated. */
+    private long syncedChanges;
+
+    /** Number of rays re-evaluated by the last update. */
+    private int lastChecked;
+
+    /**
+     * Creates a cache for the current position of a board.
+     *
+     * @param board the board whose legal moves are tracked
+     */
+    public GridMoveCache(Board board) {
+
+        int squares = board.getGeometry().getSquares();
+
+        this.board = board;
+        this.geometry = board.getGeometry();
+        this.black = board.getPieces(PieceColor.BLACK);
+        this.white = board.getPieces(PieceColor.WHITE);
+        this.blackMoves = SquareSet.create(squares);
+        this.whiteMoves = SquareSet.create(squares);
+        this.blackRays = new byte[squares];
+        this.whiteRays = new byte[squares];
+
+        reset();
+    }
+
+    /**
+     * Recomputes everything from the current position of the board.
+     */
+    public void reset() {
+
+        lastChecked = 0;
+
+        for (int square = 0; square < geometry.getSquares(); square++) {
+            if (isEmpty(square)) {
+                checkAllRays(square);
+            } else {
+                clearRays(square);
+            }
+        }
+
+        syncedChanges = board.getChangeCount();
+    }
+
+    /**
+     * Updates the cache after a move was applied to the board.
+     *
+     * @param square the square where the piece was placed
+     * @param flipped squares of the flipped pieces
+     * @param flipCount number of entries of {@code flipped} to use
+     */
+    public void update(int square, int[] flipped, int flipCount) {
+        lastChecked = 0;
+        clearRays(square);
+        recheck(square, flipped, flipCount);
+    }
+
+    /**
+     * Updates the cache after a move was undone on the board.
+     *
+     * @param square the square where the piece had been placed
+     * @param flipped squares of the pieces the move had flipped
+     * @param flipCount number of entries of {@code flipped} to use
+     */
+    public void revert(int square, int[] flipped, int flipCount) {
+        lastChecked = 0;
+        checkAllRays(square);
+        recheck(square, flipped, flipCount);
+    }
+
+    /**
+     * Re-evaluates the rays that reach the move square or a flipped
+     * square over occupied squares only.
+     */
+    private void recheck(int square, int[] flipped, int flipCount) {
+
+        recheckRays(square, -1);
+
+        for (int i = 0; i < flipCount; i++) {
+            recheckRays(flipped[i], geometry.getDirection(square, flipped[i]));
+        }
+
+        syncedChanges = board.getChangeCount();
+    }
+
+    /**
+     * Walks from a changed square to the first empty square in each
+     * direction and re-evaluates that square's ray pointing back.
+     *
+     * @param line direction whose ray and opposite ray are skipped, or -1
+     */
+    private void recheckRays(int square, int line) {
+
+        for (int direction = 0; direction < BoardGeometry.DIRECTIONS; direction++) {
+            if (line >= 0 && (direction == line || direction == BoardGeometry.opposite(line))) {
+                continue;
+            }
+
+            int step = geometry.getStep(direction);
+            int current = square;
+
+            for (int length = geometry.getRayLength(square, direction); length > 0; length--) {
+                current += step;
+                if (isEmpty(current)) {
+                    checkRay(current, BoardGeometry.opposite(direction));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates every ray of an empty square.
+     */
+    private void checkAllRays(int square) {
+        for (int direction = 0; direction < BoardGeometry.DIRECTIONS; direction++) {
+            checkRay(square, direction);
+        }
+    }
+
+    /**
+     * Evaluates one ray of an empty square for both players. The piece next
+     * to the square decides which player could flip along the ray, so it
+     * is walked only once.
+     */
+    private void checkRay(int square, int direction) {
+
+        lastChecked++;
+
+        int length = geometry.getRayLength(square, direction);
+        int step = geometry.getStep(direction);
+        int current = square + step;
+        boolean blackFlips = false;
+        boolean whiteFlips = false;
+
+        if (length >= 2) {
+            SquareSet run = white.get(current) ? white : black.get(current) ? black : null;
+
+            if (run != null) {
+                for (int walked = 1; walked < length; walked++) {
+                    current += step;
+                    if (!run.get(current)) {
+                        if (run == white) {
+                            blackFlips = black.get(current);
+                        } else {
+                            whiteFlips = white.get(current);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bit = 1 << direction;
+        blackRays[square] = (byte) (blackFlips ? blackRays[square] | bit : blackRays[square] & ~bit);
+        whiteRays[square] = (byte) (whiteFlips ? whiteRays[square] | bit : whiteRays[square] & ~bit);
+        blackMoves.set(square, blackRays[square] != 0);
+        whiteMoves.set(square, whiteRays[square] != 0);
+    }
+
+    /**
+     * Forgets the rays of a square that became occupied.
+     */
+    private void clearRays(int square) {
+        blackRays[square] = 0;
+        whiteRays[square] = 0;
+        blackMoves.clear(square);
+        whiteMoves.clear(square);
+    }
+
+    private boolean isEmpty(int square) {
+        return !black.get(square) && !white.get(square);
+    }
+
+    /**
+     * @return true if the board was not modified since the last update
+     */
+    public boolean isSynchronized() {
+        return syncedChanges == board.getChangeCount();
+    }
+
+    /**
+     * Returns the live set of legal moves of a player. The set is updated
+     * by the cache and must not be modified by callers.
+     *
+     * @param player BLACK or WHITE
+     * @return the legal moves
+     */
+    public SquareSet getLegalMoves(PieceColor player) {
+        return player == PieceColor.BLACK ? blackMoves : whiteMoves;
+    }
+
+    /**
+     * Determines whether a square is a legal move for a player.
+     *
+     * @param square the square index
+     * @param player BLACK or WHITE
+     * @return true if the move is legal
+     */
+    public boolean isLegal(int square, PieceColor player) {
+        return getLegalMoves(player).get(square);
+    }
+
+    /**
+     * @return the number of rays re-evaluated by the last update or reset
+     */
+    public int getLastChecked() {
+        return lastChecked;
+    }
+}
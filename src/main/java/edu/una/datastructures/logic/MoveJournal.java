@@ -0,0 +1,175 @@
+package edu.una.datastructures.logic;
+
+import edu.una.datastructures.model.Node;
+import edu.una.datastructures.model.PieceColor;
+import java.util.Arrays;
+
+/**
+ * Reusable undo stack for moves applied by {@link GameLogic}.
+ * <p>
+ * Each recorded move is a frame holding the node where the piece was
+ * placed, the player who moved and the nodes it flipped. All storage is
+ * preallocated and reused, so recording and undoing moves does not
+ * allocate; the arrays only grow when a deeper stack than ever before is
+ * needed.
+ */
+public final class MoveJournal {
+
+    /** Default number of frames preallocated. */
+    private static final int DEFAULT_FRAMES = 64;
+
+    /** Flips reserved per frame; no move on the 8x8 board can flip more than 18 pieces. */
+    private static final int FLIPS_PER_FRAME = 20;
+
+    /** Node where the piece of each frame was placed. */
+    private Node[] placed;
+
+    /** Player who made the move of each frame. */
+    private PieceColor[] movers;
+
+    /** End index in {@link #flips} of each frame. */
+    private int[] frameEnds;
+
+    /** Flipped nodes of every frame, stored one after the other. */
+    private Node[] flips;
+
+    /** Number of frames currently recorded. */
+    private int frames;
+
+    /** Number of flipped nodes currently recorded. */
+    private int flipCount;
+
+    /**
+     * Creates a journal with room for a full game.
+     */
+    public MoveJournal() {
+        this(DEFAULT_FRAMES);
+    }
+
+    /**
+     * Creates a journal with room for the given number of moves.
+     *
+     * @param capacity number of frames to preallocate, at least 1
+     */
+    public MoveJournal(int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Journal capacity must be at least 1");
+        }
+
+        this.placed = new Node[capacity];
+        this.movers = new PieceColor[capacity];
+        this.frameEnds = new int[capacity];
+        this.flips = new Node[capacity * FLIPS_PER_FRAME];
+    }
+
+    /**
+     * @return the number of moves recorded
+     */
+    public int size() {
+        return frames;
+    }
+
+    /**
+     * @return true if no move is recorded
+     */
+    public boolean isEmpty() {
+        return frames == 0;
+    }
+
+    /**
+     * Forgets every recorded move without undoing it.
+     */
+    public void clear() {
+        Arrays.fill(placed, 0, frames, null);
+        Arrays.fill(flips, 0, flipCount, null);
+        frames = 0;
+        flipCount = 0;
+    }
+
+    /**
+     * @return the node where the last recorded move placed its piece
+     */
+    public Node getLastPlaced() {
+        return placed[frames - 1];
+    }
+
+    /**
+     * @return the player who made the last recorded move
+     */
+    public PieceColor getLastMover() {
+        return movers[frames - 1];
+    }
+
+    /**
+     * @return the number of pieces flipped by the last recorded move
+     */
+    public int getLastFlipCount() {
+        return frameEnds[frames - 1] - frameStart(frames - 1);
+    }
+
+    /**
+     * Returns a node flipped by the last recorded move.
+     *
+     * @param index index in the range 0 to {@link #getLastFlipCount()} - 1
+     * @return the flipped node
+     */
+    public Node getLastFlipped(int index) {
+        return flips[frameStart(frames - 1) + index];
+    }
+
+    /**
+     * Opens a new frame for a move.
+     *
+     * @param node the node where the piece is placed
+     * @param mover the player making the move
+     */
+    void begin(Node node, PieceColor mover) {
+
+        if (frames == placed.length) {
+            int capacity = frames * 2;
+            placed = Arrays.copyOf(placed, capacity);
+            movers = Arrays.copyOf(movers, capacity);
+            frameEnds = Arrays.copyOf(frameEnds, capacity);
+        }
+
+        placed[frames] = node;
+        movers[frames] = mover;
+        frameEnds[frames] = flipCount;
+        frames++;
+    }
+
+    /**
+     * Records a node flipped by the move of the open frame.
+     *
+     * @param node the flipped node
+     */
+    void recordFlip(Node node) {
+
+        if (flipCount == flips.length) {
+            flips = Arrays.copyOf(flips, flips.length * 2);
+        }
+
+        flips[flipCount++] = node;
+        frameEnds[frames - 1] = flipCount;
+    }
+
+    /**
+     * Removes the last frame.
+     */
+    void pop() {
+        frames--;
+        flipCount = frameStart(frames);
+        placed[frames] = null;
+    }
+
+    /**
+     * Returns the start index in {@link #flips} of a frame.
+     *
+     * @param frame the frame index
+     * @return index of its first flipped node
+     */
+    private int frameStart(int frame) {
+        return frame == 0 ? 0 : frameEnds[frame - 1];
+    }
+}
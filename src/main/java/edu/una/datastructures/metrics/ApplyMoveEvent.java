@@ -0,0 +1,27 @@
+package edu.una.datastructures.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a move applied to the linked board by
+ * {@code GameLogic.applyMove}.
+ */
+@Name("edu.una.datastructures.ApplyMove")
+@Label("Move Applied")
+@Category({"Reversi", "Rules"})
+@Description("A move applied to the linked board by GameLogic.applyMove")
+@StackTrace(false)
+public final class ApplyMoveEvent extends Event {
+
+    @Label("Square")
+    public int square;
+
+    @Label("Flips")
+    @Description("Pieces flipped by the move, 0 if it was not legal")
+    public int flips;
+}
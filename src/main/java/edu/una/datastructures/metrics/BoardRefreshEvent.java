@@ -0,0 +1,31 @@
+package edu.una.datastructures.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for an update of the board shown by the user
+ * interface: either the grid being built, which creates the scene graph
+ * nodes, or the cells changed by one move or undo.
+ */
+@Name("edu.una.datastructures.BoardRefresh")
+@Label("Board Refresh")
+@Category({"Reversi", "UI"})
+@Description("The board grid built, or the cells updated after a move")
+@StackTrace(false)
+public final class BoardRefreshEvent extends Event {
+
+    @Label("Board Size")
+    public int boardSize;
+
+    @Label("Cells Updated")
+    public int cellsUpdated;
+
+    @Label("Nodes Created")
+    @Description("Scene graph nodes created by the refresh")
+    public int nodesCreated;
+}
@@ -0,0 +1,45 @@
+package edu.una.datastructures.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter that many threads may increase at once.
+ * <p>
+ * Backed by a {@link LongAdder}, which spreads contended updates over
+ * per-thread cells, so search threads counting nodes never wait for each
+ * other. Reading the value sums the cells and may miss updates in flight.
+ */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    /**
+     * Adds one.
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Adds an amount.
+     *
+     * @param amount the amount, normally positive
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * @return the sum of every update so far
+     */
+    public long get() {
+        return value.sum();
+    }
+
+    /**
+     * Sets the counter back to zero.
+     */
+    public void reset() {
+        value.reset();
+    }
+}
@@ -0,0 +1,200 @@
+package edu.una.datastructures.metrics;
+
+/**
+ * Metrics of the rules engine, the game controller and the search bots,
+ * kept in a {@link MetricsRegistry}.
+ * <p>
+ * {@code GameLogic}, {@code GameController}, {@code SearchEngine} and
+ * {@code MctsEngine} accept an instance through their {@code setMetrics}
+ * methods and record into it; without one they skip measuring altogether.
+ * All metrics are striped, so one instance may be shared by every game and
+ * search thread of a process.
+ * <p>
+ * Recorded metrics:
+ * <ul>
+ *   <li>{@code rules.isValidMove}, {@code rules.applyMove},
+ *       {@code controller.isValidMove}, {@code controller.playMove}:
+ *       calls and latency</li>
+ *   <li>{@code controller.boardScans}: traversals of every node of the
+ *       board, with {@code controller.boardScansPerMove}</li>
+ *   <li>{@code bot.thinkTime}: time to choose each bot move, book
+ *       included</li>
+ *   <li>{@code search.time}, {@code search.nodes} and
+ *       {@code search.nodesPerSecond}, over every search thread</li>
+ *   <li>{@code search.cutoffs} and {@code search.firstMoveCutoffs}: beta
+ *       cutoffs and those caused by the first move tried, with
+ *       {@code search.firstMoveCutoffRate}</li>
+ *   <li>{@code mcts.time}, {@code mcts.playouts} and
+ *       {@code mcts.playoutsPerSecond} of the Monte Carlo bot</li>
+ *   <li>{@code cache.book.*} and {@code cache.table.*}: hits, misses and
+ *       hit rate of the opening book and the transposition tables</li>
+ * </ul>
+ */
+public final class EngineMetrics {
+
+    private final MetricsRegistry registry;
+
+    private final LatencyHistogram ruleValidMove;
+    private final LatencyHistogram ruleApplyMove;
+    private final LatencyHistogram controllerValidMove;
+    private final LatencyHistogram playMove;
+    private final Counter boardScans;
+    private final LatencyHistogram botThinkTime;
+    private final LatencyHistogram searchTime;
+    private final Counter searchNodes;
+    private final Counter cutoffs;
+    private final Counter firstMoveCutoffs;
+    private final LatencyHistogram mctsTime;
+    private final Counter playouts;
+    private final Counter bookHits;
+    private final Counter bookMisses;
+    private final Counter tableHits;
+    private final Counter tableMisses;
+
+    /**
+     * Creates the engine metrics in a new registry.
+     */
+    public EngineMetrics() {
+        this(new MetricsRegistry());
+    }
+
+    /**
+     * Creates the engine metrics in a registry, which may hold other
+     * metrics as well.
+     *
+     * @param registry the registry receiving the metrics
+     */
+    public EngineMetrics(MetricsRegistry registry) {
+
+        this.registry = registry;
+
+        this.ruleValidMove = registry.histogram("rules.isValidMove");
+        this.ruleApplyMove = registry.histogram("rules.applyMove");
+        this.controllerValidMove = registry.histogram("controller.isValidMove");
+        this.playMove = registry.histogram("controller.playMove");
+        this.boardScans = registry.counter("controller.boardScans");
+        this.botThinkTime = registry.histogram("bot.thinkTime");
+        this.searchTime = registry.histogram("search.time");
+        this.searchNodes = registry.counter("search.nodes");
+        this.cutoffs = registry.counter("search.cutoffs");
+        this.firstMoveCutoffs = registry.counter("search.firstMoveCutoffs");
+        this.mctsTime = registry.histogram("mcts.time");
+        this.playouts = registry.counter("mcts.playouts");
+        this.bookHits = registry.counter("cache.book.hits");
+        this.bookMisses = registry.counter("cache.book.misses");
+        this.tableHits = registry.counter("cache.table.hits");
+        this.tableMisses = registry.counter("cache.table.misses");
+
+        registry.gauge("controller.boardScansPerMove", () -> ratio(boardScans.get(), playMove.getCount()));
+        registry.gauge("search.nodesPerSecond",
+                () -> ratio(searchNodes.get() * 1_000_000_000.0, searchTime.getTotalNanos()));
+        registry.gauge("search.firstMoveCutoffRate", () -> ratio(firstMoveCutoffs.get(), cutoffs.get()));
+        registry.gauge("mcts.playoutsPerSecond",
+                () -> ratio(playouts.get() * 1_000_000_000.0, mctsTime.getTotalNanos()));
+        registry.gauge("cache.book.hitRate", () -> ratio(bookHits.get(), bookHits.get() + bookMisses.get()));
+        registry.gauge("cache.table.hitRate", () -> ratio(tableHits.get(), tableHits.get() + tableMisses.get()));
+    }
+
+    /**
+     * @return the registry holding these metrics
+     */
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @param nanos duration of a {@code GameLogic.isValidMove} call
+     */
+    public void recordRuleValidMove(long nanos) {
+        ruleValidMove.record(nanos);
+    }
+
+    /**
+     * @param nanos duration of a {@code GameLogic.applyMove} call
+     */
+    public void recordRuleApplyMove(long nanos) {
+        ruleApplyMove.record(nanos);
+    }
+
+    /**
+     * @param nanos duration of a {@code GameController.isValidMove} call
+     */
+    public void recordControllerValidMove(long nanos) {
+        controllerValidMove.record(nanos);
+    }
+
+    /**
+     * @param nanos duration of a {@code GameController.playMove} call
+     */
+    public void recordPlayMove(long nanos) {
+        playMove.record(nanos);
+    }
+
+    /**
+     * Counts one traversal of every node of a board.
+     */
+    public void recordBoardScan() {
+        boardScans.increment();
+    }
+
+    /**
+     * @param nanos time taken to choose one bot move
+     */
+    public void recordBotMove(long nanos) {
+        botThinkTime.record(nanos);
+    }
+
+    /**
+     * @param hit true if the opening book knew the position
+     */
+    public void recordBookProbe(boolean hit) {
+        (hit ? bookHits : bookMisses).increment();
+    }
+
+    /**
+     * Records a finished search of the thread that decides the move.
+     *
+     * @param nanos duration of the search
+     */
+    public void recordSearch(long nanos) {
+        searchTime.record(nanos);
+    }
+
+    /**
+     * @param nodes nodes visited by one search thread
+     */
+    public void recordNodes(long nodes) {
+        searchNodes.add(nodes);
+    }
+
+    /**
+     * @param cutoffs beta cutoffs of one search thread
+     * @param firstMoveCutoffs those caused by the first move tried
+     */
+    public void recordCutoffs(long cutoffs, long firstMoveCutoffs) {
+        this.cutoffs.add(cutoffs);
+        this.firstMoveCutoffs.add(firstMoveCutoffs);
+    }
+
+    /**
+     * @param playouts playouts of one Monte Carlo search, over every thread
+     * @param nanos duration of the search
+     */
+    public void recordPlayouts(long playouts, long nanos) {
+        this.playouts.add(playouts);
+        mctsTime.record(nanos);
+    }
+
+    /**
+     * @param hits transposition table probes that found their position
+     * @param misses probes that did not
+     */
+    public void recordTableProbes(long hits, long misses) {
+        tableHits.add(hits);
+        tableMisses.add(misses);
+    }
+
+    private static double ratio(double numerator, double denominator) {
+        return denominator == 0 ? 0 : numerator / denominator;
+    }
+}
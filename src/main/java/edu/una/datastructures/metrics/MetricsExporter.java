@@ -0,0 +1,120 @@
+package edu.una.datastructures.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes snapshots of a {@link MetricsRegistry} to a local file at a fixed
+ * period.
+ * <p>
+ * Files ending in {@code .json} receive {@link MetricsRegistry#writeJson},
+ * any other file the text form. Each snapshot is written to a temporary
+ * file next to the target and then moved over it, so readers never see a
+ * half-written snapshot. Snapshots are taken on one daemon thread and only
+ * read the metrics, so the game and search threads are not slowed down.
+ */
+public final class MetricsExporter implements AutoCloseable {
+
+    /** System property naming the file the tools and the game export to. */
+    public static final String FILE_PROPERTY = "reversi.metrics";
+
+    /** System property with the export period in seconds. */
+    public static final String PERIOD_PROPERTY = "reversi.metrics.period";
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final boolean json;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-exporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts exporting.
+     *
+     * @param registry the metrics to export
+     * @param file the file replaced by every snapshot
+     * @param periodSeconds seconds between two snapshots
+     */
+    public MetricsExporter(MetricsRegistry registry, Path file, long periodSeconds) {
+
+        if (periodSeconds < 1) {
+            throw new IllegalArgumentException("The export period must be at least one second");
+        }
+
+        this.registry = registry;
+        this.file = file.toAbsolutePath();
+        this.json = file.getFileName().toString().endsWith(".json");
+
+        timer.scheduleAtFixedRate(this::exportQuietly, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts an exporter configured by the {@value #FILE_PROPERTY} and
+     * {@value #PERIOD_PROPERTY} system properties (10 s by default).
+     *
+     * @param registry the metrics to export
+     * @return the exporter, or null if no file is configured
+     */
+    public static MetricsExporter fromSystemProperties(MetricsRegistry registry) {
+
+        String file = System.getProperty(FILE_PROPERTY);
+
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+
+        return new MetricsExporter(registry, Path.of(file), Long.getLong(PERIOD_PROPERTY, 10));
+    }
+
+    /**
+     * Writes a snapshot now.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void export() throws IOException {
+
+        Path directory = file.getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try {
+            try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                if (json) {
+                    registry.writeJson(out);
+                } else {
+                    registry.writeText(out);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void exportQuietly() {
+        try {
+            export();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not export metrics to " + file + ": " + e);
+        }
+    }
+
+    /**
+     * Stops the periodic export and writes a last snapshot.
+     */
+    @Override
+    public void close() {
+
+        timer.shutdownNow();
+        exportQuietly();
+    }
+}
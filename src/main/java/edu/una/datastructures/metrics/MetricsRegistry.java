@@ -0,0 +1,168 @@
+package edu.una.datastructures.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named counters, latency histograms and gauges.
+ * <p>
+ * Metrics are created on first lookup and kept in name order, so snapshots
+ * list them the same way every time. Callers look a metric up once and keep
+ * the returned object; updating it never touches the registry. A snapshot
+ * can be written as text, one metric per line, or as a JSON object.
+ */
+public final class MetricsRegistry {
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the counter with the given name, creating it if needed.
+     *
+     * @param name dotted metric name, e.g. {@code search.nodes}
+     * @return the counter
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it if needed.
+     *
+     * @param name dotted metric name, e.g. {@code rules.isValidMove}
+     * @return the histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers a value computed when a snapshot is taken, replacing any
+     * gauge of the same name.
+     *
+     * @param name dotted metric name
+     * @param value supplier of the current value; must be thread-safe
+     */
+    public void gauge(String name, DoubleSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Sets every counter and histogram back to zero. Gauges are computed
+     * from their sources and are not affected.
+     */
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Writes a snapshot as text: counters and gauges as {@code name value},
+     * histograms as their count, mean, 50th, 90th and 99th percentiles and
+     * maximum in microseconds.
+     *
+     * @param out the destination
+     */
+    public void writeText(Appendable out) {
+
+        try {
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                out.append(entry.getKey()).append(' ')
+                   .append(Long.toString(entry.getValue().get())).append('\n');
+            }
+
+            for (Map.Entry<String, DoubleSupplier> entry : gauges.entrySet()) {
+                out.append(entry.getKey()).append(' ')
+                   .append(format(entry.getValue().getAsDouble())).append('\n');
+            }
+
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                out.append(entry.getKey())
+                   .append(" count=").append(Long.toString(histogram.getCount()))
+                   .append(" mean=").append(micros(histogram.getMeanNanos()))
+                   .append(" p50=").append(micros(histogram.getQuantileNanos(0.5)))
+                   .append(" p90=").append(micros(histogram.getQuantileNanos(0.9)))
+                   .append(" p99=").append(micros(histogram.getQuantileNanos(0.99)))
+                   .append(" max=").append(micros(histogram.getMaxNanos()))
+                   .append(" us\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a snapshot as a JSON object with {@code counters},
+     * {@code gauges} and {@code histograms} members. Histogram values are
+     * in nanoseconds.
+     *
+     * @param out the destination
+     */
+    public void writeJson(Appendable out) {
+
+        try {
+            out.append("{\n  \"counters\": {");
+            String separator = "\n";
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                out.append(separator).append("    \"").append(entry.getKey()).append("\": ")
+                   .append(Long.toString(entry.getValue().get()));
+                separator = ",\n";
+            }
+
+            out.append("\n  },\n  \"gauges\": {");
+            separator = "\n";
+            for (Map.Entry<String, DoubleSupplier> entry : gauges.entrySet()) {
+                double value = entry.getValue().getAsDouble();
+                out.append(separator).append("    \"").append(entry.getKey()).append("\": ")
+                   .append(Double.isFinite(value) ? format(value) : "null");
+                separator = ",\n";
+            }
+
+            out.append("\n  },\n  \"histograms\": {");
+            separator = "\n";
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                out.append(separator).append("    \"").append(entry.getKey()).append("\": {")
+                   .append("\"count\": ").append(Long.toString(histogram.getCount()))
+                   .append(", \"totalNanos\": ").append(Long.toString(histogram.getTotalNanos()))
+                   .append(", \"meanNanos\": ").append(format(histogram.getMeanNanos()))
+                   .append(", \"p50Nanos\": ").append(Long.toString(histogram.getQuantileNanos(0.5)))
+                   .append(", \"p90Nanos\": ").append(Long.toString(histogram.getQuantileNanos(0.9)))
+                   .append(", \"p99Nanos\": ").append(Long.toString(histogram.getQuantileNanos(0.99)))
+                   .append(", \"maxNanos\": ").append(Long.toString(histogram.getMaxNanos()))
+                   .append('}');
+                separator = ",\n";
+            }
+
+            out.append("\n  }\n}\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the snapshot written by {@link #writeText(Appendable)}
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        writeText(text);
+        return text.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String micros(double nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000);
+    }
+}
@@ -0,0 +1,34 @@
+package edu.una.datastructures.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a move played through
+ * {@code GameController.playMove}, including the legal move bookkeeping
+ * and the listener notifications.
+ */
+@Name("edu.una.datastructures.Move")
+@Label("Move Played")
+@Category({"Reversi", "Game"})
+@Description("A move played through GameController.playMove")
+@StackTrace(false)
+public final class MoveEvent extends Event {
+
+    @Label("Square")
+    public int square;
+
+    @Label("Player")
+    public String player;
+
+    @Label("Flips")
+    @Description("Pieces flipped by the move")
+    public int flips;
+
+    @Label("Board Size")
+    public int boardSize;
+}
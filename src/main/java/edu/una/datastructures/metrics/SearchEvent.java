@@ -0,0 +1,50 @@
+package edu.una.datastructures.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one bot search, from its start to the
+ * returned move. Helper threads of a parallel search emit their own
+ * events, marked as helpers.
+ */
+@Name("edu.una.datastructures.Search")
+@Label("Bot Search")
+@Category({"Reversi", "Search"})
+@Description("A search of SearchEngine, from start to the chosen move")
+@StackTrace(false)
+public final class SearchEvent extends Event {
+
+    @Label("Best Move")
+    @Description("Square chosen, or -1 for a pass")
+    public int bestMove;
+
+    @Label("Depth")
+    @Description("Deepest completed iteration")
+    public int depth;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("Score")
+    public int score;
+
+    @Label("Empties")
+    public int empties;
+
+    @Label("Cutoffs")
+    @Description("Beta cutoffs of the search")
+    public long cutoffs;
+
+    @Label("First Move Cutoff Rate")
+    @Description("Share of the cutoffs caused by the first move tried")
+    public double firstMoveCutoffRate;
+
+    @Label("Helper")
+    @Description("True for a helper thread of a parallel search")
+    public boolean helper;
+}
@@ -0,0 +1,429 @@
+package edu.una.datastructures.model;
+
+/**
+ * Compact representation of a Reversi position using two 64-bit masks,
+ * one per color.
+ * <p>
+ * Square indices run in row-major order starting from the top-left
+ * corner: {@code square = row * 8 + col}, so bit 0 is the node returned by
+ * {@link Board#getTopLeft()}. Move generation and flipping are performed
+ * with shifts over all eight directions at once, which makes this class the
+ * fast counterpart of the linked {@link Node} grid.
+ */
+public final class BitBoard {
+
+    /** Number of rows and columns of the board. */
+    public static final int SIZE = 8;
+
+    /** Number of squares of the board. */
+    public static final int SQUARES = SIZE * SIZE;
+
+    /** Black pieces of the standard starting position. */
+    public static final long INITIAL_BLACK = (1L << 28) | (1L << 35);
+
+    /** White pieces of the standard starting position. */
+    public static final long INITIAL_WHITE = (1L << 27) | (1L << 36);
+
+    /** Every square except those in the first column. */
+    private static final long NOT_FIRST_COLUMN = 0xFEFEFEFEFEFEFEFEL;
+
+    /** Every square except those in the last column. */
+    private static final long NOT_LAST_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+
+    /** Pieces of the black player. */
+    private long black;
+
+    /** Pieces of the white player. */
+    private long white;
+
+    /**
+     * Creates a bitboard holding the standard starting position.
+     */
+    public BitBoard() {
+        this(INITIAL_BLACK, INITIAL_WHITE);
+    }
+
+    /**
+     * Creates a bitboard from explicit masks.
+     *
+     * @param black mask of black pieces
+     * @param white mask of white pieces
+     */
+    public BitBoard(long black, long white) {
+        if ((black & white) != 0) {
+            throw new IllegalArgumentException("A square cannot hold both colors");
+        }
+        this.black = black;
+        this.white = white;
+    }
+
+    /**
+     * Returns the mask of black pieces.
+     *
+     * @return the black mask
+     */
+    public long getBlack() {
+        return black;
+    }
+
+    /**
+     * Returns the mask of white pieces.
+     *
+     * @return the white mask
+     */
+    public long getWhite() {
+        return white;
+    }
+
+    /**
+     * Returns the mask of pieces of the given color.
+     *
+     * @param color BLACK or WHITE
+     * @return the pieces of that color, or the empty squares for EMPTY
+     */
+    public long getMask(PieceColor color) {
+        switch (color) {
+            case BLACK: return black;
+            case WHITE: return white;
+            default:    return ~(black | white);
+        }
+    }
+
+    /**
+     * Returns the piece placed on a square.
+     *
+     * @param square square index in the range 0-63
+     * @return the piece color of that square
+     */
+    public PieceColor getPiece(int square) {
+        long bit = 1L << square;
+
+        if ((black & bit) != 0) {
+            return PieceColor.BLACK;
+        }
+
+        if ((white & bit) != 0) {
+            return PieceColor.WHITE;
+        }
+
+        return PieceColor.EMPTY;
+    }
+
+    /**
+     * Counts the pieces of the given color.
+     *
+     * @param color the piece color to count
+     * @return the number of squares holding that color
+     */
+    public int count(PieceColor color) {
+        return Long.bitCount(getMask(color));
+    }
+
+    /**
+     * Returns every legal move of the given player as a mask.
+     *
+     * @param player the player to move
+     * @return mask of empty squares where the player may play
+     */
+    public long legalMoves(PieceColor player) {
+        return player == PieceColor.BLACK
+                ? legalMoves(black, white)
+                : legalMoves(white, black);
+    }
+
+    /**
+     * Determines whether the given square is a legal move.
+     *
+     * @param square square index in the range 0-63
+     * @param player the player attempting the move
+     * @return true if the move captures at least one piece
+     */
+    public boolean isLegalMove(int square, PieceColor player) {
+        return (legalMoves(player) & (1L << square)) != 0;
+    }
+
+    /**
+     * Applies a move, placing the piece and flipping every captured piece.
+     * Illegal moves leave the board untouched.
+     *
+     * @param square the square where the piece is placed
+     * @param player the player performing the move
+     * @return mask of flipped pieces, or 0 if the move was illegal
+     */
+    public long applyMove(int square, PieceColor player) {
+
+        long move = 1L << square;
+
+        if (((black | white) & move) != 0) {
+            return 0;
+        }
+
+        if (player == PieceColor.BLACK) {
+            long flipped = flips(black, white, square);
+            if (flipped != 0) {
+                black |= flipped | move;
+                white &= ~flipped;
+            }
+            return flipped;
+        }
+
+        long flipped = flips(white, black, square);
+        if (flipped != 0) {
+            white |= flipped | move;
+            black &= ~flipped;
+        }
+        return flipped;
+    }
+
+    /**
+     * Returns the square index of a row and column.
+     *
+     * @param row row in the range 0-7
+     * @param col column in the range 0-7
+     * @return the square index
+     */
+    public static int square(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    /**
+     * Returns the standard name of a square, a column letter followed by a
+     * row number, with {@code a1} being the top-left corner.
+     *
+     * @param square square index in the range 0-63
+     * @return the square name, e.g. {@code f5}
+     */
+    public static String squareName(int square) {
+        return "" + (char) ('a' + square % SIZE) + (char) ('1' + square / SIZE);
+    }
+
+    /**
+     * Parses a square name as produced by {@link #squareName(int)}.
+     * Upper-case column letters are accepted.
+     *
+     * @param name the square name
+     * @return the square index
+     */
+    public static int parseSquare(String name) {
+
+        if (name.length() != 2) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+
+        int col = Character.toLowerCase(name.charAt(0)) - 'a';
+        int row = name.charAt(1) - '1';
+
+        if (col < 0 || col >= SIZE || row < 0 || row >= SIZE) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+
+        return square(row, col);
+    }
+
+    /**
+     * Returns every square adjacent to at least one of the given squares,
+     * in any of the eight directions.
+     *
+     * @param squares mask of squares
+     * @return mask of their neighbors
+     */
+    public static long neighbors(long squares) {
+
+        long horizontal = squares | ((squares << 1) & NOT_FIRST_COLUMN) | ((squares >>> 1) & NOT_LAST_COLUMN);
+        long area = horizontal | (horizontal << 8) | (horizontal >>> 8);
+
+        return area & ~squares;
+    }
+
+    /**
+     * Computes every legal move for a player using directional fills.
+     * A square is legal when a contiguous run of opponent pieces leads
+     * from it to a piece of the player in some direction.
+     *
+     * @param player mask of the player to move
+     * @param opponent mask of the opposing player
+     * @return mask of legal moves
+     */
+    public static long legalMoves(long player, long opponent) {
+
+        long empty = ~(player | opponent);
+        long inner = opponent & NOT_FIRST_COLUMN & NOT_LAST_COLUMN;
+        long moves = 0;
+        long t;
+
+        // Vertical directions do not wrap, so the full opponent mask is used.
+        t = opponent & (player << 8);
+        t |= opponent & (t << 8);
+        t |= opponent & (t << 8);
+        t |= opponent & (t << 8);
+        t |= opponent & (t << 8);
+        t |= opponent & (t << 8);
+        moves |= t << 8;
+
+        t = opponent & (player >>> 8);
+        t |= opponent & (t >>> 8);
+        t |= opponent & (t >>> 8);
+        t |= opponent & (t >>> 8);
+        t |= opponent & (t >>> 8);
+        t |= opponent & (t >>> 8);
+        moves |= t >>> 8;
+
+        // Horizontal and diagonal runs must not cross the board edges.
+        t = inner & (player << 1);
+        t |= inner & (t << 1);
+        t |= inner & (t << 1);
+        t |= inner & (t << 1);
+        t |= inner & (t << 1);
+        t |= inner & (t << 1);
+        moves |= t << 1;
+
+        t = inner & (player >>> 1);
+        t |= inner & (t >>> 1);
+        t |= inner & (t >>> 1);
+        t |= inner & (t >>> 1);
+        t |= inner & (t >>> 1);
+        t |= inner & (t >>> 1);
+        moves |= t >>> 1;
+
+        t = inner & (player << 9);
+        t |= inner & (t << 9);
+        t |= inner & (t << 9);
+        t |= inner & (t << 9);
+        t |= inner & (t << 9);
+        t |= inner & (t << 9);
+        moves |= t << 9;
+
+        t = inner & (player >>> 9);
+        t |= inner & (t >>> 9);
+        t |= inner & (t >>> 9);
+        t |= inner & (t >>> 9);
+        t |= inner & (t >>> 9);
+        t |= inner & (t >>> 9);
+        moves |= t >>> 9;
+
+        t = inner & (player << 7);
+        t |= inner & (t << 7);
+        t |= inner & (t << 7);
+        t |= inner & (t << 7);
+        t |= inner & (t << 7);
+        t |= inner & (t << 7);
+        moves |= t << 7;
+
+        t = inner & (player >>> 7);
+        t |= inner & (t >>> 7);
+        t |= inner & (t >>> 7);
+        t |= inner & (t >>> 7);
+        t |= inner & (t >>> 7);
+        t |= inner & (t >>> 7);
+        moves |= t >>> 7;
+
+        return moves & empty;
+    }
+
+    /**
+     * Computes the pieces flipped by placing a piece on the given square.
+     * The square is assumed to be empty.
+     *
+     * @param player mask of the player to move
+     * @param opponent mask of the opposing player
+     * @param square the square where the piece is placed
+     * @return mask of flipped pieces, or 0 if the move is illegal
+     */
+    public static long flips(long player, long opponent, int square) {
+
+        long move = 1L << square;
+        long flipped = 0;
+        long line;
+        long cursor;
+
+        // South
+        line = 0;
+        cursor = move << 8;
+        while ((cursor & opponent) != 0) {
+            line |= cursor;
+            cursor <<= 8;
+        }
+        if ((cursor & player) != 0) {
+            flipped |= line;
+        }
+
+        // North
+        line = 0;
+        cursor = move >>> 8;
+        while ((cursor & opponent) != 0) {
+            line |= cursor;
+            cursor >>>= 8;
+        }
+        if ((cursor & player) != 0) {
+            flipped |= line;
+        }
+
+        // East
+        line = 0;
+        cursor = (move << 1) & NOT_FIRST_COLUMN;
+        while ((cursor & opponent) != 0) {
+            line |= cursor;
+            cursor = (cursor << 1) & NOT_FIRST_COLUMN;
+        }
+        if ((cursor & player) != 0) {
+            flipped |= line;
+        }
+
+        // West
+        line = 0;
+        cursor = (move >>> 1) & NOT_LAST_COLUMN;
+        while ((cursor & opponent) != 0) {
+            line |= cursor;
+            cursor = (cursor >>> 1) & NOT_LAST_COLUMN;
+        }
+        if ((cursor & player) != 0) {
+            flipped |= line;
+        }
+
+        // South-east
+        line = 0;
+        cursor = (move << 9) & NOT_FIRST_COLUMN;
+        while ((cursor & opponent) != 0) {
+            line |= cursor;
+            cursor = (cursor << 9) & NOT_FIRST_COLUMN;
+        }
+        if ((cursor & player) != 0) {
+            flipped |= line;
+        }
+
+        // North-west
+        line = 0;
+        cursor = (move >>> 9) & NOT_LAST_COLUMN;
+        while ((cursor & opponent) != 0) {
+            line |= cursor;
+            cursor = (cursor >>> 9) & NOT_LAST_COLUMN;
+        }
+        if ((cursor & player) != 0) {
+            flipped |= line;
+        }
+
+        // South-west
+        line = 0;
+        cursor = (move << 7) & NOT_LAST_COLUMN;
+        while ((cursor & opponent) != 0) {
+            line |= cursor;
+            cursor = (cursor << 7) & NOT_LAST_COLUMN;
+        }
+        if ((cursor & player) != 0) {
+            flipped |= line;
+        }
+
+        // North-east
+        line = 0;
+        cursor = (move >>> 7) & NOT_FIRST_COLUMN;
+        while ((cursor & opponent) != 0) {
+            line |= cursor;
+            cursor = (cursor >>> 7) & NOT_FIRST_COLUMN;
+        }
+        if ((cursor & player) != 0) {
+            flipped |= line;
+        }
+
+        return flipped;
+    }
+}
@@ -6,6 +6,14 @@ package edu.una.datastructures.model;
  * <p>
  * The board does not use arrays or matrices. All traversals start
  * from the top-left node and proceed through node links.
+ * <p>
+ * The board also keeps a bitset mirror of its pieces up to date: every
+ * node reports piece changes back to its board, so the pieces can be read
+ * at any time without traversing the grid. On the standard 8x8 board the
+ * mirror matches {@link BitBoard}.
+ * <p>
+ * Boards are square with an even size from {@link BoardGeometry#MIN_SIZE}
+ * to {@link BoardGeometry#MAX_SIZE}; the default size is 8.
  */
 public class Board {
 
@@ -15,15 +23,58 @@ public class Board {
      */
     private Node topLeft;
 
+    /** Square numbering and rays of this board size. */
+    private final BoardGeometry geometry;
+
+    /** Number of rows and columns. */
+    private final int size;
+
+    /** Black pieces, kept in sync with the nodes. */
+    private final SquareSet black;
+
+    /** White pieces, kept in sync with the nodes. */
+    private final SquareSet white;
+
+    /** Number of piece changes since the board was created. */
+    private long changeCount;
+
     /**
-     * Creates a new Reversi board.
+     * Creates a new standard 8x8 Reversi board.
      * Initializes the linked structure and places the initial pieces.
      */
     public Board() {
+        this(BitBoard.SIZE);
+    }
+
+    /**
+     * Creates a new Reversi board of the given size.
+     * Initializes the linked structure and places the initial pieces.
+     *
+     * @param size number of rows and columns: even, from 4 to 32
+     */
+    public Board(int size) {
+        this.geometry = BoardGeometry.of(size);
+        this.size = size;
+        this.black = SquareSet.create(geometry.getSquares());
+        this.white = SquareSet.create(geometry.getSquares());
         initializeBoard();
         initializePieces();
     }
 
+    /**
+     * @return the number of rows and columns
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the square numbering and rays of this board
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
     /**
      * Returns the top-left node of the board.
      *
@@ -34,16 +85,171 @@ public class Board {
     }
 
     /**
-     * Builds the 8x8 board structure by linking nodes horizontally,
+     * Returns the node at the given square index by walking the links
+     * from the top-left node.
+     *
+     * @param square row-major square index, from 0 to size * size - 1
+     * @return the node at that square
+     */
+    public Node getNode(int square) {
+
+        if (square < 0 || square >= geometry.getSquares()) {
+            throw new IllegalArgumentException("Square out of range: " + square);
+        }
+
+        Node node = topLeft;
+
+        for (int row = square / size; row > 0; row--) {
+            node = node.getSouth();
+        }
+
+        for (int col = square % size; col > 0; col--) {
+            node = node.getEast();
+        }
+
+        return node;
+    }
+
+    /**
+     * Returns the piece on a square without traversing the grid.
+     *
+     * @param square row-major square index
+     * @return the piece on that square
+     */
+    public PieceColor getPiece(int square) {
+        if (black.get(square)) {
+            return PieceColor.BLACK;
+        }
+        return white.get(square) ? PieceColor.WHITE : PieceColor.EMPTY;
+    }
+
+    /**
+     * Returns the live set of squares holding a color. The set is updated
+     * by the board and must not be modified by callers.
+     *
+     * @param color BLACK or WHITE
+     * @return the squares holding that color
+     */
+    public SquareSet getPieces(PieceColor color) {
+        return color == PieceColor.BLACK ? black : white;
+    }
+
+    /**
+     * Returns the number of piece changes made so far, which lets caches
+     * detect that the board was modified behind their back.
+     *
+     * @return a counter increased on every piece change
+     */
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Returns the mask of squares holding the given color. Only available
+     * for boards of up to 64 squares.
+     *
+     * @param color BLACK or WHITE, or EMPTY for the empty squares
+     * @return the mask of matching squares
+     * @throws IllegalStateException if the board has more than 64 squares
+     */
+    public long getMask(PieceColor color) {
+        switch (color) {
+            case BLACK: return black.toLong();
+            case WHITE: return white.toLong();
+            default:    return ~(black.toLong() | white.toLong()) & allSquares();
+        }
+    }
+
+    /**
+     * Creates a bitboard copy of the current position.
+     *
+     * @return a new bitboard with the pieces of this board
+     * @throws IllegalStateException if the board is not 8x8
+     */
+    public BitBoard toBitBoard() {
+        requireStandardSize();
+        return new BitBoard(black.toLong(), white.toLong());
+    }
+
+    /**
+     * Replaces the pieces of this board with the position held by a
+     * bitboard. Only nodes whose piece differs are updated.
+     *
+     * @param position the position to load
+     * @throws IllegalStateException if the board is not 8x8
+     */
+    public void load(BitBoard position) {
+
+        requireStandardSize();
+
+        Node rowStart = topLeft;
+
+        while (rowStart != null) {
+            Node current = rowStart;
+
+            while (current != null) {
+                PieceColor piece = position.getPiece(current.getIndex());
+                if (current.getPiece() != piece) {
+                    current.setPiece(piece);
+                }
+                current = current.getEast();
+            }
+            rowStart = rowStart.getSouth();
+        }
+    }
+
+    /**
+     * Updates the bitboard mirror after a node changed its piece.
+     *
+     * @param index the square index of the node
+     * @param previous the piece that was on the node
+     * @param piece the new piece of the node
+     */
+    void pieceChanged(int index, PieceColor previous, PieceColor piece) {
+
+        if (previous == PieceColor.BLACK) {
+            black.clear(index);
+        } else if (previous == PieceColor.WHITE) {
+            white.clear(index);
+        }
+
+        if (piece == PieceColor.BLACK) {
+            black.set(index);
+        } else if (piece == PieceColor.WHITE) {
+            white.set(index);
+        }
+
+        changeCount++;
+    }
+
+    /**
+     * @return the mask of every square of a board of up to 64 squares
+     */
+    private long allSquares() {
+        int squares = geometry.getSquares();
+        return squares == Long.SIZE ? -1L : (1L << squares) - 1;
+    }
+
+    /**
+     * Rejects operations that only exist for the standard board.
+     */
+    private void requireStandardSize() {
+        if (size != BitBoard.SIZE) {
+            throw new IllegalStateException("Only available on 8x8 boards, not " + size + "x" + size);
+        }
+    }
+
+    /**
+     * Builds the board structure by linking nodes horizontally,
      * vertically, and diagonally.
      */
     private void initializeBoard() {
 
         Node previousRowStart = null;
 
-        for (int row = 0; row < 8; row++) {
+        for (int row = 0; row < size; row++) {
 
-            Node current = new Node();
+            Node current = new Node(this, geometry.square(row, 0));
 
             if (row == 0) {
                 topLeft = current;
@@ -55,8 +261,8 @@ public class Board {
                 linkVertical(previousRowStart, rowStart);
             }
 
-            for (int col = 1; col < 8; col++) {
-                Node next = new Node();
+            for (int col = 1; col < size; col++) {
+                Node next = new Node(this, geometry.square(row, col));
 
                 current.setEast(next);
                 next.setWest(current);
@@ -104,11 +310,11 @@ public class Board {
 
         Node center = topLeft;
 
-        for (int i = 0; i < 3; i++) {
+        for (int i = 0; i < size / 2 - 1; i++) {
             center = center.getSouth();
         }
 
-        for (int j = 0; j < 3; j++) {
+        for (int j = 0; j < size / 2 - 1; j++) {
             center = center.getEast();
         }
 
@@ -129,13 +335,13 @@ public class Board {
         System.out.println("Top-left west is null: " + (topLeft.getWest() == null));
 
         Node node = topLeft;
-        for (int i = 0; i < 7; i++) {
+        for (int i = 0; i < size - 1; i++) {
             node = node.getEast();
         }
         System.out.println("Top-right east is null: " + (node.getEast() == null));
 
         Node bottomLeft = topLeft;
-        for (int i = 0; i < 7; i++) {
+        for (int i = 0; i < size - 1; i++) {
             bottomLeft = bottomLeft.getSouth();
         }
         System.out.println("Bottom-left south is null: " + (bottomLeft.getSouth() == null));
@@ -0,0 +1,185 @@
+package edu.una.datastructures.model;
+
+/**
+ * Square numbering and ray tables of a square board of a given size.
+ * <p>
+ * Squares are numbered row-major from the top-left corner, so on the
+ * standard 8x8 board they match {@link BitBoard}. For every square and each
+ * of the eight directions the geometry stores the index step and the number
+ * of squares up to the edge, so rays can be walked by index without bounds
+ * checks. Instances are immutable and shared per size.
+ */
+public final class BoardGeometry {
+
+    /** Smallest supported board size. */
+    public static final int MIN_SIZE = 4;
+
+    /** Largest supported board size. */
+    public static final int MAX_SIZE = 32;
+
+    /** Number of ray directions. */
+    public static final int DIRECTIONS = 8;
+
+    /** Direction indices, shared by the geometry and {@link Node#getNeighbor(int)}. */
+    public static final int NORTH = 0;
+    public static final int SOUTH = 1;
+    public static final int EAST = 2;
+    public static final int WEST = 3;
+    public static final int NORTH_EAST = 4;
+    public static final int NORTH_WEST = 5;
+    public static final int SOUTH_EAST = 6;
+    public static final int SOUTH_WEST = 7;
+
+    /** Row step of each direction: N, S, E, W, NE, NW, SE, SW. */
+    private static final int[] ROW_STEPS = {-1, 1, 0, 0, -1, -1, 1, 1};
+
+    /** Column step of each direction. */
+    private static final int[] COL_STEPS = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    /** Opposite of each direction. */
+    private static final int[] OPPOSITES = {1, 0, 3, 2, 7, 6, 5, 4};
+
+    /** Geometries created so far, indexed by size. */
+    private static final BoardGeometry[] CACHE = new BoardGeometry[MAX_SIZE + 1];
+
+    private final int size;
+    private final int squares;
+
+    /** Index step of each direction. */
+    private final int[] steps = new int[DIRECTIONS];
+
+    /** Squares up to the edge, indexed by {@code square * DIRECTIONS + direction}. */
+    private final byte[] rayLengths;
+
+    private BoardGeometry(int size) {
+
+        this.size = size;
+        this.squares = size * size;
+        this.rayLengths = new byte[squares * DIRECTIONS];
+
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            steps[direction] = ROW_STEPS[direction] * size + COL_STEPS[direction];
+        }
+
+        for (int square = 0; square < squares; square++) {
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                int row = square / size + ROW_STEPS[direction];
+                int col = square % size + COL_STEPS[direction];
+                int length = 0;
+
+                while (row >= 0 && row < size && col >= 0 && col < size) {
+                    length++;
+                    row += ROW_STEPS[direction];
+                    col += COL_STEPS[direction];
+                }
+
+                rayLengths[square * DIRECTIONS + direction] = (byte) length;
+            }
+        }
+    }
+
+    /**
+     * Returns the geometry of a board size.
+     *
+     * @param size number of rows and columns: even, from {@link #MIN_SIZE}
+     *             to {@link #MAX_SIZE}
+     * @return the shared geometry
+     */
+    public static synchronized BoardGeometry of(int size) {
+
+        if (size < MIN_SIZE || size > MAX_SIZE || size % 2 != 0) {
+            throw new IllegalArgumentException("Board size must be even and between "
+                    + MIN_SIZE + " and " + MAX_SIZE + ": " + size);
+        }
+
+        if (CACHE[size] == null) {
+            CACHE[size] = new BoardGeometry(size);
+        }
+
+        return CACHE[size];
+    }
+
+    /**
+     * @return the number of rows and columns
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of squares
+     */
+    public int getSquares() {
+        return squares;
+    }
+
+    /**
+     * @param row row index
+     * @param col column index
+     * @return the row-major square index
+     */
+    public int square(int row, int col) {
+        return row * size + col;
+    }
+
+    /**
+     * @param direction direction index in the range 0-7
+     * @return the index step that moves one square in that direction
+     */
+    public int getStep(int direction) {
+        return steps[direction];
+    }
+
+    /**
+     * Finds the direction of the line that leads from one square to
+     * another.
+     *
+     * @param from the starting square
+     * @param to the target square
+     * @return the direction index, or -1 if the squares are equal or do
+     *         not share a row, column or diagonal
+     */
+    public int getDirection(int from, int to) {
+
+        int rows = to / size - from / size;
+        int cols = to % size - from % size;
+
+        if ((rows == 0 && cols == 0) || (rows != 0 && cols != 0 && Math.abs(rows) != Math.abs(cols))) {
+            return -1;
+        }
+
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            if (ROW_STEPS[direction] == Integer.signum(rows) && COL_STEPS[direction] == Integer.signum(cols)) {
+                return direction;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param direction direction index in the range 0-7
+     * @return the index of the opposite direction
+     */
+    public static int opposite(int direction) {
+        return OPPOSITES[direction];
+    }
+
+    /**
+     * @param square the starting square
+     * @param direction direction index in the range 0-7
+     * @return the number of squares between the square and the edge
+     */
+    public int getRayLength(int square, int direction) {
+        return rayLengths[square * DIRECTIONS + direction];
+    }
+
+    /**
+     * Returns the shared ray length table, indexed by
+     * {@code square * DIRECTIONS + direction}, for the nodes of a board.
+     * It must not be modified.
+     */
+    byte[] getRayLengths() {
+        return rayLengths;
+    }
+}
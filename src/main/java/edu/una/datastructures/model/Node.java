@@ -4,8 +4,12 @@ package edu.una.datastructures.model;
  * Represents a single cell of the Reversi board.
  * <p>
  * Each node stores the current piece placed on that position and maintains
- * references to its eight adjacent neighbors, forming a fully linked grid
- * structure without using arrays or matrices.
+ * references to its eight adjacent neighbors, forming a fully linked grid.
+ * The neighbors are kept in a table indexed by the direction constants of
+ * {@link BoardGeometry}, so ray walks can step with
+ * {@link #getNeighbor(int)} instead of dispatching on the direction; the
+ * named getters read the same table. Nodes of a board also know how many
+ * squares lie between them and the edge in each direction.
  */
 public class Node {
 
@@ -15,20 +19,31 @@ public class Node {
     private PieceColor piece;
 
     /**
-     * Cardinal neighbors.
+     * Board that owns this node, notified whenever the piece changes.
+     * Null for standalone nodes.
      */
-    private Node north;
-    private Node south;
-    private Node east;
-    private Node west;
+    private final Board board;
 
     /**
-     * Diagonal neighbors.
+     * Row-major square index of this node inside its board, or -1 for
+     * standalone nodes.
      */
-    private Node northEast;
-    private Node northWest;
-    private Node southEast;
-    private Node southWest;
+    private final int index;
+
+    /**
+     * Neighbors indexed by direction (N, S, E, W, NE, NW, SE, SW).
+     */
+    private final Node[] neighbors = new Node[BoardGeometry.DIRECTIONS];
+
+    /**
+     * Ray length table of the board geometry, or null for standalone nodes.
+     */
+    private final byte[] rayLengths;
+
+    /**
+     * Offset of this node's eight entries in {@link #rayLengths}.
+     */
+    private final int rayOffset;
 
     /**
      * Indicates whether this node represents a valid move for the current
@@ -40,7 +55,31 @@ public class Node {
      * Creates an empty board cell.
      */
     public Node() {
+        this(null, -1);
+    }
+
+    /**
+     * Creates an empty board cell owned by a board.
+     *
+     * @param board the owning board
+     * @param index the row-major square index of the cell
+     */
+    Node(Board board, int index) {
         this.piece = PieceColor.EMPTY;
+        this.board = board;
+        this.index = index;
+        this.rayLengths = board != null ? board.getGeometry().getRayLengths() : null;
+        this.rayOffset = index * BoardGeometry.DIRECTIONS;
+    }
+
+    /**
+     * Returns the row-major square index of this node, which on the
+     * standard 8x8 board matches the bit used for it by {@link BitBoard}.
+     *
+     * @return the square index, or -1 if the node is not part of a board
+     */
+    public int getIndex() {
+        return index;
     }
 
     /**
@@ -76,94 +115,129 @@ public class Node {
      * @param piece the piece color to assign
      */
     public void setPiece(PieceColor piece) {
+        if (board != null && piece != this.piece) {
+            board.pieceChanged(index, this.piece, piece);
+        }
         this.piece = piece;
     }
 
+    /**
+     * Returns the neighbor in a direction.
+     *
+     * @param direction direction index in the range 0-7, as defined by
+     *                  {@link BoardGeometry}
+     * @return the adjacent node, or null at the edge
+     */
+    public Node getNeighbor(int direction) {
+        return neighbors[direction];
+    }
+
+    /**
+     * Returns the number of nodes between this node and the edge in a
+     * direction. Precomputed for the nodes of a board; standalone nodes
+     * count their links.
+     *
+     * @param direction direction index in the range 0-7
+     * @return the number of nodes reachable in that direction
+     */
+    public int getRayLength(int direction) {
+
+        if (rayLengths != null) {
+            return rayLengths[rayOffset + direction];
+        }
+
+        int length = 0;
+        for (Node node = neighbors[direction]; node != null; node = node.neighbors[direction]) {
+            length++;
+        }
+        return length;
+    }
+
     /**
      * @return the north neighbor of this node
      */
     public Node getNorth() {
-        return north;
+        return neighbors[BoardGeometry.NORTH];
     }
 
     public void setNorth(Node north) {
-        this.north = north;
+        neighbors[BoardGeometry.NORTH] = north;
     }
 
     /**
      * @return the south neighbor of this node
      */
     public Node getSouth() {
-        return south;
+        return neighbors[BoardGeometry.SOUTH];
     }
 
     public void setSouth(Node south) {
-        this.south = south;
+        neighbors[BoardGeometry.SOUTH] = south;
     }
 
     /**
      * @return the east neighbor of this node
      */
     public Node getEast() {
-        return east;
+        return neighbors[BoardGeometry.EAST];
     }
 
     public void setEast(Node east) {
-        this.east = east;
+        neighbors[BoardGeometry.EAST] = east;
     }
 
     /**
      * @return the west neighbor of this node
      */
     public Node getWest() {
-        return west;
+        return neighbors[BoardGeometry.WEST];
     }
 
     public void setWest(Node west) {
-        this.west = west;
+        neighbors[BoardGeometry.WEST] = west;
     }
 
     /**
      * @return the northeast neighbor of this node
      */
     public Node getNorthEast() {
-        return northEast;
+        return neighbors[BoardGeometry.NORTH_EAST];
     }
 
     public void setNorthEast(Node northEast) {
-        this.northEast = northEast;
+        neighbors[BoardGeometry.NORTH_EAST] = northEast;
     }
 
     /**
      * @return the northwest neighbor of this node
      */
     public Node getNorthWest() {
-        return northWest;
+        return neighbors[BoardGeometry.NORTH_WEST];
     }
 
     public void setNorthWest(Node northWest) {
-        this.northWest = northWest;
+        neighbors[BoardGeometry.NORTH_WEST] = northWest;
     }
 
     /**
      * @return the southeast neighbor of this node
      */
     public Node getSouthEast() {
-        return southEast;
+        return neighbors[BoardGeometry.SOUTH_EAST];
     }
 
     public void setSouthEast(Node southEast) {
-        this.southEast = southEast;
+        neighbors[BoardGeometry.SOUTH_EAST] = southEast;
     }
 
     /**
      * @return the southwest neighbor of this node
      */
     public Node getSouthWest() {
-        return southWest;
+        return neighbors[BoardGeometry.SOUTH_WEST];
     }
 
     public void setSouthWest(Node southWest) {
-        this.southWest = southWest;
+        neighbors[BoardGeometry.SOUTH_WEST] = southWest;
     }
 }
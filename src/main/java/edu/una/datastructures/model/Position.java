@@ -0,0 +1,244 @@
+package edu.una.datastructures.model;
+
+/**
+ * Immutable 8x8 Reversi position: the pieces of both colors and the player
+ * to move.
+ * <p>
+ * A position holds two masks and the side to move and nothing else, so
+ * millions of them can be kept by caches, analysis threads or spectators
+ * without copying the linked {@link Node} grid, and they can be shared
+ * between threads without synchronization. A snapshot of a live
+ * {@link Board} reads its bitset mirror in constant time, and
+ * {@link #play(int)} returns the following position without touching this
+ * one. Positions compare by value and are suitable as map keys.
+ * <p>
+ * Turns follow {@code GameController}: after a move the opponent is to
+ * move if it has a legal move; otherwise the same player moves again, and
+ * the game is over once neither player can move.
+ */
+public final class Position {
+
+    /** Standard starting position, black to move. */
+    public static final Position INITIAL =
+            new Position(BitBoard.INITIAL_BLACK, BitBoard.INITIAL_WHITE, PieceColor.BLACK);
+
+    private final long black;
+    private final long white;
+    private final boolean whiteToMove;
+
+    /**
+     * Creates a position from explicit masks.
+     *
+     * @param black mask of black pieces
+     * @param white mask of white pieces
+     * @param toMove BLACK or WHITE
+     */
+    public Position(long black, long white, PieceColor toMove) {
+
+        if ((black & white) != 0) {
+            throw new IllegalArgumentException("A square cannot hold both colors");
+        }
+
+        if (toMove == PieceColor.EMPTY) {
+            throw new IllegalArgumentException("The player to move must be BLACK or WHITE");
+        }
+
+        this.black = black;
+        this.white = white;
+        this.whiteToMove = toMove == PieceColor.WHITE;
+    }
+
+    private Position(long black, long white, boolean whiteToMove) {
+        this.black = black;
+        this.white = white;
+        this.whiteToMove = whiteToMove;
+    }
+
+    /**
+     * Takes a snapshot of a board without traversing its nodes. The board
+     * must not be modified by another thread while the snapshot is taken.
+     *
+     * @param board an 8x8 board
+     * @param toMove the player to move
+     * @return the position on the board
+     * @throws IllegalStateException if the board is not 8x8
+     */
+    public static Position of(Board board, PieceColor toMove) {
+
+        if (board.getSize() != BitBoard.SIZE) {
+            throw new IllegalStateException("Only available on 8x8 boards, not "
+                    + board.getSize() + "x" + board.getSize());
+        }
+
+        return new Position(board.getMask(PieceColor.BLACK), board.getMask(PieceColor.WHITE), toMove);
+    }
+
+    /**
+     * @return mask of black pieces
+     */
+    public long getBlack() {
+        return black;
+    }
+
+    /**
+     * @return mask of white pieces
+     */
+    public long getWhite() {
+        return white;
+    }
+
+    /**
+     * @param color BLACK or WHITE, or EMPTY for the empty squares
+     * @return the mask of matching squares
+     */
+    public long getMask(PieceColor color) {
+        switch (color) {
+            case BLACK: return black;
+            case WHITE: return white;
+            default:    return ~(black | white);
+        }
+    }
+
+    /**
+     * @param square square index in the range 0-63
+     * @return the piece on that square
+     * @throws IllegalArgumentException if the square is out of range
+     */
+    public PieceColor getPiece(int square) {
+        long bit = 1L << checkSquare(square);
+
+        if ((black & bit) != 0) {
+            return PieceColor.BLACK;
+        }
+        return (white & bit) != 0 ? PieceColor.WHITE : PieceColor.EMPTY;
+    }
+
+    /**
+     * @return the player to move; meaningless once the game is over
+     */
+    public PieceColor getPlayerToMove() {
+        return whiteToMove ? PieceColor.WHITE : PieceColor.BLACK;
+    }
+
+    /**
+     * @param color the piece color to count
+     * @return the number of squares holding that color
+     */
+    public int count(PieceColor color) {
+        return Long.bitCount(getMask(color));
+    }
+
+    /**
+     * @return mask of the legal moves of the player to move
+     */
+    public long legalMoves() {
+        return whiteToMove ? BitBoard.legalMoves(white, black) : BitBoard.legalMoves(black, white);
+    }
+
+    /**
+     * @param square square index in the range 0-63
+     * @return true if the player to move may play there
+     * @throws IllegalArgumentException if the square is out of range
+     */
+    public boolean isLegalMove(int square) {
+        return (legalMoves() & (1L << checkSquare(square))) != 0;
+    }
+
+    /**
+     * @return true if neither player has a legal move
+     */
+    public boolean isGameOver() {
+        return BitBoard.legalMoves(black, white) == 0 && BitBoard.legalMoves(white, black) == 0;
+    }
+
+    /**
+     * Returns the position after the player to move plays a square.
+     *
+     * @param square square index in the range 0-63
+     * @return the following position
+     * @throws IllegalArgumentException if the square is out of range or the
+     *         move is not legal
+     */
+    public Position play(int square) {
+
+        long move = 1L << checkSquare(square);
+        long player = whiteToMove ? white : black;
+        long opponent = whiteToMove ? black : white;
+        long flipped = ((player | opponent) & move) == 0 ? BitBoard.flips(player, opponent, square) : 0;
+
+        if (flipped == 0) {
+            throw new IllegalArgumentException("Illegal move: " + BitBoard.squareName(square));
+        }
+
+        player |= flipped | move;
+        opponent &= ~flipped;
+
+        boolean nextWhite = BitBoard.legalMoves(opponent, player) != 0 ? !whiteToMove : whiteToMove;
+
+        return whiteToMove ? new Position(opponent, player, nextWhite)
+                           : new Position(player, opponent, nextWhite);
+    }
+
+    /**
+     * Creates a mutable bitboard with the pieces of this position.
+     *
+     * @return a new bitboard
+     */
+    public BitBoard toBitBoard() {
+        return new BitBoard(black, white);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+
+        if (this == other) {
+            return true;
+        }
+
+        if (!(other instanceof Position)) {
+            return false;
+        }
+
+        Position position = (Position) other;
+        return black == position.black && white == position.white && whiteToMove == position.whiteToMove;
+    }
+
+    @Override
+    public int hashCode() {
+
+        long h = (black * 0x9E3779B97F4A7C15L + white) ^ (whiteToMove ? 0x632BE59BD9B4E019L : 0);
+        h = (h ^ (h >>> 32)) * 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Writes the board as eight rows of {@code B}, {@code W} and {@code .}
+     * followed by the player to move.
+     */
+    @Override
+    public String toString() {
+
+        StringBuilder text = new StringBuilder(BitBoard.SQUARES + BitBoard.SIZE + 2);
+
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            PieceColor piece = getPiece(square);
+            text.append(piece == PieceColor.BLACK ? 'B' : piece == PieceColor.WHITE ? 'W' : '.');
+            if (square % BitBoard.SIZE == BitBoard.SIZE - 1) {
+                text.append('\n');
+            }
+        }
+
+        return text.append(whiteToMove ? 'W' : 'B').toString();
+    }
+
+    /**
+     * Returns a square index after checking that it lies on the board;
+     * shifts would otherwise wrap it around silently.
+     */
+    private static int checkSquare(int square) {
+        if (square < 0 || square >= BitBoard.SQUARES) {
+            throw new IllegalArgumentException("Square out of range: " + square);
+        }
+        return square;
+    }
+}
@@ -0,0 +1,219 @@
+package edu.una.datastructures.model;
+
+import java.util.Arrays;
+
+/**
+ * Mutable set of square indices of a board of any supported size.
+ * <p>
+ * Boards of up to 64 squares use a single {@code long}; larger boards use
+ * an array of words. Both forms answer membership in constant time and
+ * iterate their members with {@link #nextSetBit(int)} in time proportional
+ * to the number of words.
+ */
+public abstract class SquareSet {
+
+    /**
+     * Creates an empty set for a board with the given number of squares.
+     *
+     * @param squares number of squares of the board
+     * @return a single-word set for up to 64 squares, a multi-word set above
+     */
+    public static SquareSet create(int squares) {
+        return squares <= Long.SIZE ? new SingleWord() : new MultiWord(squares);
+    }
+
+    /**
+     * @param square the square index
+     * @return true if the square is in the set
+     */
+    public abstract boolean get(int square);
+
+    /**
+     * Adds a square to the set.
+     *
+     * @param square the square index
+     */
+    public abstract void set(int square);
+
+    /**
+     * Removes a square from the set.
+     *
+     * @param square the square index
+     */
+    public abstract void clear(int square);
+
+    /**
+     * Removes every square from the set.
+     */
+    public abstract void clear();
+
+    /**
+     * @return the number of squares in the set
+     */
+    public abstract int count();
+
+    /**
+     * @return true if the set holds no square
+     */
+    public abstract boolean isEmpty();
+
+    /**
+     * Finds the next member of the set.
+     *
+     * @param from the first square index to consider
+     * @return the smallest member greater than or equal to {@code from},
+     *         or -1 if there is none
+     */
+    public abstract int nextSetBit(int from);
+
+    /**
+     * Returns the set as a mask; only available for up to 64 squares.
+     *
+     * @return the mask of the members
+     * @throws IllegalStateException if the set spans several words
+     */
+    public abstract long toLong();
+
+    /**
+     * Adds or removes a square.
+     *
+     * @param square the square index
+     * @param value true to add the square, false to remove it
+     */
+    public void set(int square, boolean value) {
+        if (value) {
+            set(square);
+        } else {
+            clear(square);
+        }
+    }
+
+    /**
+     * Set of up to 64 squares held in one word.
+     */
+    private static final class SingleWord extends SquareSet {
+
+        private long bits;
+
+        @Override
+        public boolean get(int square) {
+            return (bits & (1L << square)) != 0;
+        }
+
+        @Override
+        public void set(int square) {
+            bits |= 1L << square;
+        }
+
+        @Override
+        public void clear(int square) {
+            bits &= ~(1L << square);
+        }
+
+        @Override
+        public void clear() {
+            bits = 0;
+        }
+
+        @Override
+        public int count() {
+            return Long.bitCount(bits);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bits == 0;
+        }
+
+        @Override
+        public int nextSetBit(int from) {
+            if (from >= Long.SIZE) {
+                return -1;
+            }
+            long remaining = bits & (-1L << from);
+            return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+        }
+
+        @Override
+        public long toLong() {
+            return bits;
+        }
+    }
+
+    /**
+     * Set of more than 64 squares held in an array of words.
+     */
+    private static final class MultiWord extends SquareSet {
+
+        private final long[] words;
+
+        MultiWord(int squares) {
+            this.words = new long[(squares + Long.SIZE - 1) / Long.SIZE];
+        }
+
+        @Override
+        public boolean get(int square) {
+            return (words[square >>> 6] & (1L << square)) != 0;
+        }
+
+        @Override
+        public void set(int square) {
+            words[square >>> 6] |= 1L << square;
+        }
+
+        @Override
+        public void clear(int square) {
+            words[square >>> 6] &= ~(1L << square);
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(words, 0);
+        }
+
+        @Override
+        public int count() {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            for (long word : words) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int nextSetBit(int from) {
+
+            int index = from >>> 6;
+            if (index >= words.length) {
+                return -1;
+            }
+
+            long word = words[index] & (-1L << from);
+
+            while (true) {
+                if (word != 0) {
+                    return index * Long.SIZE + Long.numberOfTrailingZeros(word);
+                }
+                if (++index == words.length) {
+                    return -1;
+                }
+                word = words[index];
+            }
+        }
+
+        @Override
+        public long toLong() {
+            throw new IllegalStateException("Square set spans " + words.length + " words");
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package edu.una.datastructures.server;
+
+import edu.una.datastructures.engine.SearchEngine;
+import edu.una.datastructures.engine.TranspositionTable;
+import edu.una.datastructures.logic.BotPlayer;
+import edu.una.datastructures.metrics.EngineMetrics;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Fixed set of threads searching bot moves for all sessions of a
+ * {@link GameServer}.
+ * <p>
+ * Searches wait in a bounded queue and a full queue is reported to the
+ * client instead of piling up. Every search is bounded by a time and node
+ * budget, and each owner (a server connection) may only have a fixed number
+ * of searches queued or running, so one client cannot fill the queue and
+ * starve the others: a client asking for deep searches delays the others
+ * by at most its share of budgets. Each worker thread keeps its own
+ * {@link SearchEngine} and
+ * transposition table, so engine memory depends on the number of threads,
+ * not on the number of sessions.
+ */
+final class BotPool {
+
+    /** Result passed when a move computation failed. */
+    static final int FAILED = -2;
+
+    private final ThreadPoolExecutor executor;
+
+    /** Searches queued or running per owner; owners without any are absent. */
+    private final ConcurrentHashMap<Object, Integer> pending = new ConcurrentHashMap<>();
+
+    private final int maxPendingPerOwner;
+
+    private final ThreadLocal<SearchEngine> engines;
+
+    /** Bot handed to the sessions; it searches with the engine of the calling worker. */
+    private final BotPlayer bot;
+
+    /**
+     * Creates a pool.
+     *
+     * @param threads number of worker threads
+     * @param queueCapacity number of searches that may wait for a worker
+     * @param maxPendingPerOwner number of searches one owner may have
+     *                           queued or running
+     * @param timeLimitMillis time budget per search
+     * @param nodeLimit node budget per search, or 0 for none
+     * @param hashMegabytes memory budget of the table of each worker, in MB
+     * @param metrics metrics given to the engines, or null
+     */
+    BotPool(int threads, int queueCapacity, int maxPendingPerOwner, long timeLimitMillis, long nodeLimit,
+            int hashMegabytes, EngineMetrics metrics) {
+
+        this.maxPendingPerOwner = maxPendingPerOwner;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "bot-pool");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.engines = ThreadLocal.withInitial(() -> {
+            SearchEngine engine = new SearchEngine(new TranspositionTable(hashMegabytes));
+            engine.setTimeLimit(timeLimitMillis);
+            engine.setNodeLimit(nodeLimit);
+            engine.setMetrics(metrics);
+            return engine;
+        });
+
+        this.bot = (player, opponent) -> engines.get().selectMove(player, opponent);
+    }
+
+    /**
+     * @return the bot to give to sessions; it must only be used by the
+     *         move computations submitted to this pool
+     */
+    BotPlayer getBot() {
+        return bot;
+    }
+
+    /**
+     * Queues a move computation.
+     *
+     * @param owner the client the computation is made for
+     * @param search the computation, returning a square or -1
+     * @param onResult called on the worker thread with the square, or with
+     *                 {@link #FAILED} if the computation failed; the owner's
+     *                 search no longer counts as pending by then
+     * @return false if the owner has too many searches pending, the queue
+     *         is full or the pool is shut down
+     */
+    boolean submit(Object owner, IntSupplier search, IntConsumer onResult) {
+
+        if (pending.merge(owner, 1, Integer::sum) > maxPendingPerOwner) {
+            release(owner);
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                int square;
+                try {
+                    square = search.getAsInt();
+                } catch (RuntimeException e) {
+                    System.err.println("Bot search failed: " + e);
+                    square = FAILED;
+                }
+                release(owner);
+                onResult.accept(square);
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            release(owner);
+            return false;
+        }
+    }
+
+    private void release(Object owner) {
+        pending.computeIfPresent(owner, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * @return the number of searches waiting for a worker
+     */
+    int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops the workers; queued searches are dropped.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,637 @@
+package edu.una.datastructures.server;
+
+import edu.una.datastructures.metrics.EngineMetrics;
+import edu.una.datastructures.model.BitBoard;
+import edu.una.datastructures.model.BoardGeometry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntSupplier;
+
+/**
+ * Hosts many games at once behind a line-based TCP protocol on the
+ * loopback interface.
+ * <p>
+ * Every request is one line and gets one response line, {@code OK ...} or
+ * {@code ERR message}:
+ * <pre>
+ * NEW [size]          OK id                 creates a game (8x8 by default)
+ * MOVE id square      OK state              plays for the player to move
+ * BOT id              OK square state       lets the bot play for the player to move
+ * STATE id            OK state
+ * CLOSE id            OK                    deletes a game
+ * QUIT                BYE                   closes the connection
+ * </pre>
+ * Squares are row-major indices from 0, or names such as {@code f5} on
+ * 8x8 boards. A state is the board size, the player to move ({@code B},
+ * {@code W}, or {@code -} once the game is over), the disc counts and one
+ * character per square ({@code B}, {@code W} or {@code .}). Any connection
+ * may use any game.
+ * <p>
+ * All connections and games are served by one event loop thread using
+ * non-blocking channels, so idle connections cost no thread. Bot moves are
+ * searched by a {@link BotPool}; while a connection waits for one, its
+ * further requests stay queued so responses keep the order of requests.
+ * Only the most recently used games keep their controller in memory; the
+ * others are hibernated to their move list and restored on their next
+ * request.
+ */
+public final class GameServer implements Closeable {
+
+    /** Port used by the command-line tool when none is given. */
+    public static final int DEFAULT_PORT = 7878;
+
+    /** Longest accepted request line. */
+    private static final int MAX_LINE = 256;
+
+    /** Unsent response bytes above which a connection stops being read. */
+    private static final int MAX_PENDING_OUTPUT = 1 << 16;
+
+    private static final int READ_BUFFER_BYTES = 1024;
+
+    /** Bot searches one connection may have queued or running. */
+    private static final int MAX_PENDING_SEARCHES = 1;
+
+    private final int port;
+    private final int botThreads;
+
+    private int botQueueCapacity = 1024;
+    private long botTimeLimitMillis = 100;
+    private long botNodeLimit;
+    private int botHashMegabytes = 16;
+    private int maxLiveGames = 4096;
+    private int maxGames = 1_000_000;
+    private EngineMetrics metrics;
+
+    private final Map<Integer, GameSession> games = new HashMap<>();
+
+    /** Games holding a controller, least recently used first. */
+    private final LinkedHashMap<Integer, GameSession> live = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, GameSession> eldest) {
+            if (size() > maxLiveGames) {
+                eldest.getValue().hibernate();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /** Work handed to the event loop by other threads. */
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private BotPool pool;
+    private Thread loop;
+    private int nextId = 1;
+
+    private volatile boolean running;
+    private volatile int gameCount;
+    private volatile int connectionCount;
+
+    /**
+     * Creates a server; {@link #start()} opens it.
+     *
+     * @param port TCP port on the loopback interface, or 0 for any free port
+     * @param botThreads number of threads searching bot moves
+     */
+    public GameServer(int port, int botThreads) {
+
+        if (botThreads < 1) {
+            throw new IllegalArgumentException("At least one bot thread is required");
+        }
+
+        this.port = port;
+        this.botThreads = botThreads;
+    }
+
+    /**
+     * Sets how many bot searches may wait for a worker; further requests
+     * are answered with an error.
+     *
+     * @param botQueueCapacity number of queued searches
+     */
+    public void setBotQueueCapacity(int botQueueCapacity) {
+        this.botQueueCapacity = botQueueCapacity;
+    }
+
+    /**
+     * Sets the time budget of each bot search.
+     *
+     * @param botTimeLimitMillis milliseconds per move
+     */
+    public void setBotTimeLimit(long botTimeLimitMillis) {
+        this.botTimeLimitMillis = botTimeLimitMillis;
+    }
+
+    /**
+     * Sets the node budget of each bot search.
+     *
+     * @param botNodeLimit nodes per move, or 0 for no limit
+     */
+    public void setBotNodeLimit(long botNodeLimit) {
+        this.botNodeLimit = botNodeLimit;
+    }
+
+    /**
+     * Sets the memory budget of the transposition table of each bot
+     * thread.
+     *
+     * @param botHashMegabytes table size in MB
+     */
+    public void setBotHashSize(int botHashMegabytes) {
+        this.botHashMegabytes = botHashMegabytes;
+    }
+
+    /**
+     * Sets how many games keep their controller in memory. Less recently
+     * used games are hibernated to their move list.
+     *
+     * @param maxLiveGames number of games with a controller
+     */
+    public void setMaxLiveGames(int maxLiveGames) {
+        this.maxLiveGames = maxLiveGames;
+    }
+
+    /**
+     * Sets the number of games that may exist at once.
+     *
+     * @param maxGames maximum number of games
+     */
+    public void setMaxGames(int maxGames) {
+        this.maxGames = maxGames;
+    }
+
+    /**
+     * Sets the metrics fed by the controllers and bot engines of every
+     * game. Must be called before {@link #start()}.
+     *
+     * @param metrics the metrics, or null to skip measuring
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Binds the port and starts the event loop and the bot threads.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start() throws IOException {
+
+        if (running) {
+            throw new IllegalStateException("Server already started");
+        }
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        pool = new BotPool(botThreads, botQueueCapacity, MAX_PENDING_SEARCHES, botTimeLimitMillis,
+                           botNodeLimit, botHashMegabytes, metrics);
+        running = true;
+
+        loop = new Thread(this::runLoop, "game-server");
+        loop.start();
+    }
+
+    /**
+     * @return the bound port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return the number of games
+     */
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * @return the number of open connections
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Stops the event loop, closes every connection and stops the bot
+     * threads. Games are discarded.
+     */
+    @Override
+    public synchronized void close() {
+
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        selector.wakeup();
+
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        pool.shutdown();
+    }
+
+    private void runLoop() {
+
+        try {
+            while (running) {
+                selector.select();
+
+                for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    Connection connection = (Connection) key.attachment();
+
+                    try {
+                        if (key.isWritable()) {
+                            connection.flush();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Game server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException e) {
+                    // Closing anyway.
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Closing anyway.
+            }
+            running = false;
+        }
+    }
+
+    private void accept() throws IOException {
+
+        SocketChannel channel = serverChannel.accept();
+
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connectionCount++;
+    }
+
+    /**
+     * Hands work to the event loop thread.
+     */
+    private void post(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Marks a game as recently used, restoring its controller if needed and
+     * hibernating the least recently used game when there are too many.
+     */
+    private GameSession use(GameSession game) {
+        live.put(game.getId(), game);
+        game.controller();
+        return game;
+    }
+
+    /**
+     * State of one client connection; only used on the event loop thread.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private SelectionKey key;
+
+        private final ByteBuffer input = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        private final StringBuilder line = new StringBuilder();
+
+        /** Complete request lines not handled yet. */
+        private final ArrayDeque<String> requests = new ArrayDeque<>();
+
+        /** Response bytes not written yet, ready to be read. */
+        private ByteBuffer output = ByteBuffer.allocate(0);
+
+        /** True while a bot move requested on this connection is searched. */
+        private boolean waiting;
+
+        private boolean closeAfterFlush;
+        private boolean closed;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+
+            if (channel.read(input) < 0) {
+                close();
+                return;
+            }
+
+            input.flip();
+
+            while (input.hasRemaining()) {
+                char ch = (char) (input.get() & 0xFF);
+
+                if (ch == '\n') {
+                    requests.add(line.toString().trim());
+                    line.setLength(0);
+                } else if (ch != '\r') {
+                    if (line.length() == MAX_LINE) {
+                        closeAfterFlush = true;
+                        send("ERR Line longer than " + MAX_LINE + " characters");
+                        break;
+                    }
+                    line.append(ch);
+                }
+            }
+
+            input.clear();
+            handleRequests();
+        }
+
+        /**
+         * Handles queued requests until one has to wait for the bot or the
+         * client stops reading its responses.
+         */
+        void handleRequests() {
+
+            while (!waiting && !closed && !closeAfterFlush && output.remaining() < MAX_PENDING_OUTPUT
+                    && !requests.isEmpty()) {
+                handle(requests.poll());
+            }
+
+            updateInterest();
+        }
+
+        void updateInterest() {
+
+            if (closed) {
+                return;
+            }
+
+            boolean blocked = waiting || closeAfterFlush || output.remaining() >= MAX_PENDING_OUTPUT
+                    || !requests.isEmpty();
+            key.interestOps((blocked ? 0 : SelectionKey.OP_READ)
+                    | (output.hasRemaining() ? SelectionKey.OP_WRITE : 0));
+        }
+
+        void send(String response) {
+
+            if (closed) {
+                return;
+            }
+
+            byte[] bytes = (response + "\n").getBytes(StandardCharsets.US_ASCII);
+
+            if (output.hasRemaining()) {
+                ByteBuffer joined = ByteBuffer.allocate(output.remaining() + bytes.length);
+                joined.put(output).put(bytes).flip();
+                output = joined;
+            } else {
+                output = ByteBuffer.wrap(bytes);
+            }
+
+            try {
+                write();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /**
+         * Writes as much pending output as the socket takes.
+         */
+        private void write() throws IOException {
+
+            channel.write(output);
+
+            if (!output.hasRemaining() && closeAfterFlush) {
+                close();
+            }
+        }
+
+        /**
+         * Writes pending output when the socket is writable again, then
+         * resumes the requests held back by it.
+         */
+        void flush() throws IOException {
+
+            write();
+
+            if (closed) {
+                return;
+            }
+
+            if (output.remaining() < MAX_PENDING_OUTPUT && !waiting && !requests.isEmpty()) {
+                handleRequests();
+            } else {
+                updateInterest();
+            }
+        }
+
+        void close() {
+
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            connectionCount--;
+            key.cancel();
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already gone.
+            }
+        }
+
+        private void handle(String request) {
+
+            if (request.isEmpty()) {
+                return;
+            }
+
+            String[] parts = request.split("\\s+");
+
+            try {
+                switch (parts[0].toUpperCase(Locale.ROOT)) {
+                    case "NEW":
+                        newGame(parts.length > 1 ? Integer.parseInt(parts[1]) : BitBoard.SIZE);
+                        break;
+                    case "MOVE":
+                        move(game(parts, 3), parts[2]);
+                        break;
+                    case "BOT":
+                        botMove(game(parts, 2));
+                        break;
+                    case "STATE":
+                        send("OK " + game(parts, 2).describe());
+                        break;
+                    case "CLOSE":
+                        GameSession game = game(parts, 2);
+                        games.remove(game.getId());
+                        live.remove(game.getId());
+                        gameCount = games.size();
+                        send("OK");
+                        break;
+                    case "QUIT":
+                        closeAfterFlush = true;
+                        send("BYE");
+                        break;
+                    default:
+                        send("ERR Unknown command: " + parts[0]);
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                send("ERR " + e.getMessage());
+            }
+        }
+
+        /**
+         * Finds the game named by a request and marks it as used.
+         */
+        private GameSession game(String[] parts, int length) {
+
+            if (parts.length != length) {
+                throw new IllegalArgumentException("Expected " + (length - 1) + " argument(s)");
+            }
+
+            GameSession game = games.get(Integer.parseInt(parts[1]));
+
+            if (game == null) {
+                throw new IllegalArgumentException("No such game: " + parts[1]);
+            }
+
+            return use(game);
+        }
+
+        private void newGame(int size) {
+
+            BoardGeometry.of(size);
+
+            if (games.size() >= maxGames) {
+                throw new IllegalStateException("Too many games");
+            }
+
+            GameSession game = new GameSession(nextId++, size, metrics);
+            games.put(game.getId(), game);
+            use(game);
+            gameCount = games.size();
+            send("OK " + game.getId());
+        }
+
+        private void move(GameSession game, String square) {
+
+            if (game.isBotPending()) {
+                throw new IllegalStateException("Bot move in progress");
+            }
+
+            int index = square.chars().allMatch(Character::isDigit) ? Integer.parseInt(square)
+                      : game.getSize() == BitBoard.SIZE ? BitBoard.parseSquare(square)
+                      : -1;
+
+            if (!game.play(index)) {
+                throw new IllegalArgumentException("Illegal move: " + square);
+            }
+
+            send("OK " + game.describe());
+        }
+
+        private void botMove(GameSession game) {
+
+            if (game.isBotPending()) {
+                throw new IllegalStateException("Bot move in progress");
+            }
+
+            IntSupplier search = game.prepareBotMove(pool.getBot());
+
+            if (search == null) {
+                throw new IllegalStateException("Game is over");
+            }
+
+            game.setBotPending(true);
+            waiting = true;
+
+            if (!pool.submit(this, search, square -> post(() -> finishBotMove(game, square)))) {
+                game.setBotPending(false);
+                waiting = false;
+                throw new IllegalStateException("Bot queue is full");
+            }
+        }
+
+        /**
+         * Plays the result of a bot search on the event loop thread and
+         * resumes the queued requests of the connection.
+         */
+        private void finishBotMove(GameSession game, int square) {
+
+            game.setBotPending(false);
+            waiting = false;
+
+            if (games.get(game.getId()) != game) {
+                send("ERR Game was closed");
+            } else if (square == BotPool.FAILED) {
+                send("ERR Bot search failed");
+            } else if (use(game).playBotMove(square)) {
+                send("OK " + square + " " + game.describe());
+            } else {
+                send("ERR Bot found no move");
+            }
+
+            handleRequests();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package edu.una.datastructures.server;
+
+import edu.una.datastructures.logic.BotPlayer;
+import edu.una.datastructures.logic.GameController;
+import edu.una.datastructures.metrics.EngineMetrics;
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.Node;
+import edu.una.datastructures.model.PieceColor;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+/**
+ * One game hosted by a {@link GameServer}.
+ * <p>
+ * While the game is in use it is backed by its own {@link Board} and
+ * {@link GameController}. The session also records the squares played, so
+ * the server can hibernate games that have not been used for a while by
+ * dropping their controller, which holds almost all of their memory; the
+ * controller is rebuilt by replaying the moves on the next access. Sessions
+ * are only touched by the server's event loop thread.
+ */
+final class GameSession {
+
+    private final int id;
+    private final int size;
+
+    /** Metrics given to the controller, or null. */
+    private final EngineMetrics metrics;
+
+    /** Controller of the game, or null while hibernated. */
+    private GameController controller;
+
+    /** Squares played so far, passes excluded. */
+    private short[] moves = new short[8];
+    private int moveCount;
+
+    /** True while a bot move is being searched for this game. */
+    private boolean botPending;
+
+    GameSession(int id, int size, EngineMetrics metrics) {
+        this.id = id;
+        this.size = size;
+        this.metrics = metrics;
+        this.controller = newController();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getMoveCount() {
+        return moveCount;
+    }
+
+    boolean isHibernated() {
+        return controller == null;
+    }
+
+    boolean isBotPending() {
+        return botPending;
+    }
+
+    void setBotPending(boolean botPending) {
+        this.botPending = botPending;
+    }
+
+    /**
+     * Returns the controller, rebuilding it from the recorded moves if the
+     * session is hibernated.
+     */
+    GameController controller() {
+
+        if (controller == null) {
+            GameController restored = newController();
+            Board board = restored.getBoard();
+
+            for (int i = 0; i < moveCount; i++) {
+                if (!restored.playMove(board.getNode(moves[i]))) {
+                    throw new IllegalStateException("Recorded move " + moves[i] + " of game " + id
+                            + " is not legal");
+                }
+            }
+
+            controller = restored;
+        }
+
+        return controller;
+    }
+
+    private GameController newController() {
+        GameController game = new GameController(new Board(size));
+        game.setMetrics(metrics);
+        return game;
+    }
+
+    /**
+     * Drops the controller; the recorded moves are kept.
+     */
+    void hibernate() {
+        controller = null;
+    }
+
+    /**
+     * Plays a move for the player to move.
+     *
+     * @param square row-major square index
+     * @return true if the move was legal and played
+     */
+    boolean play(int square) {
+
+        GameController game = controller();
+
+        if (square < 0 || square >= size * size || !game.playMove(game.getBoard().getNode(square))) {
+            return false;
+        }
+
+        record(square);
+        return true;
+    }
+
+    /**
+     * Captures the position for a bot move by the player to move.
+     *
+     * @param bot the strategy used for the move
+     * @return the move computation, or null if the game is over
+     */
+    IntSupplier prepareBotMove(BotPlayer bot) {
+
+        GameController game = controller();
+
+        if (game.isGameOver()) {
+            return null;
+        }
+
+        game.setGameMode(true, game.getCurrentPlayer(), bot);
+        return game.prepareBotMove();
+    }
+
+    /**
+     * Plays a move chosen by the bot.
+     *
+     * @param square the chosen square
+     * @return true if the move was played
+     */
+    boolean playBotMove(int square) {
+
+        GameController game = controller();
+        game.setGameMode(true, game.getCurrentPlayer(), null);
+
+        if (!game.playBotMove(square)) {
+            return false;
+        }
+
+        record(square);
+        return true;
+    }
+
+    private void record(int square) {
+
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+
+        moves[moveCount++] = (short) square;
+    }
+
+    /**
+     * Describes the game on one line: the board size, the player to move
+     * ({@code B}, {@code W}, or {@code -} once the game is over), the disc
+     * counts and one character per square in row-major order ({@code B},
+     * {@code W} or {@code .}).
+     */
+    String describe() {
+
+        GameController game = controller();
+        Board board = game.getBoard();
+        int squares = size * size;
+        StringBuilder line = new StringBuilder(squares + 24);
+
+        line.append(size).append(' ')
+            .append(game.isGameOver() ? '-' : game.getCurrentPlayer() == PieceColor.BLACK ? 'B' : 'W')
+            .append(' ').append(game.countPieces(PieceColor.BLACK))
+            .append(' ').append(game.countPieces(PieceColor.WHITE))
+            .append(' ');
+
+        for (Node row = board.getTopLeft(); row != null; row = row.getSouth()) {
+            for (Node node = row; node != null; node = node.getEast()) {
+                PieceColor piece = node.getPiece();
+                line.append(piece == PieceColor.BLACK ? 'B' : piece == PieceColor.WHITE ? 'W' : '.');
+            }
+        }
+
+        return line.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.archive.ArchiveAnalyzer;
+import edu.una.datastructures.archive.ArchiveReport;
+import edu.una.datastructures.archive.GameArchive;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analyzes one or more game archives in parallel and prints the results,
+ * first-mover advantage, differential histogram, most common openings and
+ * most played positions:
+ * <pre>
+ * java -cp target/classes edu.una.datastructures.tools.AnalyzeArchives &lt;archive&gt;[,archive...] [threads] [top]
+ * </pre>
+ * The number of threads defaults to the number of available processors
+ * and the number of openings and positions listed to 10.
+ */
+public final class AnalyzeArchives {
+
+    private AnalyzeArchives() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+
+        if (args.length < 1) {
+            System.err.println("Usage: AnalyzeArchives <archive>[,archive...] [threads] [top]");
+            System.exit(1);
+        }
+
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                                      : Runtime.getRuntime().availableProcessors();
+        int top = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        List<GameArchive> archives = new ArrayList<>();
+        for (String file : args[0].split(",")) {
+            archives.add(GameArchive.open(Paths.get(file)));
+        }
+
+        ArchiveReport report = new ArchiveAnalyzer(threads).analyze(archives);
+
+        System.out.printf("Archives: %d  Threads: %d%n", archives.size(), threads);
+        report.print(top);
+    }
+}
@@ -0,0 +1,153 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.metrics.LatencyHistogram;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes the Reversi events of a Flight Recorder file offline: count and
+ * duration percentiles of moves, applied moves, searches and board refreshes,
+ * flips per move, search depth, nodes per second and share of cutoffs caused
+ * by the first move tried, cells updated and scene graph nodes created, and
+ * the methods most often on top of the execution samples:
+ * <pre>
+ * java -XX:StartFlightRecording:settings=jfr/reversi.jfc,filename=reversi.jfr ...
+ * java -cp target/classes edu.una.datastructures.tools.AnalyzeRecording reversi.jfr [top]
+ * </pre>
+ * The number of hot methods listed defaults to 10.
+ */
+public final class AnalyzeRecording {
+
+    private static final String PREFIX = "edu.una.datastructures.";
+
+    private AnalyzeRecording() {
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 1) {
+            System.err.println("Usage: AnalyzeRecording <recording.jfr> [top]");
+            System.exit(1);
+        }
+
+        int top = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Map<String, LatencyHistogram> durations = new LinkedHashMap<>();
+        for (String name : new String[] {"Move", "ApplyMove", "Search", "BoardRefresh"}) {
+            durations.put(name, new LatencyHistogram());
+        }
+
+        long moveFlips = 0;
+        long applyFlips = 0;
+        long searches = 0;
+        long helperSearches = 0;
+        long depthSum = 0;
+        long searchNodes = 0;
+        long searchNanos = 0;
+        long cutoffs = 0;
+        double firstMoveCutoffs = 0;
+        long cellsUpdated = 0;
+        long nodesCreated = 0;
+        long builds = 0;
+        long samples = 0;
+        Map<String, Integer> hotMethods = new HashMap<>();
+
+        try (RecordingFile recording = new RecordingFile(Paths.get(args[0]))) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String type = event.getEventType().getName();
+
+                if (type.equals("jdk.ExecutionSample")) {
+                    samples++;
+                    RecordedStackTrace stack = event.getStackTrace();
+                    if (stack != null && !stack.getFrames().isEmpty()) {
+                        RecordedFrame frame = stack.getFrames().get(0);
+                        hotMethods.merge(frame.getMethod().getType().getName() + "."
+                                + frame.getMethod().getName(), 1, Integer::sum);
+                    }
+                    continue;
+                }
+
+                if (!type.startsWith(PREFIX)) {
+                    continue;
+                }
+
+                String name = type.substring(PREFIX.length());
+                LatencyHistogram histogram = durations.get(name);
+                if (histogram == null) {
+                    continue;
+                }
+                histogram.record(event.getDuration().toNanos());
+
+                switch (name) {
+                    case "Move":
+                        moveFlips += event.getInt("flips");
+                        break;
+                    case "ApplyMove":
+                        applyFlips += event.getInt("flips");
+                        break;
+                    case "Search":
+                        searchNodes += event.getLong("nodes");
+                        long searchCutoffs = event.getLong("cutoffs");
+                        cutoffs += searchCutoffs;
+                        firstMoveCutoffs += searchCutoffs * event.getDouble("firstMoveCutoffRate");
+                        if (event.getBoolean("helper")) {
+                            helperSearches++;
+                        } else {
+                            searches++;
+                            depthSum += event.getInt("depth");
+                            searchNanos += event.getDuration().toNanos();
+                        }
+                        break;
+                    default:
+                        cellsUpdated += event.getInt("cellsUpdated");
+                        int created = event.getInt("nodesCreated");
+                        nodesCreated += created;
+                        builds += created > 0 ? 1 : 0;
+                }
+            }
+        }
+
+        System.out.printf("%-13s %10s %12s %10s %10s %10s %10s%n",
+                "Event", "Count", "Total ms", "Mean us", "p50 us", "p99 us", "Max us");
+        for (Map.Entry<String, LatencyHistogram> entry : durations.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            System.out.printf("%-13s %,10d %,12.1f %,10.1f %,10.1f %,10.1f %,10.1f%n",
+                    entry.getKey(), histogram.getCount(), histogram.getTotalNanos() / 1e6,
+                    histogram.getMeanNanos() / 1e3, histogram.getQuantileNanos(0.5) / 1e3,
+                    histogram.getQuantileNanos(0.99) / 1e3, histogram.getMaxNanos() / 1e3);
+        }
+
+        long moves = durations.get("Move").getCount();
+        long applied = durations.get("ApplyMove").getCount();
+        long refreshes = durations.get("BoardRefresh").getCount();
+
+        System.out.println();
+        System.out.printf("Flips per move:          %.2f (played), %.2f (applied)%n",
+                moves == 0 ? 0 : (double) moveFlips / moves, applied == 0 ? 0 : (double) applyFlips / applied);
+        System.out.printf("Searches:                %,d (+%,d helper)  mean depth %.1f  %,.0f nodes/s"
+                + "  %.1f%% first-move cutoffs%n",
+                searches, helperSearches, searches == 0 ? 0 : (double) depthSum / searches,
+                searchNanos == 0 ? 0 : searchNodes * 1e9 / searchNanos,
+                cutoffs == 0 ? 0 : 100 * firstMoveCutoffs / cutoffs);
+        System.out.printf("Board refreshes:         %,d (%,d builds)  %,d cells updated  %,d nodes created%n",
+                refreshes, builds, cellsUpdated, nodesCreated);
+
+        if (samples > 0) {
+            double total = samples;
+            System.out.printf("%nTop methods of %,d execution samples:%n", samples);
+            hotMethods.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(top)
+                    .forEach(entry -> System.out.printf("%6.1f%%  %s%n",
+                            100.0 * entry.getValue() / total, entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.archive.GameArchive;
+import edu.una.datastructures.logic.GameController;
+import edu.una.datastructures.model.PieceColor;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Summarizes a game archive and measures how fast it can be read.
+ * <p>
+ * The archive is iterated once with a cursor, reading every move, to
+ * report results, game lengths and games per second; then random games are
+ * looked up through the block index. With {@code replay}, every game is
+ * also replayed through {@link GameController} and its final disc counts
+ * are checked against the archive:
+ * <pre>
+ * java -cp target/classes edu.una.datastructures.tools.ArchiveInfo &lt;archive&gt; [replay]
+ * </pre>
+ */
+public final class ArchiveInfo {
+
+    /** Number of random lookups timed. */
+    private static final int LOOKUPS = 100_000;
+
+    private ArchiveInfo() {
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 1) {
+            System.err.println("Usage: ArchiveInfo <archive> [replay]");
+            System.exit(1);
+        }
+
+        GameArchive archive = GameArchive.open(Paths.get(args[0]));
+        boolean replay = args.length > 1 && args[1].equals("replay");
+
+        System.out.printf("Board: %dx%d  Games: %,d  Blocks: %,d%n",
+                archive.getBoardSize(), archive.getBoardSize(), archive.size(), archive.getBlockCount());
+
+        if (archive.size() == 0) {
+            return;
+        }
+
+        scan(archive);
+        lookup(archive);
+
+        if (replay) {
+            replay(archive);
+        }
+    }
+
+    /**
+     * Reads every move of every game without building boards.
+     */
+    private static void scan(GameArchive archive) {
+
+        GameArchive.Cursor cursor = archive.cursor();
+        long blackWins = 0;
+        long whiteWins = 0;
+        long moves = 0;
+        long checksum = 0;
+        long start = System.nanoTime();
+
+        while (cursor.next()) {
+            int count = cursor.getMoveCount();
+            for (int ply = 0; ply < count; ply++) {
+                checksum += cursor.getMove(ply);
+            }
+            moves += count;
+
+            int differential = cursor.getBlackDiscs() - cursor.getWhiteDiscs();
+            if (differential > 0) {
+                blackWins++;
+            } else if (differential < 0) {
+                whiteWins++;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        int games = archive.size();
+
+        System.out.printf("Black wins: %.2f%%  White wins: %.2f%%  Draws: %.2f%%  Mean length: %.2f%n",
+                100.0 * blackWins / games, 100.0 * whiteWins / games,
+                100.0 * (games - blackWins - whiteWins) / games, (double) moves / games);
+        System.out.printf("Scan: %.3f s (%,.0f games/s, checksum %d)%n",
+                elapsed / 1e9, games * 1e9 / elapsed, checksum);
+    }
+
+    /**
+     * Jumps to random games through the block index.
+     */
+    private static void lookup(GameArchive archive) {
+
+        GameArchive.Cursor cursor = archive.cursor();
+        SplittableRandom random = new SplittableRandom(1);
+        long checksum = 0;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            cursor.seek(random.nextInt(archive.size()));
+            checksum += cursor.getMoveCount();
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Random access: %.2f us per game (checksum %d)%n",
+                elapsed / 1e3 / LOOKUPS, checksum);
+    }
+
+    /**
+     * Replays every game through the controller and checks its result.
+     */
+    private static void replay(GameArchive archive) {
+
+        GameArchive.Cursor cursor = archive.cursor();
+        int mismatches = 0;
+        long start = System.nanoTime();
+
+        while (cursor.next()) {
+            GameController controller = cursor.replay();
+
+            if (controller.countPieces(PieceColor.BLACK) != cursor.getBlackDiscs()
+                    || controller.countPieces(PieceColor.WHITE) != cursor.getWhiteDiscs()
+                    || !controller.isGameOver()) {
+                mismatches++;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Replay: %.3f s (%,.0f games/s), %d mismatched games%n",
+                elapsed / 1e9, archive.size() * 1e9 / elapsed, mismatches);
+    }
+}
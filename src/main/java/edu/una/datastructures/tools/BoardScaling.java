@@ -0,0 +1,209 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.logic.GameController;
+import edu.una.datastructures.logic.GameLogic;
+import edu.una.datastructures.logic.GridMoveCache;
+import edu.una.datastructures.logic.MoveJournal;
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.Node;
+import edu.una.datastructures.model.PieceColor;
+import edu.una.datastructures.model.SquareSet;
+import java.util.SplittableRandom;
+
+/**
+ * Measures game throughput on boards of different sizes.
+ * <p>
+ * For each size, random games are played three ways: through
+ * {@link GameController}, which also keeps the journal and the valid-move
+ * markers up to date; through {@link GameLogic} with a
+ * {@link GridMoveCache} updated from the squares each move changed; and
+ * through {@link GameLogic} finding the legal moves with a full scan of
+ * the nodes before every move, which is what the controller did before the
+ * caches. The last two show how the cost of finding moves grows with the
+ * board. Run it on the class path:
+ * <pre>
+ * java -cp target/classes edu.una.datastructures.tools.BoardScaling [sizes] [seconds]
+ * </pre>
+ * where sizes is a comma-separated list such as {@code 4,8,16,32}.
+ */
+public final class BoardScaling {
+
+    private BoardScaling() {
+    }
+
+    public static void main(String[] args) {
+
+        String sizes = args.length > 0 ? args[0] : "4,6,8,10,12,16,20,24,32";
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 3.0;
+
+        System.out.println("  size  squares  controller moves/s  cache us/move  rescan us/move  speedup");
+
+        for (String value : sizes.split(",")) {
+            int size = Integer.parseInt(value.trim());
+
+            // Warm-up rounds as long as the measured ones, so the JIT has
+            // settled before timing starts.
+            playController(size, seconds);
+            double controller = playController(size, seconds);
+            playCached(size, seconds);
+            double cached = playCached(size, seconds);
+            playRescan(size, seconds);
+            double rescan = playRescan(size, seconds);
+
+            System.out.printf("%6d  %7d  %,18.0f  %13.2f  %14.2f  %6.1fx%n",
+                    size, size * size, 1e6 / controller, cached, rescan, rescan / cached);
+        }
+    }
+
+    /**
+     * Plays random games through the controller for a given time.
+     *
+     * @return microseconds per move
+     */
+    private static double playController(int size, double seconds) {
+
+        SplittableRandom random = new SplittableRandom(size);
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long start = System.nanoTime();
+        long moves = 0;
+
+        do {
+            Board board = new Board(size);
+            GameController controller = new GameController(board);
+
+            while (!controller.isGameOver()) {
+                PieceColor player = controller.getCurrentPlayer();
+                int square = controller.nextValidMove(player, 0);
+
+                for (int skip = random.nextInt(controller.countValidMoves(player)); skip > 0; skip--) {
+                    square = controller.nextValidMove(player, square + 1);
+                }
+
+                controller.playMove(board.getNode(square));
+                moves++;
+            }
+        } while (System.nanoTime() < deadline);
+
+        return (System.nanoTime() - start) / 1e3 / moves;
+    }
+
+    /**
+     * Plays random games finding legal moves with a grid move cache.
+     *
+     * @return microseconds per move
+     */
+    private static double playCached(int size, double seconds) {
+
+        SplittableRandom random = new SplittableRandom(size);
+        GameLogic logic = new GameLogic();
+        MoveJournal journal = new MoveJournal();
+        int[] flipped = new int[size * size];
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long start = System.nanoTime();
+        long moves = 0;
+
+        do {
+            Board board = new Board(size);
+            GridMoveCache cache = new GridMoveCache(board);
+            PieceColor player = PieceColor.BLACK;
+            boolean passed = false;
+
+            while (true) {
+                SquareSet legal = cache.getLegalMoves(player);
+                int count = legal.count();
+
+                if (count == 0) {
+                    if (passed) {
+                        break;
+                    }
+                    passed = true;
+                } else {
+                    passed = false;
+                    int square = legal.nextSetBit(0);
+
+                    for (int skip = random.nextInt(count); skip > 0; skip--) {
+                        square = legal.nextSetBit(square + 1);
+                    }
+
+                    logic.applyMove(board.getNode(square), player, journal);
+
+                    int flipCount = journal.getLastFlipCount();
+                    for (int i = 0; i < flipCount; i++) {
+                        flipped[i] = journal.getLastFlipped(i).getIndex();
+                    }
+
+                    cache.update(square, flipped, flipCount);
+                    moves++;
+                }
+
+                player = player == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK;
+            }
+
+            journal.clear();
+        } while (System.nanoTime() < deadline);
+
+        return (System.nanoTime() - start) / 1e3 / moves;
+    }
+
+    /**
+     * Plays random games finding legal moves with a full scan per move.
+     *
+     * @return microseconds per move
+     */
+    private static double playRescan(int size, double seconds) {
+
+        SplittableRandom random = new SplittableRandom(size);
+        GameLogic logic = new GameLogic();
+        Node[] candidates = new Node[size * size];
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long start = System.nanoTime();
+        long moves = 0;
+
+        do {
+            Board board = new Board(size);
+            PieceColor player = PieceColor.BLACK;
+            boolean passed = false;
+
+            while (true) {
+                int count = scan(board, logic, player, candidates);
+
+                if (count == 0) {
+                    if (passed) {
+                        break;
+                    }
+                    passed = true;
+                } else {
+                    passed = false;
+                    logic.applyMove(candidates[random.nextInt(count)], player);
+                    moves++;
+                }
+
+                player = player == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK;
+            }
+        } while (System.nanoTime() < deadline);
+
+        return (System.nanoTime() - start) / 1e3 / moves;
+    }
+
+    /**
+     * Collects the legal moves of a player by visiting every node.
+     *
+     * @return the number of legal moves found
+     */
+    private static int scan(Board board, GameLogic logic, PieceColor player, Node[] candidates) {
+
+        int count = 0;
+        Node rowStart = board.getTopLeft();
+
+        while (rowStart != null) {
+            for (Node current = rowStart; current != null; current = current.getEast()) {
+                if (logic.isValidMove(current, player)) {
+                    candidates[count++] = current;
+                }
+            }
+            rowStart = rowStart.getSouth();
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,55 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.engine.OpeningBookBuilder;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Builds an opening book file from a text file of recorded games.
+ * <p>
+ * The input holds one game per line, written as concatenated square names
+ * ({@code f5d6c3d3c4...}); blank lines and lines starting with {@code #}
+ * are ignored.
+ * <p>
+ * Usage: {@code BuildOpeningBook <games.txt> <book.bin> [plies]}
+ */
+public final class BuildOpeningBook {
+
+    private static final int DEFAULT_PLIES = 20;
+
+    private BuildOpeningBook() {
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 2) {
+            System.err.println("Usage: BuildOpeningBook <games.txt> <book.bin> [plies]");
+            System.exit(1);
+        }
+
+        Path games = Paths.get(args[0]);
+        Path book = Paths.get(args[1]);
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PLIES;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        int count = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(games, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    builder.addGame(line);
+                    count++;
+                }
+            }
+        }
+
+        builder.write(book);
+        System.out.printf("%,d games, %,d book records written to %s%n", count, builder.size(), book);
+    }
+}
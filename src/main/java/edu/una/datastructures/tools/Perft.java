@@ -0,0 +1,268 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.engine.SearchBoard;
+import edu.una.datastructures.logic.GameLogic;
+import edu.una.datastructures.logic.MoveJournal;
+import edu.una.datastructures.model.BitBoard;
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.Node;
+import edu.una.datastructures.model.PieceColor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Move-path enumerator (perft) counting the leaf positions reachable from
+ * the starting position of {@link Board}.
+ * <p>
+ * A forced pass counts as a ply, and a finished game reached before the
+ * requested depth counts as one leaf, which is the convention of the
+ * published Othello perft counts. Three modes are available:
+ * <ul>
+ *   <li>{@code sequential}: bitboard make/unmake on one thread</li>
+ *   <li>{@code parallel}: the same enumeration split at the root moves
+ *       (and their replies) across a {@link ForkJoinPool}</li>
+ *   <li>{@code linked}: {@link GameLogic} on the linked node board, which
+ *       verifies the node-based rules</li>
+ * </ul>
+ * Usage: {@code Perft [depth] [mode] [threads]}
+ */
+public final class Perft {
+
+    /** Published perft counts for depths 0 to 14. */
+    private static final long[] REFERENCE = {
+        1L, 4L, 12L, 56L, 244L, 1_396L, 8_200L, 55_092L, 390_216L, 3_005_288L,
+        24_571_284L, 212_258_800L, 1_939_886_636L, 18_429_641_748L, 184_042_084_512L
+    };
+
+    /** Plies below the root that are split into parallel tasks. */
+    private static final int SPLIT_PLIES = 2;
+
+    private Perft() {
+    }
+
+    public static void main(String[] args) {
+
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        String mode = args.length > 1 ? args[1] : "sequential";
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                                      : Runtime.getRuntime().availableProcessors();
+
+        Board board = new Board();
+        long black = board.getMask(PieceColor.BLACK);
+        long white = board.getMask(PieceColor.WHITE);
+
+        for (int d = 1; d <= depth; d++) {
+
+            long start = System.nanoTime();
+            long leaves;
+
+            switch (mode) {
+                case "sequential":
+                    leaves = sequential(black, white, d);
+                    break;
+                case "parallel":
+                    leaves = parallel(black, white, d, threads);
+                    break;
+                case "linked":
+                    leaves = linked(new Board(), d);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown mode: " + mode);
+            }
+
+            long elapsed = System.nanoTime() - start;
+            String check = d < REFERENCE.length
+                    ? (leaves == REFERENCE[d] ? "ok" : "MISMATCH (expected " + REFERENCE[d] + ")")
+                    : "no reference";
+
+            System.out.printf("depth %2d  leaves %,18d  %9.3f s  %,15.0f leaves/s  %s%n",
+                    d, leaves, elapsed / 1e9, leaves * 1e9 / Math.max(elapsed, 1), check);
+        }
+    }
+
+    /**
+     * Counts leaves on the calling thread.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opponent
+     * @param depth number of plies
+     * @return the number of leaf positions
+     */
+    public static long sequential(long player, long opponent, int depth) {
+        SearchBoard board = new SearchBoard();
+        board.reset(player, opponent);
+        return count(board, depth);
+    }
+
+    /**
+     * Counts leaves on a fork-join pool, splitting the first plies into
+     * independent tasks.
+     *
+     * @param player pieces of the player to move
+     * @param opponent pieces of the opponent
+     * @param depth number of plies
+     * @param threads parallelism of the pool
+     * @return the number of leaf positions
+     */
+    public static long parallel(long player, long opponent, int depth, int threads) {
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        try {
+            return pool.invoke(new PerftTask(player, opponent, depth, SPLIT_PLIES));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Counts leaves with {@link GameLogic} on a linked board, undoing each
+     * move through a {@link MoveJournal}.
+     *
+     * @param board the board, holding the root position with black to move
+     * @param depth number of plies
+     * @return the number of leaf positions
+     */
+    public static long linked(Board board, int depth) {
+
+        Node[][] moves = new Node[depth + 1][BitBoard.SQUARES];
+        return countLinked(board, new GameLogic(), new MoveJournal(depth + 1), moves,
+                           PieceColor.BLACK, depth, false);
+    }
+
+    /**
+     * Recursive bitboard enumeration.
+     */
+    private static long count(SearchBoard board, int depth) {
+
+        if (depth == 0) {
+            return 1;
+        }
+
+        long moves = board.legalMoves();
+
+        if (moves == 0) {
+            if (board.opponentMoves() == 0) {
+                return 1;
+            }
+
+            board.makeMove(SearchBoard.PASS);
+            long leaves = count(board, depth - 1);
+            board.undoMove();
+            return leaves;
+        }
+
+        if (depth == 1) {
+            return Long.bitCount(moves);
+        }
+
+        long leaves = 0;
+
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+
+            board.makeMove(square);
+            leaves += count(board, depth - 1);
+            board.undoMove();
+        }
+
+        return leaves;
+    }
+
+    /**
+     * Recursive enumeration on the linked board.
+     */
+    private static long countLinked(Board board, GameLogic logic, MoveJournal journal,
+                                    Node[][] moves, PieceColor player, int depth, boolean passed) {
+
+        if (depth == 0) {
+            return 1;
+        }
+
+        Node[] candidates = moves[depth];
+        int count = 0;
+        Node rowStart = board.getTopLeft();
+
+        while (rowStart != null) {
+            Node current = rowStart;
+
+            while (current != null) {
+                if (logic.isValidMove(current, player)) {
+                    candidates[count++] = current;
+                }
+                current = current.getEast();
+            }
+            rowStart = rowStart.getSouth();
+        }
+
+        PieceColor opponent = player == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK;
+
+        if (count == 0) {
+            if (passed) {
+                // Neither side can move: the game ended one ply ago.
+                return 1;
+            }
+            return countLinked(board, logic, journal, moves, opponent, depth - 1, true);
+        }
+
+        long leaves = 0;
+
+        for (int i = 0; i < count; i++) {
+            logic.applyMove(candidates[i], player, journal);
+            leaves += countLinked(board, logic, journal, moves, opponent, depth - 1, false);
+            logic.undoMove(journal);
+        }
+
+        return leaves;
+    }
+
+    /**
+     * Fork-join task counting the leaves below one position.
+     */
+    private static final class PerftTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long player;
+        private final long opponent;
+        private final int depth;
+        private final int splitPlies;
+
+        PerftTask(long player, long opponent, int depth, int splitPlies) {
+            this.player = player;
+            this.opponent = opponent;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+
+            long moves = BitBoard.legalMoves(player, opponent);
+
+            if (splitPlies == 0 || depth <= 1 || moves == 0) {
+                return sequential(player, opponent, depth);
+            }
+
+            List<PerftTask> children = new ArrayList<>(Long.bitCount(moves));
+
+            while (moves != 0) {
+                int square = Long.numberOfTrailingZeros(moves);
+                moves &= moves - 1;
+
+                long flipped = BitBoard.flips(player, opponent, square);
+                children.add(new PerftTask(opponent & ~flipped, player | flipped | (1L << square),
+                                           depth - 1, splitPlies - 1));
+            }
+
+            long leaves = 0;
+            for (PerftTask child : invokeAll(children)) {
+                leaves += child.join();
+            }
+            return leaves;
+        }
+    }
+}
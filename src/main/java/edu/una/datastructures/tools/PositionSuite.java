@@ -0,0 +1,98 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.model.BitBoard;
+import java.util.Random;
+
+/**
+ * Deterministic suite of positions used by the benchmarking tools.
+ * <p>
+ * Positions are produced by random playouts from the starting position
+ * with a fixed seed, so every run measures exactly the same positions.
+ */
+public final class PositionSuite {
+
+    private PositionSuite() {
+    }
+
+    /**
+     * Generates positions with the given number of empty squares in which
+     * the player to move has at least one legal move.
+     *
+     * @param count number of positions to generate
+     * @param empties number of empty squares of each position
+     * @param seed seed of the random playouts
+     * @return pairs of masks: {@code [i][0]} holds the pieces of the player
+     *         to move and {@code [i][1]} those of the opponent
+     */
+    public static long[][] generate(int count, int empties, long seed) {
+
+        if (empties < 1 || empties > BitBoard.SQUARES - 4) {
+            throw new IllegalArgumentException("Empty squares must be in the range 1-60");
+        }
+
+        Random random = new Random(seed);
+        long[][] positions = new long[count][];
+        int generated = 0;
+
+        while (generated < count) {
+            long[] position = playout(random, empties);
+            if (position != null) {
+                positions[generated++] = position;
+            }
+        }
+
+        return positions;
+    }
+
+    /**
+     * Plays random moves until the requested number of empty squares is
+     * reached.
+     *
+     * @return the position, or null if the game ended too early
+     */
+    private static long[] playout(Random random, int empties) {
+
+        long player = BitBoard.INITIAL_BLACK;
+        long opponent = BitBoard.INITIAL_WHITE;
+
+        while (Long.bitCount(~(player | opponent)) > empties) {
+
+            long moves = BitBoard.legalMoves(player, opponent);
+
+            if (moves == 0) {
+                if (BitBoard.legalMoves(opponent, player) == 0) {
+                    return null;
+                }
+            } else {
+                int square = nthSquare(moves, random.nextInt(Long.bitCount(moves)));
+                long flipped = BitBoard.flips(player, opponent, square);
+                player |= flipped | (1L << square);
+                opponent &= ~flipped;
+            }
+
+            long swap = player;
+            player = opponent;
+            opponent = swap;
+        }
+
+        if (BitBoard.legalMoves(player, opponent) == 0) {
+            return null;
+        }
+
+        return new long[] {player, opponent};
+    }
+
+    /**
+     * Returns the square of the n-th set bit of a mask.
+     *
+     * @param mask the mask
+     * @param n zero-based index of the bit
+     * @return the square index
+     */
+    static int nthSquare(long mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1;
+        }
+        return Long.numberOfTrailingZeros(mask);
+    }
+}
@@ -0,0 +1,287 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.archive.GameArchiveWriter;
+import edu.una.datastructures.archive.GameStatistics;
+import edu.una.datastructures.engine.GreedyPlayer;
+import edu.una.datastructures.engine.MctsEngine;
+import edu.una.datastructures.engine.RandomPlayer;
+import edu.una.datastructures.engine.SearchEngine;
+import edu.una.datastructures.engine.TranspositionTable;
+import edu.una.datastructures.logic.BotPlayer;
+import edu.una.datastructures.logic.GameController;
+import edu.una.datastructures.model.BitBoard;
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.PieceColor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless self-play simulator.
+ * <p>
+ * Games are played through {@link Board}, {@link GameController} and the
+ * rules of {@code GameLogic}, with one pluggable policy per color. The games
+ * are split evenly across worker threads that share nothing, so throughput
+ * grows with the number of cores. When games are archived, each worker
+ * records them in its own buffer and the buffers are written in worker
+ * order once every worker is done, so the archive holds the same games in
+ * the same order for the same arguments. No JavaFX class is loaded; run it
+ * on the class path:
+ * <pre>
+ * java -cp target/classes edu.una.datastructures.tools.SelfPlay
+ *      [games] [threads] [blackPolicy] [whitePolicy] [seed] [archive]
+ * </pre>
+ * Policies are {@code random}, {@code greedy}, {@code search:NODES}, a
+ * {@link SearchEngine} limited to NODES nodes per move, or
+ * {@code mcts:PLAYOUTS}, a single-threaded {@link MctsEngine} limited to
+ * PLAYOUTS playouts per move. When an archive file is given, every game is
+ * also recorded in it.
+ */
+public final class SelfPlay {
+
+    /** Memory budget of the table of each search policy, in MB. */
+    private static final int SEARCH_HASH_MB = 4;
+
+    /** Memory budget of the tree of each Monte Carlo policy, in MB. */
+    private static final int MCTS_TREE_MB = 16;
+
+    private SelfPlay() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                                      : Runtime.getRuntime().availableProcessors();
+        String black = args.length > 2 ? args[2] : "random";
+        String white = args.length > 3 ? args[3] : "random";
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1L;
+
+        GameArchiveWriter archive = args.length > 5
+                ? GameArchiveWriter.create(Paths.get(args[5]), BitBoard.SIZE) : null;
+
+        long start = System.nanoTime();
+        GameStatistics statistics;
+
+        try {
+            statistics = run(games, threads, black, white, seed, archive);
+        } finally {
+            if (archive != null) {
+                archive.close();
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("Black: " + black + "  White: " + white + "  Threads: " + threads);
+        System.out.printf("Games: %,d in %.2f s (%,.0f games/s)%n",
+                statistics.getGames(), elapsed / 1e9, statistics.getGames() * 1e9 / elapsed);
+        statistics.print();
+
+        if (archive != null) {
+            System.out.println("Games recorded in " + args[5]);
+        }
+    }
+
+    /**
+     * Plays the given number of games split across worker threads.
+     *
+     * @param games total number of games
+     * @param threads number of worker threads
+     * @param black policy of the black player
+     * @param white policy of the white player
+     * @param seed base seed; worker {@code i} uses {@code seed + i}
+     * @return the merged statistics of every game
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public static GameStatistics run(int games, int threads, String black, String white, long seed)
+            throws InterruptedException {
+        return run(games, threads, black, white, seed, null);
+    }
+
+    /**
+     * Plays the given number of games split across worker threads and
+     * records them in an archive.
+     *
+     * @param games total number of games
+     * @param threads number of worker threads
+     * @param black policy of the black player
+     * @param white policy of the white player
+     * @param seed base seed; worker {@code i} uses {@code seed + i}
+     * @param archive writer receiving the games of every worker, in worker
+     *                order, or null to record nothing
+     * @return the merged statistics of every game
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public static GameStatistics run(int games, int threads, String black, String white, long seed,
+                                 GameArchiveWriter archive) throws InterruptedException {
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<GameStatistics>> workers = new ArrayList<>(threads);
+        List<RecordedGames> records = new ArrayList<>(threads);
+
+        for (int i = 0; i < threads; i++) {
+            int share = games / threads + (i < games % threads ? 1 : 0);
+            long workerSeed = seed + i;
+            RecordedGames record = archive != null ? new RecordedGames() : null;
+            records.add(record);
+            workers.add(pool.submit(() -> playGames(share,
+                    createPolicy(black, workerSeed * 2),
+                    createPolicy(white, workerSeed * 2 + 1), record)));
+        }
+
+        GameStatistics total = new GameStatistics();
+
+        try {
+            for (Future<GameStatistics> worker : workers) {
+                total.merge(worker.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Self-play worker failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        if (archive != null) {
+            try {
+                for (RecordedGames record : records) {
+                    record.writeTo(archive);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Creates a policy from its textual description.
+     *
+     * @param spec {@code random}, {@code greedy}, {@code search:NODES} or
+     *             {@code mcts:PLAYOUTS}
+     * @param seed seed for randomized policies
+     * @return a new policy instance, owned by a single thread
+     */
+    public static BotPlayer createPolicy(String spec, long seed) {
+
+        if (spec.equals("random")) {
+            return new RandomPlayer(seed);
+        }
+
+        if (spec.equals("greedy")) {
+            return new GreedyPlayer();
+        }
+
+        if (spec.startsWith("search:")) {
+            SearchEngine engine = new SearchEngine(new TranspositionTable(SEARCH_HASH_MB));
+            engine.setTimeLimit(0);
+            engine.setNodeLimit(Long.parseLong(spec.substring("search:".length())));
+            return engine;
+        }
+
+        if (spec.startsWith("mcts:")) {
+            MctsEngine engine = new MctsEngine(1, MCTS_TREE_MB, seed);
+            engine.setTimeLimit(0);
+            engine.setPlayoutLimit(Long.parseLong(spec.substring("mcts:".length())));
+            return engine;
+        }
+
+        throw new IllegalArgumentException("Unknown policy: " + spec);
+    }
+
+    /**
+     * Plays a series of games on the calling thread.
+     *
+     * @param games number of games to play
+     * @param black policy of the black player
+     * @param white policy of the white player
+     * @param record buffer receiving the games, or null
+     * @return the statistics of these games
+     */
+    private static GameStatistics playGames(int games, BotPlayer black, BotPlayer white,
+                                            RecordedGames record) {
+
+        GameStatistics statistics = new GameStatistics();
+        int[] squares = new int[GameStatistics.MAX_MOVES];
+
+        for (int i = 0; i < games; i++) {
+
+            Board board = new Board();
+            GameController controller = new GameController(board);
+            int moves = 0;
+
+            while (!controller.isGameOver()) {
+                PieceColor mover = controller.getCurrentPlayer();
+                PieceColor opponent = mover == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK;
+                BotPlayer policy = mover == PieceColor.BLACK ? black : white;
+
+                int square = policy.selectMove(board.getMask(mover), board.getMask(opponent));
+
+                if (square < 0 || !controller.playMove(board.getNode(square))) {
+                    throw new IllegalStateException("Policy returned an illegal move: " + square);
+                }
+                squares[moves++] = square;
+            }
+
+            int blackDiscs = Long.bitCount(board.getMask(PieceColor.BLACK));
+            int whiteDiscs = Long.bitCount(board.getMask(PieceColor.WHITE));
+            statistics.record(moves, blackDiscs - whiteDiscs);
+
+            if (record != null) {
+                record.add(squares, moves, blackDiscs, whiteDiscs);
+            }
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Games played by one worker, kept in memory until they are written to
+     * the archive: per game one byte each for the move count and the disc
+     * counts, then one byte per move.
+     */
+    private static final class RecordedGames {
+
+        private byte[] data = new byte[1 << 12];
+        private int length;
+        private final int[] squares = new int[GameStatistics.MAX_MOVES];
+
+        void add(int[] moves, int count, int blackDiscs, int whiteDiscs) {
+
+            if (length + 3 + count > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 3 + count));
+            }
+
+            data[length++] = (byte) count;
+            data[length++] = (byte) blackDiscs;
+            data[length++] = (byte) whiteDiscs;
+
+            for (int ply = 0; ply < count; ply++) {
+                data[length++] = (byte) moves[ply];
+            }
+        }
+
+        void writeTo(GameArchiveWriter archive) throws IOException {
+
+            for (int offset = 0; offset < length; ) {
+                int count = data[offset++];
+                int blackDiscs = data[offset++];
+                int whiteDiscs = data[offset++];
+
+                for (int ply = 0; ply < count; ply++) {
+                    squares[ply] = data[offset++];
+                }
+
+                archive.add(squares, count, blackDiscs, whiteDiscs, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.metrics.EngineMetrics;
+import edu.una.datastructures.metrics.MetricsExporter;
+import edu.una.datastructures.server.GameServer;
+import java.io.IOException;
+
+/**
+ * Runs a {@link GameServer} on the loopback interface until the process is
+ * stopped:
+ * <pre>
+ * java -cp target/classes edu.una.datastructures.tools.ServeGames [port] [botThreads] [botMillis]
+ * </pre>
+ * The port defaults to {@value GameServer#DEFAULT_PORT}, the bot threads to
+ * the number of available processors and the bot time budget to 100 ms.
+ * With {@code -Dreversi.metrics=FILE} the engine metrics of every game are
+ * written to that file every 10 s (see {@link MetricsExporter}).
+ */
+public final class ServeGames {
+
+    private ServeGames() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                                      : Runtime.getRuntime().availableProcessors();
+        long botMillis = args.length > 2 ? Long.parseLong(args[2]) : 100;
+
+        GameServer server = new GameServer(port, threads);
+        server.setBotTimeLimit(botMillis);
+
+        EngineMetrics metrics = new EngineMetrics();
+        MetricsExporter exporter = MetricsExporter.fromSystemProperties(metrics.getRegistry());
+        if (exporter != null) {
+            server.setMetrics(metrics);
+        }
+
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            if (exporter != null) {
+                exporter.close();
+            }
+        }));
+
+        System.out.printf("Serving games on localhost:%d with %d bot thread(s)%n", server.getPort(), threads);
+
+        while (true) {
+            Thread.sleep(60_000);
+            System.out.printf("Games: %,d  Connections: %,d%n", server.getGameCount(), server.getConnectionCount());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.engine.ParallelSearchEngine;
+import edu.una.datastructures.engine.SearchResult;
+
+/**
+ * Measures how the parallel search scales with the number of threads.
+ * <p>
+ * Every thread count searches the same fixed suite of positions to the
+ * same depth with a fresh transposition table, and the time to depth is
+ * compared with the single-threaded run, once with staggered helpers and
+ * once with every helper starting at depth 1. Speedups are only meaningful
+ * on a host with at least as many cores as threads.
+ * <p>
+ * Usage: {@code SpeedupBenchmark [maxThreads] [depth] [positions]}
+ */
+public final class SpeedupBenchmark {
+
+    private static final long SEED = 20240601L;
+    private static final int EMPTIES = 40;
+    private static final int HASH_MB = 64;
+
+    private SpeedupBenchmark() {
+    }
+
+    public static void main(String[] args) {
+
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+                                         : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        long[][] suite = PositionSuite.generate(count, EMPTIES, SEED);
+
+        // Warm up the JIT before measuring.
+        run(1, depth, suite, true);
+
+        System.out.printf("Cores: %d%n", Runtime.getRuntime().availableProcessors());
+        System.out.println("threads  time(ms)  speedup  nodes/s     unstaggered(ms)  speedup");
+        double baseline = 0;
+
+        for (int threads = 1; threads <= maxThreads; threads++) {
+
+            long[] staggered = run(threads, depth, suite, true);
+            long[] flat = threads == 1 ? staggered : run(threads, depth, suite, false);
+            double millis = staggered[0] / 1e6;
+            double flatMillis = flat[0] / 1e6;
+
+            if (threads == 1) {
+                baseline = millis;
+            }
+
+            System.out.printf("%7d  %8.1f  %7.2f  %,-10d  %15.1f  %7.2f%n",
+                    threads, millis, baseline / millis, staggered[1] * 1_000_000_000L / staggered[0],
+                    flatMillis, baseline / flatMillis);
+        }
+    }
+
+    /**
+     * Searches the whole suite with the given number of threads, with or
+     * without staggered helper depths.
+     *
+     * @return total elapsed nanoseconds and total nodes
+     */
+    private static long[] run(int threads, int depth, long[][] suite, boolean staggered) {
+
+        long elapsed = 0;
+        long nodes = 0;
+
+        try (ParallelSearchEngine engine = new ParallelSearchEngine(threads, HASH_MB)) {
+            engine.setTimeLimit(0);
+            engine.setMaxDepth(depth);
+            engine.setStaggeredHelpers(staggered);
+
+            for (long[] position : suite) {
+                engine.getTranspositionTable().clear();
+                long start = System.nanoTime();
+                SearchResult result = engine.search(position[0], position[1]);
+                elapsed += System.nanoTime() - start;
+                nodes += result.getNodes();
+            }
+        }
+
+        return new long[] {elapsed, nodes};
+    }
+}
@@ -0,0 +1,131 @@
+package edu.una.datastructures.tools;
+
+import edu.una.datastructures.engine.PatternTrainer;
+import edu.una.datastructures.engine.PatternWeights;
+import edu.una.datastructures.logic.BotPlayer;
+import edu.una.datastructures.model.BitBoard;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Trains pattern weights from self-play games and writes them to a file.
+ * <p>
+ * Games open with a few random moves for variety and are then played by a
+ * {@link SelfPlay} policy on both sides. Every position of a finished game
+ * is labelled with the final disc differential from the mover's point of
+ * view, scaled to evaluation units, and fed to a {@link PatternTrainer}.
+ * Training resumes from the output file when it already exists.
+ * <p>
+ * Usage: {@code TrainPatterns <weights.bin> [games] [policy] [seed]}
+ */
+public final class TrainPatterns {
+
+    /** Evaluation units per disc of final differential. */
+    private static final int TARGET_SCALE = 10;
+
+    /** Random moves played at the start of every game. */
+    private static final int RANDOM_PLIES = 8;
+
+    private static final double LEARNING_RATE = 0.002;
+
+    /** Games between two progress reports. */
+    private static final int REPORT_INTERVAL = 2_000;
+
+    private TrainPatterns() {
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 1) {
+            System.err.println("Usage: TrainPatterns <weights.bin> [games] [policy] [seed]");
+            System.exit(1);
+        }
+
+        Path output = Paths.get(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        String spec = args.length > 2 ? args[2] : "search:300";
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+
+        PatternWeights initial = Files.isRegularFile(output)
+                ? PatternWeights.load(output)
+                : PatternWeights.createDefault();
+        PatternTrainer trainer = new PatternTrainer(initial, LEARNING_RATE);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        BotPlayer policy = SelfPlay.createPolicy(spec, seed);
+        long[] players = new long[BitBoard.SQUARES];
+        long[] opponents = new long[BitBoard.SQUARES];
+        boolean[] blackMovers = new boolean[BitBoard.SQUARES];
+        long start = System.nanoTime();
+
+        for (int game = 1; game <= games; game++) {
+
+            long player = BitBoard.INITIAL_BLACK;
+            long opponent = BitBoard.INITIAL_WHITE;
+            int positions = 0;
+            boolean passed = false;
+            boolean blackToMove = true;
+
+            while (true) {
+                long moves = BitBoard.legalMoves(player, opponent);
+
+                if (moves == 0) {
+                    if (passed) {
+                        break;
+                    }
+                    passed = true;
+                } else {
+                    passed = false;
+                    players[positions] = player;
+                    opponents[positions] = opponent;
+                    blackMovers[positions] = blackToMove;
+                    positions++;
+
+                    int square = positions <= RANDOM_PLIES
+                            ? nthMove(moves, random.nextInt(Long.bitCount(moves)))
+                            : policy.selectMove(player, opponent);
+                    long flipped = BitBoard.flips(player, opponent, square);
+                    player |= flipped | (1L << square);
+                    opponent &= ~flipped;
+                }
+
+                long swap = player;
+                player = opponent;
+                opponent = swap;
+                blackToMove = !blackToMove;
+            }
+
+            long black = blackToMove ? player : opponent;
+            long white = blackToMove ? opponent : player;
+            int blackDiff = Long.bitCount(black) - Long.bitCount(white);
+
+            // Final differential from the point of view of each recorded mover.
+            for (int i = 0; i < positions; i++) {
+                int diff = blackMovers[i] ? blackDiff : -blackDiff;
+                trainer.train(players[i], opponents[i], diff * TARGET_SCALE);
+            }
+
+            if (game % REPORT_INTERVAL == 0 || game == games) {
+                System.out.printf("%,d games  RMSE %.1f  %.1f s%n",
+                        game, trainer.getRootMeanSquaredError(), (System.nanoTime() - start) / 1e9);
+                trainer.resetError();
+            }
+        }
+
+        trainer.toWeights().write(output);
+        System.out.println("Weights written to " + output);
+    }
+
+    /**
+     * @return the square of the n-th set bit of a move mask
+     */
+    private static int nthMove(long moves, int n) {
+        for (int i = 0; i < n; i++) {
+            moves &= moves - 1;
+        }
+        return Long.numberOfTrailingZeros(moves);
+    }
+}
@@ -1,23 +1,37 @@
 package edu.una.datastructures.ui;
 
+import edu.una.datastructures.engine.BotEngine;
+import edu.una.datastructures.engine.MctsEngine;
+import edu.una.datastructures.engine.OpeningBook;
+import edu.una.datastructures.engine.ParallelSearchEngine;
+import edu.una.datastructures.engine.PatternWeights;
+import edu.una.datastructures.engine.PonderingEngine;
+import edu.una.datastructures.engine.SearchResult;
 import edu.una.datastructures.logic.GameController;
+import edu.una.datastructures.metrics.EngineMetrics;
+import edu.una.datastructures.metrics.MetricsExporter;
+import edu.una.datastructures.model.BitBoard;
 import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.BoardGeometry;
 import edu.una.datastructures.model.Node;
 import edu.una.datastructures.model.PieceColor;
 import javafx.application.Application;
 import static javafx.application.Application.launch;
 import javafx.scene.Scene;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.HBox;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.geometry.Pos;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * JavaFX application entry point for the Reversi game.
@@ -27,56 +41,167 @@ import javafx.geometry.Pos;
  */
 public class App extends Application {
 
-    private static final int CELL_SIZE = 60;
+    /** Width and height of the board area, in pixels. */
+    private static final int BOARD_PIXELS = 480;
+
+    /** Side of a cell on the current board, in pixels. */
+    private int cellSize = BOARD_PIXELS / BitBoard.SIZE;
+
+    /** Thinking time given to the bot for each move, in milliseconds. */
+    private static final long BOT_TIME_MILLIS = 300;
+
+    /** Memory budget of the bot's transposition table, in MB. */
+    private static final int BOT_HASH_MB = 64;
+
+    /** Memory budget of the Monte Carlo bot's tree, in MB. */
+    private static final int MCTS_TREE_MB = 64;
+
+    /** Opening book used by the bot when present in the working directory. */
+    private static final Path BOOK_FILE = Paths.get("opening-book.bin");
+
+    /** Pattern weights used by the bot when present in the working directory. */
+    private static final Path WEIGHTS_FILE = Paths.get("pattern-weights.bin");
+
+    /** Metrics of every game, or null unless exported. */
+    private EngineMetrics metrics;
+
+    /** Writes the metrics to the file named by the reversi.metrics property, or null. */
+    private MetricsExporter metricsExporter;
+
+    /** Runs the bot searches of the current game, or null. */
+    private BotWorker botWorker;
+
+    /** Monte Carlo bot of the current game, or null. */
+    private MctsEngine mcts;
+
+    /** Shows whether the bot is thinking and its search progress. */
+    private Label status;
+
+    /** Spins while the bot is thinking. */
+    private ProgressIndicator thinking;
 
     @Override
     public void start(Stage stage) {
+
+        EngineMetrics exported = new EngineMetrics();
+        metricsExporter = MetricsExporter.fromSystemProperties(exported.getRegistry());
+        metrics = metricsExporter != null ? exported : null;
+
+        stage.setOnCloseRequest(e -> stopBot());
         showGameModeMenu(stage);
     }
 
+    @Override
+    public void stop() {
+        if (metricsExporter != null) {
+            metricsExporter.close();
+        }
+    }
+
+    /**
+     * Cancels the bot of the current game, if any, and releases its threads.
+     */
+    private void stopBot() {
+        if (botWorker != null) {
+            botWorker.shutdown();
+            botWorker = null;
+        }
+
+        // Closed by the worker, which drives it.
+        mcts = null;
+    }
+
     /**
-     * Initial menu to select game mode.
+     * Initial menu to select game mode and board size.
      */
     private void showGameModeMenu(Stage stage) {
 
+        ComboBox<Integer> sizeBox = new ComboBox<>();
+        for (int size = BoardGeometry.MIN_SIZE; size <= BoardGeometry.MAX_SIZE; size += 2) {
+            sizeBox.getItems().add(size);
+        }
+        sizeBox.setValue(BitBoard.SIZE);
+
         Button hvhButton = new Button("Human vs Human");
         Button hvbButton = new Button("Human vs Bot");
+        Button hvmButton = new Button("Human vs MCTS Bot");
 
-        hvhButton.setOnAction(e -> startGame(stage, false));
-        hvbButton.setOnAction(e -> startGame(stage, true));
+        hvhButton.setOnAction(e -> startGame(stage, false, false, sizeBox.getValue()));
+        hvbButton.setOnAction(e -> startGame(stage, true, false, sizeBox.getValue()));
+        hvmButton.setOnAction(e -> startGame(stage, true, true, sizeBox.getValue()));
 
-        VBox menu = new VBox(20, hvhButton, hvbButton);
+        VBox menu = new VBox(20, sizeBox, hvhButton, hvbButton, hvmButton);
         menu.setAlignment(Pos.CENTER);
 
-        Scene menuScene = new Scene(menu, 300, 200);
+        Scene menuScene = new Scene(menu, 300, 290);
         stage.setTitle("Reversi - Select Game Mode");
         stage.setScene(menuScene);
         stage.show();
     }
 
     /**
-     * Starts the game after selecting the mode.
+     * Starts the game after selecting the mode. The bot uses the minimax
+     * search engine, or the Monte Carlo engine when {@code monteCarlo} is
+     * set; both only play on the standard board, and on other sizes the
+     * bot plays the first valid move.
      */
-    private void startGame(Stage stage, boolean vsBot) {
+    private void startGame(Stage stage, boolean vsBot, boolean monteCarlo, int size) {
 
-        Board board = new Board();
-        GameController controller = new GameController(board);
+        stopBot();
 
-        if (vsBot) {
-            controller.setGameMode(true, PieceColor.WHITE); // Bot plays WHITE
+        Board board = new Board(size);
+        GameController controller = new GameController(board);
+        controller.setMetrics(metrics);
+        BotEngine engine = null;
+        cellSize = BOARD_PIXELS / size;
+
+        if (vsBot && size != BitBoard.SIZE) {
+            controller.setGameMode(true, PieceColor.WHITE);
+        } else if (vsBot && monteCarlo) {
+            mcts = new MctsEngine(Runtime.getRuntime().availableProcessors(), MCTS_TREE_MB, System.nanoTime());
+            mcts.setTimeLimit(BOT_TIME_MILLIS);
+            mcts.setMetrics(metrics);
+            engine = mcts;
+            controller.setGameMode(true, PieceColor.WHITE, mcts);
+            controller.setOpeningBook(loadOpeningBook());
+        } else if (vsBot) {
+            ParallelSearchEngine search = new ParallelSearchEngine(
+                    Runtime.getRuntime().availableProcessors(), BOT_HASH_MB);
+            search.setPatternWeights(loadPatternWeights());
+            PonderingEngine pondering = new PonderingEngine(search, BOT_TIME_MILLIS);
+            pondering.setMetrics(metrics);
+            engine = pondering;
+            controller.setGameMode(true, PieceColor.WHITE, pondering); // Bot plays WHITE
+            controller.setOpeningBook(loadOpeningBook());
         } else {
             controller.setGameMode(false, null);
         }
 
-        GridPane grid = buildGrid(controller);
+        botWorker = vsBot ? new BotWorker(engine, this::showProgress) : null;
 
-        VBox root = new VBox(grid);
+        BoardView view = new BoardView(controller, cellSize, node -> onCellClicked(node, controller));
+
+        Button newGameButton = new Button("New game");
+        newGameButton.setOnAction(e -> {
+            stopBot();
+            showGameModeMenu(stage);
+        });
+
+        status = new Label();
+        thinking = new ProgressIndicator();
+        thinking.setPrefSize(20, 20);
+        thinking.setVisible(false);
+
+        HBox bar = new HBox(10, newGameButton, thinking, status);
+        bar.setAlignment(Pos.CENTER_LEFT);
+
+        VBox root = new VBox(10, bar, view);
         root.setAlignment(Pos.CENTER);
 
         Scene gameScene = new Scene(
                 root,
-                CELL_SIZE * 8 + 40,
-                CELL_SIZE * 8 + 40
+                cellSize * size + 40,
+                cellSize * size + 80
         );
 
         stage.setTitle("Reversi");
@@ -84,96 +209,105 @@ public class App extends Application {
         stage.show();
 
         // Bot may need to play first
-        controller.playBotMoveIfNeeded();
-        refresh(gameScene, controller);
+        afterMove(controller);
     }
 
     /**
-     * Builds the visual board from the linked structure.
+     * Continues the game after a move: starts the bot search when the bot
+     * has the turn, or announces the result when the game is over.
      */
-    private GridPane buildGrid(GameController controller) {
-
-        GridPane grid = new GridPane();
-        Board board = controller.getBoard();
+    private void afterMove(GameController controller) {
 
-        Node rowStart = board.getTopLeft();
-        int row = 0;
+        if (botWorker != null && botWorker.start(controller, () -> afterMove(controller))) {
+            status.setText("Thinking...");
+            thinking.setVisible(true);
+            return;
+        }
 
-        while (rowStart != null) {
-            Node current = rowStart;
-            int col = 0;
+        String statistics = botWorker != null ? botWorker.getPonderStatistics() : null;
 
-            while (current != null) {
-                StackPane cell = createCell(current, controller);
-                grid.add(cell, col, row);
+        if (mcts != null && mcts.getPlayouts() > 0) {
+            statistics = String.format("%,d playouts/s, tree %,d nodes",
+                    mcts.getPlayoutsPerSecond(), mcts.getTreeSize());
+        }
 
-                current = current.getEast();
-                col++;
-            }
+        status.setText(statistics != null ? statistics : "");
+        thinking.setVisible(false);
 
-            rowStart = rowStart.getSouth();
-            row++;
+        if (controller.isGameOver()) {
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setTitle("Game Over");
+            alert.setHeaderText("Game Finished");
+            alert.setContentText(controller.getWinnerText());
+            alert.showAndWait();
         }
+    }
 
-        return grid;
+    /**
+     * Shows the progress of the bot search.
+     */
+    private void showProgress(SearchResult progress) {
+
+        double seconds = progress.getElapsedNanos() / 1e9;
+        String best = progress.getBestMove() >= 0 ? BitBoard.squareName(progress.getBestMove()) : "pass";
+
+        status.setText(String.format("Thinking... depth %d, best %s, %,.0f %s/s",
+                progress.getDepth(), best, seconds > 0 ? progress.getNodes() / seconds : 0,
+                mcts != null ? "playouts" : "nodes"));
     }
 
     /**
-     * Creates a single board cell bound to a node.
+     * Loads the opening book if one is available.
+     *
+     * @return the book, or null if there is none
      */
-    private StackPane createCell(Node node, GameController controller) {
-
-        StackPane cell = new StackPane();
-        cell.setPrefSize(CELL_SIZE, CELL_SIZE);
-
-        Rectangle background = new Rectangle(CELL_SIZE, CELL_SIZE);
-        background.setFill(Color.DARKGREEN);
-        background.setStroke(Color.BLACK);
-        cell.getChildren().add(background);
-
-        // Draw piece
-        if (node.getPiece() == PieceColor.BLACK) {
-            Circle piece = new Circle(22);
-            piece.setFill(Color.BLACK);
-            cell.getChildren().add(piece);
-
-        } else if (node.getPiece() == PieceColor.WHITE) {
-            Circle piece = new Circle(22);
-            piece.setFill(Color.WHITE);
-            cell.getChildren().add(piece);
-
-        } // Valid move indicator
-        else if (node.isValidMove()) {
-            Circle hint = new Circle(6);
-            hint.setFill(Color.DODGERBLUE);
-            cell.getChildren().add(hint);
+    private OpeningBook loadOpeningBook() {
+
+        if (!Files.isRegularFile(BOOK_FILE)) {
+            return null;
         }
 
-        // UI delegates action to controller
-        cell.setOnMouseClicked(e -> {
-            if (controller.playMove(node)) {
-                controller.playBotMoveIfNeeded();
-                refresh(cell.getScene(), controller);
-
-                if (controller.isGameOver()) {
-                    Alert alert = new Alert(AlertType.INFORMATION);
-                    alert.setTitle("Game Over");
-                    alert.setHeaderText("Game Finished");
-                    alert.setContentText(controller.getWinnerText());
-                    alert.showAndWait();
-                }
-            }
-        });
+        try {
+            return OpeningBook.open(BOOK_FILE);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Opening book not loaded: " + e.getMessage());
+            return null;
+        }
+    }
 
-        return cell;
+    /**
+     * Loads the pattern weights if a weights file is available.
+     *
+     * @return the weights, or null to keep the default heuristic
+     */
+    private PatternWeights loadPatternWeights() {
+
+        if (!Files.isRegularFile(WEIGHTS_FILE)) {
+            return null;
+        }
+
+        try {
+            return PatternWeights.load(WEIGHTS_FILE);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Pattern weights not loaded: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * Refreshes the board UI.
+     * Handles a click on a cell. Clicks are ignored while the bot has the
+     * turn. The board view is updated by the controller notifications, so
+     * nothing is redrawn here.
      */
-    private void refresh(Scene scene, GameController controller) {
-        GridPane newGrid = buildGrid(controller);
-        ((VBox) scene.getRoot()).getChildren().set(0, newGrid);
+    private void onCellClicked(Node node, GameController controller) {
+
+        if (controller.isBotTurn()) {
+            return;
+        }
+
+        if (controller.playMove(node)) {
+            afterMove(controller);
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,169 @@
+package edu.una.datastructures.ui;
+
+import edu.una.datastructures.logic.BoardListener;
+import edu.una.datastructures.logic.GameController;
+import edu.una.datastructures.metrics.BoardRefreshEvent;
+import edu.una.datastructures.model.Board;
+import edu.una.datastructures.model.Node;
+import edu.una.datastructures.model.PieceColor;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import jdk.jfr.EventType;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Board grid built once from the linked structure and kept in sync with
+ * the game through {@link BoardListener} notifications.
+ * <p>
+ * Every cell holds its background, a piece circle and a valid-move hint
+ * from the start; a change only recolors the piece or toggles the
+ * visibility of the two circles of the reported cell, so playing a move
+ * creates no scene graph nodes.
+ * <p>
+ * When Java Flight Recorder records them, building the grid and every
+ * batch of cell updates (the notifications of one move, up to the next
+ * pulse of the FX thread) emit a {@link BoardRefreshEvent}.
+ */
+class BoardView extends GridPane implements BoardListener {
+
+    /** Scene graph nodes created per cell: the pane, its background and two circles. */
+    private static final int NODES_PER_CELL = 4;
+
+    /** Type of the refresh events, checked before creating one per batch. */
+    private static final EventType REFRESH_TYPE = EventType.getEventType(BoardRefreshEvent.class);
+
+    private final Circle[] pieces;
+    private final Circle[] hints;
+
+    private final int size;
+
+    /** False while the grid is built; cells shown then belong to the build. */
+    private boolean built;
+
+    /** Refresh event of the running batch of cell updates, or null. */
+    private BoardRefreshEvent refresh;
+
+    /** Cells updated in the running batch. */
+    private int refreshedCells;
+
+    /**
+     * Builds the grid and registers it as the board listener of the
+     * controller.
+     *
+     * @param controller the game shown
+     * @param cellSize side of a cell, in pixels
+     * @param onClick called with the node of a clicked cell
+     */
+    BoardView(GameController controller, int cellSize, Consumer<Node> onClick) {
+
+        BoardRefreshEvent build = new BoardRefreshEvent();
+        build.begin();
+
+        Board board = controller.getBoard();
+        int squares = board.getGeometry().getSquares();
+
+        this.size = board.getSize();
+        this.pieces = new Circle[squares];
+        this.hints = new Circle[squares];
+
+        Node rowStart = board.getTopLeft();
+        int row = 0;
+
+        while (rowStart != null) {
+            Node current = rowStart;
+            int col = 0;
+
+            while (current != null) {
+                add(createCell(current, cellSize, onClick), col, row);
+
+                current = current.getEast();
+                col++;
+            }
+
+            rowStart = rowStart.getSouth();
+            row++;
+        }
+
+        controller.setBoardListener(this);
+        built = true;
+
+        if (build.shouldCommit()) {
+            build.boardSize = size;
+            build.cellsUpdated = squares;
+            build.nodesCreated = squares * NODES_PER_CELL;
+            build.commit();
+        }
+    }
+
+    /**
+     * Creates the cell of a node with all its shapes and its click handler.
+     */
+    private StackPane createCell(Node node, int cellSize, Consumer<Node> onClick) {
+
+        Rectangle background = new Rectangle(cellSize, cellSize);
+        background.setFill(Color.DARKGREEN);
+        background.setStroke(Color.BLACK);
+
+        Circle piece = new Circle(cellSize * 0.37);
+        Circle hint = new Circle(Math.max(2, cellSize / 10));
+        hint.setFill(Color.DODGERBLUE);
+
+        pieces[node.getIndex()] = piece;
+        hints[node.getIndex()] = hint;
+
+        StackPane cell = new StackPane(background, piece, hint);
+        cell.setPrefSize(cellSize, cellSize);
+        cell.setOnMouseClicked(e -> onClick.accept(node));
+
+        nodeChanged(node);
+        return cell;
+    }
+
+    /**
+     * Shows the current piece and valid-move flag of a node.
+     */
+    @Override
+    public void nodeChanged(Node node) {
+
+        if (built && refresh == null && REFRESH_TYPE.isEnabled()) {
+            BoardRefreshEvent event = new BoardRefreshEvent();
+            event.begin();
+            refresh = event;
+            refreshedCells = 0;
+            Platform.runLater(this::commitRefresh);
+        }
+
+        if (refresh != null) {
+            refreshedCells++;
+        }
+
+        Circle piece = pieces[node.getIndex()];
+        PieceColor color = node.getPiece();
+
+        piece.setVisible(color == PieceColor.BLACK || color == PieceColor.WHITE);
+        piece.setFill(color == PieceColor.WHITE ? Color.WHITE : Color.BLACK);
+
+        // The hint is only drawn on empty squares.
+        hints[node.getIndex()].setVisible(!piece.isVisible() && node.isValidMove());
+    }
+
+    /**
+     * Ends the running batch of cell updates.
+     */
+    private void commitRefresh() {
+
+        refresh.end();
+
+        if (refresh.shouldCommit()) {
+            refresh.boardSize = size;
+            refresh.cellsUpdated = refreshedCells;
+            refresh.commit();
+        }
+
+        refresh = null;
+    }
+}
@@ -0,0 +1,197 @@
+package edu.una.datastructures.ui;
+
+import edu.una.datastructures.engine.BotEngine;
+import edu.una.datastructures.engine.PonderingEngine;
+import edu.una.datastructures.engine.SearchResult;
+import edu.una.datastructures.logic.GameController;
+import edu.una.datastructures.model.PieceColor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import javafx.application.Platform;
+
+/**
+ * Runs the bot's searches on a background thread so the JavaFX
+ * application thread never waits for them.
+ * <p>
+ * The position is captured on the FX thread with
+ * {@link GameController#prepareBotMove()}, the move is chosen on the
+ * worker thread, and the result is played back on the FX thread. Search
+ * progress is forwarded to the FX thread as it comes. Every search gets a
+ * generation number; {@link #cancel()} moves to a new generation and stops
+ * the engine, so results and progress of a cancelled search are dropped
+ * even if they were already on their way. The engine is prepared for each
+ * search on the FX thread, so a cancel that comes before the worker thread
+ * starts the search still stops it.
+ * <p>
+ * Once the bot has moved and the human has the turn, the engine starts
+ * pondering on the human's time if it can.
+ * <p>
+ * All methods must be called on the FX thread.
+ */
+final class BotWorker {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bot-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Engine used by the bot, or null when the bot needs no search. */
+    private final BotEngine engine;
+
+    /** Number of the current search; written on the FX thread only. */
+    private volatile int generation;
+
+    private boolean thinking;
+
+    /**
+     * Creates a worker.
+     *
+     * @param engine the engine used by the controller's bot, or null
+     * @param onProgress called on the FX thread with the progress of the
+     *                   running search
+     */
+    BotWorker(BotEngine engine, Consumer<SearchResult> onProgress) {
+
+        this.engine = engine;
+
+        if (engine != null) {
+            engine.setSearchListener(progress -> {
+                int id = generation;
+                Platform.runLater(() -> {
+                    if (id == generation && thinking) {
+                        onProgress.accept(progress);
+                    }
+                });
+            });
+        }
+    }
+
+    /**
+     * @return true while a bot move is being searched
+     */
+    boolean isThinking() {
+        return thinking;
+    }
+
+    /**
+     * Starts searching the bot's move if the bot has the turn.
+     *
+     * @param controller the game
+     * @param onMove called on the FX thread once the move is played
+     * @return true if a search was started
+     */
+    boolean start(GameController controller, Runnable onMove) {
+
+        IntSupplier search = controller.prepareBotMove();
+
+        if (search == null || thinking) {
+            return false;
+        }
+
+        int id = ++generation;
+        thinking = true;
+
+        if (engine != null) {
+            engine.prepareSearch();
+        }
+
+        executor.execute(() -> {
+            int square;
+
+            try {
+                square = search.getAsInt();
+            } catch (RuntimeException e) {
+                System.err.println("Bot search failed: " + e);
+                square = -1;
+            }
+
+            int move = square;
+
+            Platform.runLater(() -> {
+                if (id != generation) {
+                    return;
+                }
+
+                thinking = false;
+
+                if (!controller.playBotMove(move)) {
+                    // Fall back to the first valid move rather than stalling the game.
+                    controller.playBotMove(controller.nextValidMove(controller.getCurrentPlayer(), 0));
+                }
+
+                ponder(controller);
+                onMove.run();
+            });
+        });
+
+        return true;
+    }
+
+    /**
+     * Starts pondering if the human has the turn.
+     */
+    private void ponder(GameController controller) {
+
+        if (engine == null || controller.isBotTurn() || controller.isGameOver()) {
+            return;
+        }
+
+        PieceColor human = controller.getCurrentPlayer();
+        PieceColor bot = human == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK;
+
+        try {
+            engine.ponder(controller.getBoard().getMask(human), controller.getBoard().getMask(bot));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the pondering statistics of the engine, or null without one
+     */
+    String getPonderStatistics() {
+
+        if (!(engine instanceof PonderingEngine)) {
+            return null;
+        }
+
+        PonderingEngine pondering = (PonderingEngine) engine;
+
+        if (pondering.getPonderHits() + pondering.getPonderMisses() == 0) {
+            return null;
+        }
+
+        return String.format("Ponder hits: %d/%d (%.0f%%)", pondering.getPonderHits(),
+                pondering.getPonderHits() + pondering.getPonderMisses(), 100 * pondering.getPonderHitRate());
+    }
+
+    /**
+     * Stops the running search, if any, and discards its result.
+     */
+    void cancel() {
+
+        generation++;
+        thinking = false;
+
+        if (engine != null) {
+            engine.cancel();
+        }
+    }
+
+    /**
+     * Cancels the running search and releases the worker and engine
+     * threads. The worker cannot be used afterwards.
+     */
+    void shutdown() {
+
+        cancel();
+        executor.shutdownNow();
+
+        if (engine != null) {
+            engine.close();
+        }
+    }
+}
@@ -6,12 +6,17 @@ module edu.una.datastructures.reversigame {
 
     requires javafx.controls;
     requires javafx.fxml;
+    requires transitive jdk.jfr;
 
     // Allows JavaFX to access UI classes (FXML-ready)
     opens edu.una.datastructures.ui to javafx.fxml;
 
     // Exported packages for documentation and external visibility
     exports edu.una.datastructures.ui;
+    exports edu.una.datastructures.archive;
+    exports edu.una.datastructures.engine;
     exports edu.una.datastructures.logic;
+    exports edu.una.datastructures.metrics;
     exports edu.una.datastructures.model;
+    exports edu.una.datastructures.tools;
 }